@@ -0,0 +1,95 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.benchmarks;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.ClassValueClassResolver;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Writes and reads objects of 20 registered classes interleaved, so the class looked up changes for every object. */
+public class ClassResolverBenchmark {
+	@Benchmark
+	public void write (ClassResolverState state) {
+		Kryo kryo = state.kryo;
+		Output output = state.output;
+		output.setPosition(0);
+		for (Object object : state.objects)
+			kryo.writeClassAndObject(output, object);
+	}
+
+	@Benchmark
+	public void read (ClassResolverState state, Blackhole blackhole) {
+		Kryo kryo = state.kryo;
+		Input input = state.input;
+		input.setPosition(0);
+		for (int i = 0, n = state.objects.length; i < n; i++)
+			blackhole.consume(kryo.readClassAndObject(input));
+	}
+
+	@State(Scope.Thread)
+	static public class ClassResolverState {
+		@Param() public ResolverType resolverType;
+
+		Kryo kryo;
+		final Output output = new Output(1024 * 64);
+		final Input input = new Input(output.getBuffer());
+		Object[] objects;
+
+		@Setup
+		public void setup () {
+			kryo = resolverType == ResolverType.classValue
+				? new Kryo(new ClassValueClassResolver(), new MapReferenceResolver()) : new Kryo();
+			kryo.setReferences(false);
+
+			Object[] types = {1, 2L, (short)3, (byte)4, 'c', 5f, 6d, true, "abc", new StringBuilder("sb"), new int[] {1},
+				new long[] {2}, new byte[] {3}, new double[] {4}, BigInteger.TEN, BigDecimal.ONE, new Date(0), Locale.US,
+				new ArrayList(), new HashMap()};
+			for (Object object : types)
+				kryo.register(object.getClass());
+			objects = new Object[1000];
+			for (int i = 0; i < objects.length; i++)
+				objects[i] = types[i % types.length];
+
+			output.setPosition(0);
+			for (Object object : objects)
+				kryo.writeClassAndObject(output, object);
+		}
+	}
+
+	static public enum ResolverType {
+		defaultResolver, classValue
+	}
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.benchmarks;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.ReferenceResolver;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer;
+import com.esotericsoftware.kryo.util.DefaultClassResolver;
+import com.esotericsoftware.kryo.util.GenerationalReferenceResolver;
+import com.esotericsoftware.kryo.util.ListReferenceResolver;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Round trips a tiny object graph with references enabled, so the cost of resetting the reference resolver for each graph is
+ * significant. The largeGraph parameter first serializes a large graph, so the tables are larger than the tiny graph needs. The
+ * compatible parameter uses {@link CompatibleFieldSerializer}, which puts entries in the graph context for each graph. */
+public class ReferenceResolverBenchmark {
+	@Benchmark
+	public Object roundTrip (ReferenceResolverState state) {
+		Output output = state.output;
+		output.setPosition(0);
+		state.kryo.writeObject(output, state.object);
+		Input input = state.input;
+		input.setPosition(0);
+		input.setLimit(output.position());
+		return state.kryo.readObject(input, Node.class);
+	}
+
+	@State(Scope.Thread)
+	static public class ReferenceResolverState {
+		@Param() public ResolverType resolverType;
+		@Param({"true", "false"}) public boolean largeGraph;
+		@Param({"true", "false"}) public boolean compatible;
+
+		Kryo kryo;
+		final Output output = new Output(1024 * 512);
+		final Input input = new Input(output.getBuffer());
+		final Node object = new Node();
+
+		@Setup
+		public void setup () {
+			kryo = new Kryo(new DefaultClassResolver(), resolverType.create());
+			kryo.setReferences(true);
+			if (compatible)
+				kryo.register(Node.class, new CompatibleFieldSerializer(kryo, Node.class));
+			else
+				kryo.register(Node.class);
+			object.value = 1;
+			object.next = new Node();
+			object.next.value = 2;
+			object.next.next = object;
+
+			if (largeGraph) {
+				Node head = new Node();
+				for (int i = 0; i < 1500; i++) {
+					Node node = new Node();
+					node.next = head;
+					head = node;
+				}
+				output.setPosition(0);
+				kryo.writeObject(output, head);
+			}
+		}
+	}
+
+	static public class Node {
+		public int value;
+		public Node next;
+	}
+
+	static public enum ResolverType {
+		map {
+			ReferenceResolver create () {
+				return new MapReferenceResolver();
+			}
+		},
+		list {
+			ReferenceResolver create () {
+				return new ListReferenceResolver();
+			}
+		},
+		generational {
+			ReferenceResolver create () {
+				return new GenerationalReferenceResolver();
+			}
+		};
+
+		abstract ReferenceResolver create ();
+	}
+}
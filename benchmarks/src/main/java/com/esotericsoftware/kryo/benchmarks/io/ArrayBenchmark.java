@@ -19,10 +19,13 @@
 
 package com.esotericsoftware.kryo.benchmarks.io;
 
+import java.util.Random;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 
@@ -77,6 +80,34 @@ public class ArrayBenchmark {
 		state.input.readLongs(state.longs.length, true);
 	}
 
+	@Benchmark
+	@Measurement(batchSize = 20000)
+	public void writeVarIntsLarge (WriteLargeIntsState state) {
+		state.reset();
+		state.output.writeInts(state.ints, 0, state.ints.length, true);
+	}
+
+	@Benchmark
+	@Measurement(batchSize = 20000)
+	public void readVarIntsLarge (ReadLargeIntsState state) {
+		state.reset();
+		state.input.readInts(state.ints.length, true);
+	}
+
+	@Benchmark
+	@Measurement(batchSize = 20000)
+	public void writeVarLongsLarge (WriteLargeLongsState state) {
+		state.reset();
+		state.output.writeLongs(state.longs, 0, state.longs.length, true);
+	}
+
+	@Benchmark
+	@Measurement(batchSize = 20000)
+	public void readVarLongsLarge (ReadLargeLongsState state) {
+		state.reset();
+		state.input.readLongs(state.longs.length, true);
+	}
+
 	//
 
 	@State(Scope.Thread)
@@ -111,4 +142,49 @@ public class ArrayBenchmark {
 			new ArrayBenchmark().writeLongs(this);
 		}
 	}
+
+	@State(Scope.Thread)
+	static public class WriteLargeIntsState extends InputOutputState {
+		@Param({"1000", "50000"}) public int length;
+		public int[] ints;
+
+		public void setup () {
+			super.setup();
+			// Mostly small values with some larger ones, like a feature vector.
+			Random random = new Random(0);
+			ints = new int[length];
+			for (int i = 0; i < length; i++)
+				ints[i] = random.nextInt(8) == 0 ? random.nextInt(1 << 20) : random.nextInt(128);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class ReadLargeIntsState extends WriteLargeIntsState {
+		public void setup () {
+			super.setup();
+			new ArrayBenchmark().writeVarIntsLarge(this);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class WriteLargeLongsState extends InputOutputState {
+		@Param({"1000", "50000"}) public int length;
+		public long[] longs;
+
+		public void setup () {
+			super.setup();
+			Random random = new Random(0);
+			longs = new long[length];
+			for (int i = 0; i < length; i++)
+				longs[i] = random.nextInt(8) == 0 ? random.nextLong() >>> random.nextInt(64) : random.nextInt(128);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class ReadLargeLongsState extends WriteLargeLongsState {
+		public void setup () {
+			super.setup();
+			new ArrayBenchmark().writeVarLongsLarge(this);
+		}
+	}
 }
@@ -0,0 +1,70 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.benchmarks.io;
+
+import com.esotericsoftware.kryo.io.BufferAllocator;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.io.PooledBufferAllocator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares allocating a new Output per message with Outputs whose buffers come from a {@link PooledBufferAllocator}. Run with
+ * <code>-prof gc</code> to see the allocation rate. Each operation writes a batch of 100000 messages, so gc.alloc.rate.norm is
+ * the number of bytes allocated per 100000 messages. */
+@BenchmarkMode(Mode.SingleShotTime)
+@Measurement(batchSize = 100000)
+public class BufferAllocatorBenchmark {
+	@Benchmark
+	public int newOutput (AllocatorState state) {
+		Output output = new Output(4096, -1, state.allocator);
+		return write(output, state.size);
+	}
+
+	private int write (Output output, int size) {
+		for (int i = 0; i < size; i += 8)
+			output.writeLong(i);
+		int position = output.position();
+		output.close();
+		return position;
+	}
+
+	@State(Scope.Thread)
+	static public class AllocatorState {
+		@Param() public AllocatorType allocatorType;
+		@Param({"1000", "10000"}) public int size;
+		BufferAllocator allocator;
+
+		@Setup
+		public void setup () {
+			allocator = allocatorType == AllocatorType.pooled ? new PooledBufferAllocator() : null;
+		}
+	}
+
+	static public enum AllocatorType {
+		none, pooled
+	}
+}
@@ -10,6 +10,8 @@ import com.esotericsoftware.kryo.unsafe.UnsafeByteBufferOutput;
 import com.esotericsoftware.kryo.unsafe.UnsafeInput;
 import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
 
+import java.nio.ByteBuffer;
+
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
@@ -42,6 +44,23 @@ public class InputOutputState {
 			output = new UnsafeByteBufferOutput(1024 * 512);
 			input = new UnsafeByteBufferInput(((UnsafeByteBufferOutput)output).getByteBuffer());
 			break;
+		case varHandleArray:
+			output = (Output)newVarHandle("VarHandleOutput", int.class, 1024 * 512);
+			input = (Input)newVarHandle("VarHandleInput", byte[].class, output.getBuffer());
+			break;
+		case varHandleByteBuffer:
+			output = (Output)newVarHandle("VarHandleByteBufferOutput", int.class, 1024 * 512);
+			input = (Input)newVarHandle("VarHandleByteBufferInput", ByteBuffer.class, ((ByteBufferOutput)output).getByteBuffer());
+			break;
+		}
+	}
+
+	/** The VarHandle classes require Java 9+, so they are created reflectively. */
+	static private Object newVarHandle (String name, Class type, Object arg) {
+		try {
+			return Class.forName("com.esotericsoftware.kryo.varhandle." + name).getConstructor(type).newInstance(arg);
+		} catch (Exception ex) {
+			throw new RuntimeException("VarHandle buffers require Java 9+.", ex);
 		}
 	}
 
@@ -51,6 +70,6 @@ public class InputOutputState {
 	}
 
 	static public enum BufferType {
-		array, unsafeArray, byteBuffer, unsafeByteBuffer
+		array, unsafeArray, byteBuffer, unsafeByteBuffer, varHandleArray, varHandleByteBuffer
 	}
 }
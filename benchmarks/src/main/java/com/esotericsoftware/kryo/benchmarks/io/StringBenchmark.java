@@ -19,10 +19,13 @@
 
 package com.esotericsoftware.kryo.benchmarks.io;
 
+import com.esotericsoftware.kryo.io.StringCache;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 
@@ -41,6 +44,12 @@ public class StringBenchmark {
 		return state.input.readString();
 	}
 
+	@Benchmark
+	public String readStringCached (ReadStringCached state) {
+		state.reset();
+		return state.input.readString();
+	}
+
 	@Benchmark
 	public void writeStringLong (InputOutputState state) {
 		state.reset();
@@ -67,6 +76,18 @@ public class StringBenchmark {
 		return state.input.readString();
 	}
 
+	@Benchmark
+	public void writeStringType (StringTypeState state) {
+		state.reset();
+		state.output.writeString(state.value);
+	}
+
+	@Benchmark
+	public String readStringType (ReadStringType state) {
+		state.reset();
+		return state.input.readString();
+	}
+
 	//
 
 	@State(Scope.Thread)
@@ -77,6 +98,14 @@ public class StringBenchmark {
 		}
 	}
 
+	@State(Scope.Thread)
+	static public class ReadStringCached extends ReadString {
+		public void setup () {
+			super.setup();
+			input.setStringCache(new StringCache());
+		}
+	}
+
 	@State(Scope.Thread)
 	static public class ReadStringLong extends InputOutputState {
 		public void setup () {
@@ -92,4 +121,41 @@ public class StringBenchmark {
 			new StringBenchmark().writeAsciiLong(this);
 		}
 	}
+
+	@State(Scope.Thread)
+	static public class StringTypeState extends InputOutputState {
+		@Param() public StringType stringType;
+		String value;
+
+		public void setup () {
+			super.setup();
+			StringBuilder builder = new StringBuilder();
+			while (builder.length() < 1000)
+				builder.append(stringType.text);
+			value = builder.toString();
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class ReadStringType extends StringTypeState {
+		public void setup () {
+			super.setup();
+			new StringBenchmark().writeStringType(this);
+		}
+	}
+
+	static public enum StringType {
+		/** Only ASCII characters. */
+		ascii("abcdefghijklmnopqrstuvwxyz0123456789 "),
+		/** Mostly ASCII with some Latin-1 characters, stored as Latin-1 by compact strings (Java 9+). */
+		latin1("caf\u00E9 na\u00EFve fa\u00E7ade \u00FCber "),
+		/** Characters outside Latin-1, stored as UTF16 by compact strings. */
+		mixed("abc \u00E9t\u00E9 \u4E2D\u6587 \u0436\u0437 ");
+
+		final String text;
+
+		StringType (String text) {
+			this.text = text;
+		}
+	}
 }
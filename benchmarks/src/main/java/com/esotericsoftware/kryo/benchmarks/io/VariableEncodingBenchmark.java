@@ -19,12 +19,25 @@
 
 package com.esotericsoftware.kryo.benchmarks.io;
 
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.AuxCounters.Type;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
 
 @BenchmarkMode(Mode.SingleShotTime)
 @Measurement(batchSize = 150000000)
@@ -77,33 +90,250 @@ public class VariableEncodingBenchmark {
 		return state.input.readVarLong(true);
 	}
 
+	/** Uses {@link Mode#AverageTime} because JMH does not report {@link EncodedSize} for {@link Mode#SingleShotTime}. */
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Measurement(batchSize = 1)
+	public void writeIntArray (ArrayState state, EncodedSize size) {
+		state.reset();
+		state.encoding.write(state.output, state.ints);
+		size.count(state.output);
+	}
+
+	@Benchmark
+	@Measurement(batchSize = 100000)
+	public int[] readIntArray (ReadIntArray state) {
+		state.reset();
+		return state.encoding.readInts(state.input, state.ints.length);
+	}
+
+	/** Uses {@link Mode#AverageTime} because JMH does not report {@link EncodedSize} for {@link Mode#SingleShotTime}. */
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Measurement(batchSize = 1)
+	public void writeLongArray (ArrayState state, EncodedSize size) {
+		state.reset();
+		state.encoding.write(state.output, state.longs);
+		size.count(state.output);
+	}
+
+	@Benchmark
+	@Measurement(batchSize = 100000)
+	public long[] readLongArray (ReadLongArray state) {
+		state.reset();
+		return state.encoding.readLongs(state.input, state.longs.length);
+	}
+
 	//
 
 	@State(Scope.Thread)
 	static public class ReadInt extends InputOutputState {
-		public ReadInt () {
+		public void setup () {
+			super.setup();
 			new VariableEncodingBenchmark().writeInt(this);
 		}
 	}
 
 	@State(Scope.Thread)
 	static public class ReadVarInt extends InputOutputState {
-		public ReadVarInt () {
-			new VariableEncodingBenchmark().readVarInt(this);
+		public void setup () {
+			super.setup();
+			new VariableEncodingBenchmark().writeVarInt(this);
 		}
 	}
 
 	@State(Scope.Thread)
 	static public class ReadLong extends InputOutputState {
-		public ReadLong () {
+		public void setup () {
+			super.setup();
 			new VariableEncodingBenchmark().writeLong(this);
 		}
 	}
 
 	@State(Scope.Thread)
 	static public class ReadVarLong extends InputOutputState {
-		public ReadVarLong () {
+		public void setup () {
+			super.setup();
 			new VariableEncodingBenchmark().writeVarLong(this);
 		}
 	}
+
+	@State(Scope.Thread)
+	static public class ArrayState extends InputOutputState {
+		@Param() public Distribution distribution;
+		@Param() public ArrayEncoding encoding;
+		int[] ints = new int[1000];
+		long[] longs = new long[1000];
+
+		public void setup () {
+			super.setup();
+			Random random = new Random(42);
+			for (int i = 0; i < ints.length; i++) {
+				ints[i] = distribution.nextInt(random, i);
+				longs[i] = distribution.nextLong(random, i);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class ReadIntArray extends ArrayState {
+		public void setup () {
+			super.setup();
+			new VariableEncodingBenchmark().writeIntArray(this, new EncodedSize());
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class ReadLongArray extends ArrayState {
+		public void setup () {
+			super.setup();
+			new VariableEncodingBenchmark().writeLongArray(this, new EncodedSize());
+		}
+	}
+
+	/** Reports the number of bytes written for the array, so the size of each encoding can be compared for each distribution. */
+	@State(Scope.Thread)
+	@AuxCounters(Type.EVENTS)
+	static public class EncodedSize {
+		/** JMH sums events over the measurement iterations of all forks, so each iteration reports its share of the size. */
+		public double bytes;
+		private double iterations = 1;
+
+		@Setup(Level.Trial)
+		public void setup (BenchmarkParams params) {
+			iterations = params.getMeasurement().getCount() * Math.max(1, params.getForks());
+		}
+
+		void count (Output output) {
+			bytes = output.position() / iterations;
+		}
+	}
+
+	static public enum Distribution {
+		/** Small positive values, such as counts. Variable length encoding is smallest. */
+		small {
+			int nextInt (Random random, int index) {
+				return random.nextInt(100);
+			}
+
+			long nextLong (Random random, int index) {
+				return random.nextInt(100);
+			}
+		},
+		/** Uniformly random values, such as hashes. Fixed length encoding is smallest. */
+		hashes {
+			int nextInt (Random random, int index) {
+				return random.nextInt();
+			}
+
+			long nextLong (Random random, int index) {
+				return random.nextLong();
+			}
+		},
+		/** Large increasing values, such as IDs or timestamps. Delta encoding is smallest. */
+		sorted {
+			int nextInt (Random random, int index) {
+				return 1000000000 + index * 16 + random.nextInt(16);
+			}
+
+			long nextLong (Random random, int index) {
+				return 1500000000000L + index * 1000L + random.nextInt(1000);
+			}
+		},
+		/** Mostly small values with some large values. */
+		mixed {
+			int nextInt (Random random, int index) {
+				return random.nextInt(10) == 0 ? random.nextInt() : random.nextInt(100);
+			}
+
+			long nextLong (Random random, int index) {
+				return random.nextInt(10) == 0 ? random.nextLong() : random.nextInt(100);
+			}
+		};
+
+		abstract int nextInt (Random random, int index);
+
+		abstract long nextLong (Random random, int index);
+	}
+
+	static public enum ArrayEncoding {
+		fixed {
+			void write (Output output, int[] array) {
+				output.writeInts(array, 0, array.length);
+			}
+
+			void write (Output output, long[] array) {
+				output.writeLongs(array, 0, array.length);
+			}
+
+			int[] readInts (Input input, int length) {
+				return input.readInts(length);
+			}
+
+			long[] readLongs (Input input, int length) {
+				return input.readLongs(length);
+			}
+		},
+		variable {
+			void write (Output output, int[] array) {
+				output.writeVarInts(array, 0, array.length, true);
+			}
+
+			void write (Output output, long[] array) {
+				output.writeVarLongs(array, 0, array.length, true);
+			}
+
+			int[] readInts (Input input, int length) {
+				return input.readVarInts(length, true);
+			}
+
+			long[] readLongs (Input input, int length) {
+				return input.readVarLongs(length, true);
+			}
+		},
+		delta {
+			void write (Output output, int[] array) {
+				output.writeDeltaInts(array, 0, array.length);
+			}
+
+			void write (Output output, long[] array) {
+				output.writeDeltaLongs(array, 0, array.length);
+			}
+
+			int[] readInts (Input input, int length) {
+				return input.readDeltaInts(length);
+			}
+
+			long[] readLongs (Input input, int length) {
+				return input.readDeltaLongs(length);
+			}
+		},
+		adaptive {
+			void write (Output output, int[] array) {
+				output.writeAdaptiveInts(array, 0, array.length);
+			}
+
+			void write (Output output, long[] array) {
+				output.writeAdaptiveLongs(array, 0, array.length);
+			}
+
+			int[] readInts (Input input, int length) {
+				return input.readAdaptiveInts(length);
+			}
+
+			long[] readLongs (Input input, int length) {
+				return input.readAdaptiveLongs(length);
+			}
+		};
+
+		abstract void write (Output output, int[] array);
+
+		abstract void write (Output output, long[] array);
+
+		abstract int[] readInts (Input input, int length);
+
+		abstract long[] readLongs (Input input, int length);
+	}
 }
@@ -0,0 +1,84 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.benchmarks.util;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.util.Pool;
+import com.esotericsoftware.kryo.util.StripedPool;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Compares the contention of {@link Pool} and {@link StripedPool} when many threads obtain and free Kryo instances. Run with
+ * each thread count to compare, eg: <code>for t in 1 2 4 8 16 32 64; do java -jar benchmarks.jar PoolBenchmark -t $t; done</code> */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoolBenchmark {
+	@Benchmark
+	public void obtainFree (PoolState state, Blackhole blackhole) {
+		Pool<Kryo> pool = state.pool;
+		Kryo kryo = pool.obtain();
+		blackhole.consume(kryo.getNextRegistrationId());
+		pool.free(kryo);
+	}
+
+	@State(Scope.Benchmark)
+	static public class PoolState {
+		@Param() public PoolType poolType;
+		Pool<Kryo> pool;
+
+		@Setup
+		public void setup () {
+			pool = poolType.create();
+		}
+	}
+
+	static public enum PoolType {
+		queue {
+			Pool<Kryo> create () {
+				return new Pool<Kryo>(true, false, 1024) {
+					protected Kryo create () {
+						return new Kryo();
+					}
+				};
+			}
+		},
+		striped {
+			Pool<Kryo> create () {
+				return new StripedPool<Kryo>(1024) {
+					protected Kryo create () {
+						return new Kryo();
+					}
+				};
+			}
+		};
+
+		abstract Pool<Kryo> create ();
+	}
+}
@@ -85,6 +85,7 @@ import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
 import com.esotericsoftware.kryo.util.Generics;
 import com.esotericsoftware.kryo.util.Generics.GenericType;
 import com.esotericsoftware.kryo.util.Generics.GenericsHierarchy;
+import com.esotericsoftware.kryo.util.GraphContextMap;
 import com.esotericsoftware.kryo.util.IdentityMap;
 import com.esotericsoftware.kryo.util.IntArray;
 import com.esotericsoftware.kryo.util.MapReferenceResolver;
@@ -135,7 +136,7 @@ public class Kryo implements Poolable {
 	private final int lowPriorityDefaultSerializerCount;
 
 	private final ClassResolver classResolver;
-	private int nextRegisterID;
+	private int nextRegisterID, registrationVersion;
 	private ClassLoader classLoader = getClass().getClassLoader();
 	private InstantiatorStrategy strategy = new DefaultInstantiatorStrategy();
 	private boolean registrationRequired = true;
@@ -148,7 +149,7 @@ public class Kryo implements Poolable {
 
 	private ReferenceResolver referenceResolver;
 	private final IntArray readReferenceIds = new IntArray(0);
-	private boolean references, copyReferences = true;
+	private boolean references, copyReferences = true, elideReferences;
 	private Object readObject;
 
 	private int copyDepth;
@@ -430,6 +431,7 @@ public class Kryo implements Poolable {
 	 * using this method. The order must be the same at deserialization as it was for serialization. */
 	public Registration register (Class type, Serializer serializer) {
 		Registration registration = classResolver.getRegistration(type);
+		registrationVersion++;
 		if (registration != null) {
 			registration.setSerializer(serializer);
 			return registration;
@@ -459,6 +461,7 @@ public class Kryo implements Poolable {
 		int id = registration.getId();
 		if (id < 0) throw new IllegalArgumentException("id must be > 0: " + id);
 
+		registrationVersion++;
 		Registration existing = classResolver.unregister(id);
 		if (DEBUG && existing != null && existing.getType() != registration.getType())
 			debug("kryo", "Registration overwritten: " + existing + " -> " + registration);
@@ -466,6 +469,13 @@ public class Kryo implements Poolable {
 		return classResolver.register(registration);
 	}
 
+	/** Returns a number which changes each time a class is registered or its serializer is replaced using this Kryo's register
+	 * methods, so results computed from the registrations can be discarded when they change. Changes made directly to the
+	 * {@link ClassResolver} or a {@link Registration} are not counted. */
+	public int getRegistrationVersion () {
+		return registrationVersion;
+	}
+
 	/** Returns the lowest, next available integer ID. */
 	public int getNextRegistrationId () {
 		while (nextRegisterID != -2) {
@@ -1068,7 +1078,10 @@ public class Kryo implements Poolable {
 			readObject = null;
 		}
 		this.references = references;
-		if (references && referenceResolver == null) referenceResolver = new MapReferenceResolver();
+		if (references && referenceResolver == null) {
+			referenceResolver = new MapReferenceResolver();
+			referenceResolver.setKryo(this);
+		}
 		if (TRACE) trace("kryo", "References: " + references);
 		return !references;
 	}
@@ -1086,6 +1099,7 @@ public class Kryo implements Poolable {
 		if (referenceResolver == null) throw new IllegalArgumentException("referenceResolver cannot be null.");
 		this.references = true;
 		this.referenceResolver = referenceResolver;
+		referenceResolver.setKryo(this);
 		if (TRACE) trace("kryo", "Reference resolver: " + referenceResolver.getClass().getName());
 	}
 
@@ -1093,6 +1107,19 @@ public class Kryo implements Poolable {
 		return references;
 	}
 
+	/** If true, the reference resolvers provided by Kryo check whether references are elided for each type, see
+	 * {@link Util#isReferenceElided(Kryo, Class)}. If false, that check is skipped, so types which don't elide references don't
+	 * pay for it. This is set automatically when a {@link FieldSerializer} is created or updated with
+	 * {@link FieldSerializer.FieldSerializerConfig#setElideReferences(boolean)} enabled. Default is false. */
+	public void setElideReferences (boolean elideReferences) {
+		this.elideReferences = elideReferences;
+		if (TRACE) trace("kryo", "Elide references: " + elideReferences);
+	}
+
+	public boolean getElideReferences () {
+		return elideReferences;
+	}
+
 	/** Sets the strategy used by {@link #newInstantiator(Class)} for creating objects. See {@link StdInstantiatorStrategy} to
 	 * create objects via without calling any constructor. See {@link SerializingInstantiatorStrategy} to mimic Java's built-in
 	 * serialization.
@@ -1131,9 +1158,9 @@ public class Kryo implements Poolable {
 	}
 
 	/** Name/value pairs that are available to all serializers and are cleared after each object graph is serialized or
-	 * deserialized. */
+	 * deserialized. Clearing takes time proportional to the number of keys put for the graph, see {@link GraphContextMap}. */
 	public ObjectMap getGraphContext () {
-		if (graphContext == null) graphContext = new ObjectMap();
+		if (graphContext == null) graphContext = new GraphContextMap();
 		return graphContext;
 	}
 
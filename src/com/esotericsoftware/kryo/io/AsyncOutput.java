@@ -0,0 +1,237 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/** An {@link Output} that writes to an OutputStream on another thread, so serialization can continue while previously written
+ * bytes are being written to a slow stream.
+ * <p>
+ * When the buffer is full it is handed to a writer running on an {@link Executor} and writing continues in another buffer. The
+ * writer writes the buffers to the OutputStream in order. Up to the specified number of buffers are allocated. When all of them
+ * are waiting to be written, writing blocks until the writer returns one.
+ * <p>
+ * {@link #flush()} waits until all the bytes have been written, then flushes the OutputStream. If the OutputStream throws an
+ * exception, the writer discards the remaining buffers and the exception is thrown when the next buffer is handed off or by
+ * {@link #flush()} or {@link #close()}, until {@link #reset()} or {@link #setOutputStream(OutputStream)} is called.
+ * <p>
+ * An AsyncOutput is not thread safe, only the writer uses another thread.
+ * @author Nathan Sweet */
+public class AsyncOutput extends Output {
+	private final int bufferCount;
+	private final ArrayBlockingQueue<byte[]> freeBuffers;
+	private final ArrayDeque<PendingWrite> pending = new ArrayDeque();
+	private final Runnable writer = new Runnable() {
+		public void run () {
+			writePending();
+		}
+	};
+	private Executor executor;
+	private final boolean ownsExecutor;
+	private int allocated = 1;
+	private boolean writing;
+	private volatile Throwable error;
+
+	/** Creates a new Output with two 4096 byte buffers, written by a thread owned by this output. */
+	public AsyncOutput (OutputStream outputStream) {
+		this(outputStream, 4096, 2, null);
+	}
+
+	/** Creates a new Output for writing to an OutputStream.
+	 * @param bufferSize The size of each buffer.
+	 * @param bufferCount The maximum number of buffers, at least 2.
+	 * @param executor Runs the writer. The buffers are written in order even if the executor uses multiple threads. If null, a
+	 *           daemon thread owned by this output is used and is stopped by {@link #close()}. */
+	public AsyncOutput (OutputStream outputStream, int bufferSize, int bufferCount, Executor executor) {
+		super(outputStream, bufferSize);
+		if (bufferCount < 2) throw new IllegalArgumentException("bufferCount must be >= 2: " + bufferCount);
+		this.bufferCount = bufferCount;
+		freeBuffers = new ArrayBlockingQueue(bufferCount);
+		this.executor = executor;
+		ownsExecutor = executor == null;
+	}
+
+	public int getBufferCount () {
+		return bufferCount;
+	}
+
+	/** Sets a new OutputStream, after waiting for the bytes already written to be written to the previous OutputStream. The
+	 * position and total are reset, discarding any buffered bytes.
+	 * @param outputStream May be null. */
+	public void setOutputStream (OutputStream outputStream) {
+		waitForWriter();
+		super.setOutputStream(outputStream);
+	}
+
+	public void setBuffer (byte[] buffer, int maxBufferSize) {
+		waitForWriter();
+		super.setBuffer(buffer, maxBufferSize);
+	}
+
+	/** Sets the position and total to 0, discarding any buffered bytes. Bytes already handed to the writer are still written. Any
+	 * exception from the OutputStream which has not been thrown is discarded. */
+	public void reset () {
+		waitForWriter();
+		error = null;
+		super.reset();
+	}
+
+	protected boolean require (int required) throws KryoException {
+		if (capacity - position >= required) return false;
+		if (outputStream == null || position == 0) return super.require(required);
+		handOff();
+		if (capacity - position >= required) return true;
+		return super.require(required);
+	}
+
+	/** Hands the buffer to the writer and continues with a free buffer, waiting for one if all buffers are being written. */
+	private void handOff () throws KryoException {
+		checkError();
+		synchronized (pending) {
+			pending.add(new PendingWrite(buffer, position));
+			if (!writing) {
+				writing = true;
+				try {
+					executor().execute(writer);
+				} catch (RuntimeException ex) {
+					writing = false;
+					pending.clear();
+					throw new KryoException("Unable to start the writer.", ex);
+				}
+			}
+		}
+		total += position;
+		position = 0;
+		byte[] next = freeBuffers.poll();
+		if (next == null) {
+			if (allocated < bufferCount) {
+				allocated++;
+				next = new byte[capacity];
+			} else {
+				try {
+					next = freeBuffers.take();
+				} catch (InterruptedException ex) {
+					throw new KryoException(ex);
+				}
+			}
+		}
+		buffer = next;
+		capacity = next.length;
+	}
+
+	/** Runs on the executor, writing pending buffers in order until there are none. */
+	private void writePending () {
+		while (true) {
+			PendingWrite write;
+			synchronized (pending) {
+				write = pending.poll();
+				if (write == null) {
+					writing = false;
+					pending.notifyAll();
+					return;
+				}
+			}
+			if (error == null) {
+				try {
+					outputStream.write(write.buffer, 0, write.count);
+				} catch (Throwable ex) {
+					error = ex;
+				}
+			}
+			freeBuffers.offer(write.buffer);
+		}
+	}
+
+	private Executor executor () {
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread (Runnable runnable) {
+					Thread thread = new Thread(runnable, "AsyncOutput");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/** Waits until the writer has written all pending buffers. */
+	private void waitForWriter () throws KryoException {
+		synchronized (pending) {
+			while (writing) {
+				try {
+					pending.wait();
+				} catch (InterruptedException ex) {
+					throw new KryoException(ex);
+				}
+			}
+		}
+	}
+
+	private void checkError () throws KryoException {
+		Throwable error = this.error;
+		if (error != null) throw new KryoException("Error writing to the OutputStream.", error);
+	}
+
+	/** Hands any buffered bytes to the writer, waits until all bytes have been written, then flushes the OutputStream. */
+	public void flush () throws KryoException {
+		if (outputStream == null) return;
+		if (position > 0) handOff();
+		waitForWriter();
+		checkError();
+		try {
+			outputStream.flush();
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+
+	/** Flushes any buffered bytes and closes the underlying OutputStream, if any. If the executor is owned by this output, its
+	 * thread is stopped. A new thread is started if the output is used again. */
+	public void close () throws KryoException {
+		try {
+			super.close();
+		} finally {
+			if (ownsExecutor && executor != null) {
+				((ExecutorService)executor).shutdown();
+				executor = null;
+			}
+		}
+	}
+
+	static private final class PendingWrite {
+		final byte[] buffer;
+		final int count;
+
+		PendingWrite (byte[] buffer, int count) {
+			this.buffer = buffer;
+			this.count = count;
+		}
+	}
+}
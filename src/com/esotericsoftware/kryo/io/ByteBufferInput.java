@@ -333,6 +333,32 @@ public class ByteBufferInput extends Input {
 		}
 	}
 
+	/** Reads the specified number of bytes without copying them. The returned buffer is a read-only view of the bytes in this
+	 * input's {@link #getByteBuffer() ByteBuffer}, with position 0, limit and capacity of length, and the same byte order.
+	 * <p>
+	 * The view is only valid until the ByteBuffer is changed. With an {@link #setInputStream(InputStream) InputStream}, a later
+	 * read may refill the buffer and overwrite the bytes. {@link #setBuffer(ByteBuffer)} and {@link #reset()} may also cause the
+	 * bytes to be overwritten, or to be freed (eg {@link com.esotericsoftware.kryo.unsafe.UnsafeByteBufferInput} disposes the
+	 * previous buffer), after which accessing the view can crash the JVM. The bytes must be copied if they are needed longer.
+	 * <p>
+	 * {@link MappedFileInput} overrides this so a window is not unmapped while views of it may be in use. Otherwise mapping the
+	 * next window, which a later read may do, would free the bytes.
+	 * @throws KryoException if the buffer capacity is less than length, or there are not enough bytes. */
+	public ByteBuffer readByteBufferSlice (int length) throws KryoException {
+		if (length < 0) throw new IllegalArgumentException("length cannot be < 0: " + length);
+		require(length);
+		ByteBuffer byteBuffer = this.byteBuffer;
+		int oldLimit = byteBuffer.limit();
+		byteBuffer.position(position);
+		byteBuffer.limit(position + length);
+		ByteBuffer slice = byteBuffer.slice().asReadOnlyBuffer();
+		slice.order(byteBuffer.order());
+		byteBuffer.limit(oldLimit);
+		position += length;
+		byteBuffer.position(position);
+		return slice;
+	}
+
 	// int:
 
 	public int readInt () throws KryoException {
@@ -377,7 +403,6 @@ public class ByteBufferInput extends Input {
 		int result = b & 0x7F;
 		if ((b & 0x80) != 0) {
 			if (position == limit) require(1);
-			ByteBuffer byteBuffer = this.byteBuffer;
 			position++;
 			b = byteBuffer.get();
 			result |= (b & 0x7F) << 7;
@@ -461,7 +486,6 @@ public class ByteBufferInput extends Input {
 		if ((b & 0x40) != 0) {
 			if (position == limit) require(1);
 			position++;
-			ByteBuffer byteBuffer = this.byteBuffer;
 			b = byteBuffer.get();
 			result |= (b & 0x7F) << 6;
 			if ((b & 0x80) != 0) {
@@ -550,7 +574,6 @@ public class ByteBufferInput extends Input {
 		long result = b & 0x7F;
 		if ((b & 0x80) != 0) {
 			if (position == limit) require(1);
-			ByteBuffer byteBuffer = this.byteBuffer;
 			position++;
 			b = byteBuffer.get();
 			result |= (b & 0x7F) << 7;
@@ -687,7 +710,7 @@ public class ByteBufferInput extends Input {
 	// String:
 
 	public String readString () {
-		if (!readVarIntFlag()) return readAsciiString(); // ASCII.
+		if (!readVarIntFlag()) return stringCache == null ? readAsciiString() : readAsciiStringCached(); // ASCII.
 		// Null, empty, or UTF8.
 		int charCount = readVarIntFlag(true);
 		switch (charCount) {
@@ -697,6 +720,22 @@ public class ByteBufferInput extends Input {
 			return "";
 		}
 		charCount--;
+		StringCache stringCache = this.stringCache;
+		if (stringCache != null) {
+			int start = position, end = utf8End(charCount, stringCache.getMaxLength());
+			if (end != -1) {
+				String value = stringCache.get(byteBuffer, start, end - start);
+				if (value != null) {
+					byteBuffer.position(end);
+					position = end;
+					return value;
+				}
+				readUtf8Chars(charCount);
+				value = new String(chars, 0, charCount);
+				stringCache.put(byteBuffer, start, end - start, value);
+				return value;
+			}
+		}
 		readUtf8Chars(charCount);
 		return new String(chars, 0, charCount);
 	}
@@ -722,9 +761,9 @@ public class ByteBufferInput extends Input {
 		if (chars.length < charCount) chars = new char[charCount];
 		char[] chars = this.chars;
 		// Try to read 7 bit ASCII chars.
-		ByteBuffer byteBuffer = this.byteBuffer;
 		int charIndex = 0;
 		int count = Math.min(require(1), charCount);
+		ByteBuffer byteBuffer = this.byteBuffer;
 		while (charIndex < count) {
 			int b = byteBuffer.get();
 			if (b < 0) break;
@@ -739,7 +778,6 @@ public class ByteBufferInput extends Input {
 	}
 
 	private void readUtf8Chars_slow (int charCount, int charIndex) {
-		ByteBuffer byteBuffer = this.byteBuffer;
 		char[] chars = this.chars;
 		while (charIndex < charCount) {
 			if (position == limit) require(1);
@@ -774,6 +812,46 @@ public class ByteBufferInput extends Input {
 		}
 	}
 
+	/** Returns the end of the UTF8 bytes for the chars, or -1 if they are not all in the buffer or are more than maxLength bytes. */
+	private int utf8End (int charCount, int maxLength) {
+		ByteBuffer byteBuffer = this.byteBuffer;
+		int p = position, n = Math.min(limit, position + maxLength);
+		for (int i = 0; i < charCount; i++) {
+			if (p >= n) return -1;
+			switch ((byteBuffer.get(p) & 0xFF) >> 4) {
+			case 12:
+			case 13:
+				p += 2;
+				break;
+			case 14:
+				p += 3;
+				break;
+			default:
+				p++;
+			}
+		}
+		return p <= n ? p : -1;
+	}
+
+	private String readAsciiStringCached () {
+		ByteBuffer byteBuffer = this.byteBuffer;
+		int start = position, p = start, n = Math.min(limit, start + stringCache.getMaxLength());
+		while (p < n) {
+			if (byteBuffer.get(p++) < 0) { // The last char has the high bit set.
+				String value = stringCache.get(byteBuffer, start, p - start);
+				if (value != null) {
+					byteBuffer.position(p);
+					position = p;
+					return value;
+				}
+				value = readAsciiString();
+				stringCache.put(byteBuffer, start, p - start, value);
+				return value;
+			}
+		}
+		return readAsciiString();
+	}
+
 	private String readAsciiString () {
 		char[] chars = this.chars;
 		ByteBuffer byteBuffer = this.byteBuffer;
@@ -793,7 +871,6 @@ public class ByteBufferInput extends Input {
 
 	private String readAscii_slow (int charCount) {
 		char[] chars = this.chars;
-		ByteBuffer byteBuffer = this.byteBuffer;
 		while (true) {
 			if (position == limit) require(1);
 			position++;
@@ -854,6 +931,55 @@ public class ByteBufferInput extends Input {
 		return array;
 	}
 
+	public int[] readInts (int length, boolean optimizePositive) throws KryoException {
+		if (varEncoding) return readVarInts(length, optimizePositive);
+		return readInts(length);
+	}
+
+	public int[] readVarInts (int length, boolean optimizePositive) throws KryoException {
+		int[] array = new int[length];
+		for (int i = 0; i < length;) {
+			ByteBuffer byteBuffer = this.byteBuffer;
+			for (int end = limit - 5; i < length && byteBuffer.position() <= end; i++) {
+				int b = byteBuffer.get();
+				int result = b & 0x7F;
+				for (int shift = 7; b < 0 && shift < 35; shift += 7) {
+					b = byteBuffer.get();
+					result |= (b & 0x7F) << shift;
+				}
+				array[i] = optimizePositive ? result : ((result >>> 1) ^ -(result & 1));
+			}
+			position = byteBuffer.position();
+			if (i < length) array[i++] = readVarInt(optimizePositive);
+		}
+		return array;
+	}
+
+	public long[] readLongs (int length, boolean optimizePositive) throws KryoException {
+		if (varEncoding) return readVarLongs(length, optimizePositive);
+		return readLongs(length);
+	}
+
+	public long[] readVarLongs (int length, boolean optimizePositive) throws KryoException {
+		long[] array = new long[length];
+		for (int i = 0; i < length;) {
+			ByteBuffer byteBuffer = this.byteBuffer;
+			for (int end = limit - 9; i < length && byteBuffer.position() <= end; i++) {
+				int b = byteBuffer.get();
+				long result = b & 0x7F;
+				for (int shift = 7; b < 0 && shift < 56; shift += 7) {
+					b = byteBuffer.get();
+					result |= (long)(b & 0x7F) << shift;
+				}
+				if (b < 0) result |= (long)byteBuffer.get() << 56;
+				array[i] = optimizePositive ? result : ((result >>> 1) ^ -(result & 1));
+			}
+			position = byteBuffer.position();
+			if (i < length) array[i++] = readVarLong(optimizePositive);
+		}
+		return array;
+	}
+
 	public float[] readFloats (int length) throws KryoException {
 		float[] array = new float[length];
 		if (optional(length << 2) == length << 2) {
@@ -935,4 +1061,19 @@ public class ByteBufferInput extends Input {
 		}
 		return array;
 	}
+
+	public boolean[] readPackedBooleans (int length) throws KryoException {
+		boolean[] array = new boolean[length];
+		int byteCount = Output.packedBytes(length);
+		if (optional(byteCount) == byteCount) {
+			ByteBuffer byteBuffer = this.byteBuffer;
+			for (int i = 0; i < length; i += 8)
+				unpack(byteBuffer.get(), array, i, Math.min(length - i, 8));
+			position = byteBuffer.position();
+		} else {
+			for (int i = 0; i < length; i += 8)
+				unpack(readByte(), array, i, Math.min(length - i, 8));
+		}
+		return array;
+	}
 }
@@ -20,6 +20,7 @@
 package com.esotericsoftware.kryo.io;
 
 import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.unsafe.UnsafeUtil;
 import com.esotericsoftware.kryo.util.Util;
 
 import java.io.IOException;
@@ -37,6 +38,9 @@ public class ByteBufferOutput extends Output {
 	static private final ByteOrder nativeOrder = ByteOrder.nativeOrder();
 
 	protected ByteBuffer byteBuffer;
+	protected DirectBufferArena arena;
+	private int initialCapacity;
+	private boolean ownsBuffer, replaceOnReset;
 
 	/** Creates an uninitialized Output, {@link #setBuffer(ByteBuffer)} must be called before the Output is used. */
 	public ByteBufferOutput () {
@@ -60,6 +64,23 @@ public class ByteBufferOutput extends Output {
 		byteBuffer = ByteBuffer.allocateDirect(bufferSize);
 	}
 
+	/** Creates a new Output for writing to a direct ByteBuffer obtained from an arena. When the buffer grows, the previous buffer
+	 * is returned to the arena. {@link #release()} and {@link #close()} return the buffer, and {@link #reset()} replaces a buffer
+	 * which has grown with one of the initial size.
+	 * @param bufferSize The initial size of the buffer.
+	 * @param maxBufferSize If {@link #flush()} does not empty the buffer, the buffer is grown as needed until it exceeds
+	 *           maxBufferSize and an exception is thrown. Can be -1 for no maximum. */
+	public ByteBufferOutput (int bufferSize, int maxBufferSize, DirectBufferArena arena) {
+		if (arena == null) throw new IllegalArgumentException("arena cannot be null.");
+		if (bufferSize > maxBufferSize && maxBufferSize != -1) throw new IllegalArgumentException(
+			"bufferSize: " + bufferSize + " cannot be greater than maxBufferSize: " + maxBufferSize);
+		if (maxBufferSize < -1) throw new IllegalArgumentException("maxBufferSize cannot be < -1: " + maxBufferSize);
+		this.maxCapacity = maxBufferSize == -1 ? Util.maxArraySize : maxBufferSize;
+		this.arena = arena;
+		initialCapacity = bufferSize;
+		allocateBuffer(bufferSize, ByteOrder.BIG_ENDIAN);
+	}
+
 	/** Creates a new Output for writing to a ByteBuffer. */
 	public ByteBufferOutput (ByteBuffer buffer) {
 		setBuffer(buffer);
@@ -135,6 +156,8 @@ public class ByteBufferOutput extends Output {
 	public void setBuffer (ByteBuffer buffer, int maxBufferSize) {
 		if (buffer == null) throw new IllegalArgumentException("buffer cannot be null.");
 		if (maxBufferSize < -1) throw new IllegalArgumentException("maxBufferSize cannot be < -1: " + maxBufferSize);
+		freeBuffer();
+		replaceOnReset = false;
 		this.byteBuffer = buffer;
 		this.maxCapacity = maxBufferSize == -1 ? Util.maxArraySize : maxBufferSize;
 		capacity = buffer.capacity();
@@ -160,8 +183,48 @@ public class ByteBufferOutput extends Output {
 		this.byteBuffer.position(position);
 	}
 
+	/** Returns the arena the buffer is obtained from, or null. */
+	public DirectBufferArena getArena () {
+		return arena;
+	}
+
+	private void allocateBuffer (int size, ByteOrder order) {
+		byteBuffer = arena.allocate(size);
+		byteBuffer.order(order);
+		ownsBuffer = true;
+		capacity = Math.min(byteBuffer.capacity(), maxCapacity);
+	}
+
+	/** If the buffer was obtained from the arena, it is returned. The buffer must not be used afterward. */
+	private void freeBuffer () {
+		if (ownsBuffer) {
+			ownsBuffer = false;
+			arena.free(byteBuffer);
+		}
+	}
+
+	/** If the buffer was obtained from an arena, it is returned to the arena and {@link #reset()} must be called before the Output
+	 * is used again. Buffered bytes are discarded, {@link #flush()} should be called first if needed. */
+	public void release () {
+		if (!ownsBuffer) return;
+		ByteOrder order = byteBuffer.order();
+		freeBuffer();
+		byteBuffer = ByteBuffer.allocate(0).order(order);
+		capacity = 0;
+		position = 0;
+		replaceOnReset = true;
+	}
+
+	/** Sets the position and total to 0. If the buffer was obtained from an arena and has grown or was released, it is replaced
+	 * with a buffer of the initial size. */
 	public void reset () {
 		super.reset();
+		if (replaceOnReset) {
+			replaceOnReset = false;
+			ByteOrder order = byteBuffer.order();
+			freeBuffer();
+			allocateBuffer(initialCapacity, order);
+		}
 		byteBuffer.position(0);
 	}
 
@@ -174,16 +237,23 @@ public class ByteBufferOutput extends Output {
 				throw new KryoException("Buffer overflow. Max capacity: " + maxCapacity + ", required: " + required);
 			throw new KryoException("Buffer overflow. Available: " + (maxCapacity - position) + ", required: " + required);
 		}
-		if (capacity == 0) capacity = 16;
-		do {
-			capacity = Math.min(capacity * 2, maxCapacity);
-		} while (capacity - position < required);
-		ByteBuffer newBuffer = !byteBuffer.isDirect() ? ByteBuffer.allocate(capacity) : ByteBuffer.allocateDirect(capacity);
+		capacity = Math.max(Math.min(growthPolicy.grow(capacity, position + required), maxCapacity), position + required);
+		ByteBuffer newBuffer;
+		if (arena != null)
+			newBuffer = arena.allocate(capacity);
+		else
+			newBuffer = !byteBuffer.isDirect() ? ByteBuffer.allocate(capacity) : ByteBuffer.allocateDirect(capacity);
 		byteBuffer.position(0);
 		byteBuffer.limit(position);
 		newBuffer.put(byteBuffer);
 		newBuffer.order(byteBuffer.order());
+		freeBuffer();
 		byteBuffer = newBuffer;
+		if (arena != null) {
+			ownsBuffer = true;
+			replaceOnReset = true;
+			capacity = Math.min(newBuffer.capacity(), maxCapacity);
+		}
 		return true;
 	}
 
@@ -204,6 +274,8 @@ public class ByteBufferOutput extends Output {
 		position = 0;
 	}
 
+	/** Flushes any buffered bytes and closes the underlying OutputStream, if any. If the buffer was obtained from an arena, it is
+	 * {@link #release() released}. */
 	public void close () throws KryoException {
 		flush();
 		if (outputStream != null) {
@@ -212,6 +284,7 @@ public class ByteBufferOutput extends Output {
 			} catch (IOException ignored) {
 			}
 		}
+		release();
 	}
 
 	public void write (int value) throws KryoException {
@@ -564,6 +637,13 @@ public class ByteBufferOutput extends Output {
 			return;
 		}
 		writeVarIntFlag(true, charCount + 1, true);
+		if (compactStrings) {
+			byte[] latin1 = UnsafeUtil.getLatin1Bytes(value);
+			if (latin1 != null) {
+				writeLatin1(latin1, charCount);
+				return;
+			}
+		}
 		int charIndex = 0;
 		if (capacity - position >= charCount) {
 			// Try to write 7 bit chars.
@@ -604,6 +684,27 @@ public class ByteBufferOutput extends Output {
 		byteBuffer.put(position - 1, (byte)(byteBuffer.get(position - 1) | 0x80)); // Bit 8 means end of ASCII.
 	}
 
+	private void writeLatin1 (byte[] latin1, int charCount) {
+		int charIndex = 0;
+		while (charIndex < charCount) {
+			int required = latin1[charIndex] < 0 ? 2 : 1;
+			if (capacity - position < required) require(required);
+			ByteBuffer byteBuffer = this.byteBuffer;
+			int start = charIndex;
+			for (int n = Math.min(charCount, charIndex + capacity - position); charIndex < n && latin1[charIndex] >= 0;)
+				charIndex++;
+			byteBuffer.put(latin1, start, charIndex - start);
+			position += charIndex - start;
+			for (; charIndex < charCount && capacity - position >= 2; charIndex++) {
+				int c = latin1[charIndex] & 0xFF;
+				if (c <= 127) break;
+				byteBuffer.put((byte)(0xC0 | c >> 6));
+				byteBuffer.put((byte)(0x80 | c & 0x3F));
+				position += 2;
+			}
+		}
+	}
+
 	private void writeUtf8_slow (String value, int charCount, int charIndex) {
 		for (; charIndex < charCount; charIndex++) {
 			if (position == capacity) require(Math.min(capacity, charCount - charIndex));
@@ -683,6 +784,62 @@ public class ByteBufferOutput extends Output {
 		}
 	}
 
+	public void writeInts (int[] array, int offset, int count, boolean optimizePositive) throws KryoException {
+		if (varEncoding)
+			writeVarInts(array, offset, count, optimizePositive);
+		else
+			writeInts(array, offset, count);
+	}
+
+	public void writeVarInts (int[] array, int offset, int count, boolean optimizePositive) throws KryoException {
+		for (int n = offset + count; offset < n;) {
+			int batch = Math.min(n - offset, (capacity - position) / 5);
+			if (batch == 0) {
+				writeVarInt(array[offset++], optimizePositive);
+				continue;
+			}
+			ByteBuffer byteBuffer = this.byteBuffer;
+			for (int end = offset + batch; offset < end; offset++) {
+				int value = array[offset];
+				if (!optimizePositive) value = (value << 1) ^ (value >> 31);
+				while (value >>> 7 != 0) {
+					byteBuffer.put((byte)((value & 0x7F) | 0x80));
+					value >>>= 7;
+				}
+				byteBuffer.put((byte)value);
+			}
+			position = byteBuffer.position();
+		}
+	}
+
+	public void writeLongs (long[] array, int offset, int count, boolean optimizePositive) throws KryoException {
+		if (varEncoding)
+			writeVarLongs(array, offset, count, optimizePositive);
+		else
+			writeLongs(array, offset, count);
+	}
+
+	public void writeVarLongs (long[] array, int offset, int count, boolean optimizePositive) throws KryoException {
+		for (int n = offset + count; offset < n;) {
+			int batch = Math.min(n - offset, (capacity - position) / 9);
+			if (batch == 0) {
+				writeVarLong(array[offset++], optimizePositive);
+				continue;
+			}
+			ByteBuffer byteBuffer = this.byteBuffer;
+			for (int end = offset + batch; offset < end; offset++) {
+				long value = array[offset];
+				if (!optimizePositive) value = (value << 1) ^ (value >> 63);
+				for (int i = 0; i < 8 && value >>> 7 != 0; i++) {
+					byteBuffer.put((byte)((value & 0x7F) | 0x80));
+					value >>>= 7;
+				}
+				byteBuffer.put((byte)value);
+			}
+			position = byteBuffer.position();
+		}
+	}
+
 	public void writeFloats (float[] array, int offset, int count) throws KryoException {
 		if (capacity >= count << 2) {
 			require(count << 2);
@@ -764,4 +921,17 @@ public class ByteBufferOutput extends Output {
 				writeBoolean(array[offset]);
 		}
 	}
+
+	public void writePackedBooleans (boolean[] array, int offset, int count) throws KryoException {
+		int byteCount = packedBytes(count);
+		if (capacity >= byteCount) {
+			require(byteCount);
+			for (int n = offset + count; offset < n; offset += 8)
+				byteBuffer.put((byte)pack(array, offset, Math.min(n - offset, 8)));
+			position = byteBuffer.position();
+		} else {
+			for (int n = offset + count; offset < n; offset += 8)
+				writeByte(pack(array, offset, Math.min(n - offset, 8)));
+		}
+	}
 }
@@ -0,0 +1,247 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.util.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/** An {@link Input} that reads from a {@link ReadableByteChannel}, which may be non-blocking.
+ * <p>
+ * With a non-blocking channel, {@link #readFrame()} can be used to decode length prefixed frames without blocking. A frame is a
+ * {@link Output#writeVarInt(int, boolean) variable length int} (optimizePositive true) byte count followed by that many bytes.
+ * When readFrame returns false the bytes received so far remain buffered and the frame length is parsed only once, so it can be
+ * called again each time the channel is readable. When it returns true, the {@link #limit()} is the end of the frame and the frame
+ * can be read normally, eg with {@link com.esotericsoftware.kryo.Kryo#readClassAndObject(Input)}, then {@link #endFrame()} must be
+ * called. A typical selector loop:
+ *
+ * <pre>
+ * while (input.readFrame()) {
+ * 	Object message = kryo.readClassAndObject(input);
+ * 	input.endFrame();
+ * }
+ * </pre>
+ *
+ * Outside of a frame, the Input reads from the channel as needed. If a non-blocking channel has no bytes available,
+ * {@link #fill(byte[], int, int)} behaves as if the end of the data was reached.
+ * @author Nathan Sweet */
+public class ChannelInput extends Input {
+	protected ReadableByteChannel channel;
+	private ByteBuffer channelBuffer;
+	private int maxCapacity;
+	private int frameLength = -1, dataLimit;
+	private boolean inFrame, endOfStream;
+
+	/** Creates an uninitialized Input, {@link #setChannel(ReadableByteChannel)} must be called before the Input is used. */
+	public ChannelInput () {
+		this(4096, -1);
+	}
+
+	/** Creates a new Input for reading from a channel with a buffer size of 4096 and no maximum buffer size. */
+	public ChannelInput (ReadableByteChannel channel) {
+		this(4096, -1);
+		setChannel(channel);
+	}
+
+	/** Creates a new Input for reading from a channel.
+	 * @param bufferSize The initial size of the buffer.
+	 * @param maxBufferSize The buffer is doubled as needed to hold a frame until it exceeds maxBufferSize and an exception is
+	 *           thrown. Can be -1 for no maximum. */
+	public ChannelInput (ReadableByteChannel channel, int bufferSize, int maxBufferSize) {
+		this(bufferSize, maxBufferSize);
+		setChannel(channel);
+	}
+
+	private ChannelInput (int bufferSize, int maxBufferSize) {
+		super(bufferSize);
+		if (maxBufferSize < -1) throw new IllegalArgumentException("maxBufferSize cannot be < -1: " + maxBufferSize);
+		if (bufferSize > maxBufferSize && maxBufferSize != -1) throw new IllegalArgumentException(
+			"bufferSize: " + bufferSize + " cannot be greater than maxBufferSize: " + maxBufferSize);
+		maxCapacity = maxBufferSize == -1 ? Util.maxArraySize : maxBufferSize;
+	}
+
+	public ReadableByteChannel getChannel () {
+		return channel;
+	}
+
+	/** Sets a new channel to read from. The position, limit, and total are reset, discarding any buffered bytes.
+	 * @param channel May be null. */
+	public void setChannel (ReadableByteChannel channel) {
+		this.channel = channel;
+		inFrame = false;
+		limit = 0;
+		reset();
+	}
+
+	public void setBuffer (byte[] bytes, int offset, int count) {
+		resetFrame(); // Before the new limit is set, since it restores the limit of the old buffer.
+		super.setBuffer(bytes, offset, count);
+		channelBuffer = null;
+		channel = null;
+	}
+
+	public void setInputStream (InputStream inputStream) {
+		throw new UnsupportedOperationException("This input reads from a channel, see #setChannel(ReadableByteChannel).");
+	}
+
+	public void reset () {
+		super.reset();
+		resetFrame();
+	}
+
+	private void resetFrame () {
+		if (inFrame) limit = dataLimit;
+		frameLength = -1;
+		inFrame = false;
+		endOfStream = false;
+	}
+
+	/** Returns true if the channel has reached the end of stream. */
+	public boolean isEndOfStream () {
+		return endOfStream;
+	}
+
+	/** Returns true if {@link #readFrame()} returned true and {@link #endFrame()} has not been called. */
+	public boolean isInFrame () {
+		return inFrame;
+	}
+
+	/** Reads from the channel into the buffer. Never returns 0 for a non-blocking channel with no bytes available, returns -1
+	 * instead. Within a frame, always returns -1 so the frame cannot be read past its end. */
+	protected int fill (byte[] buffer, int offset, int count) throws KryoException {
+		if (inFrame) return -1;
+		int read = readChannel(buffer, offset, count);
+		return read == 0 ? -1 : read;
+	}
+
+	protected int require (int required) throws KryoException {
+		// Within a frame fill never provides more bytes, so fail before the buffer is compacted, which would add the position to the
+		// total even though endFrame restores it.
+		if (inFrame && limit - position < required) throw new KryoException("Buffer underflow.");
+		return super.require(required);
+	}
+
+	private int readChannel (byte[] buffer, int offset, int count) throws KryoException {
+		if (channel == null || endOfStream) return -1;
+		if (channelBuffer == null || channelBuffer.array() != buffer) channelBuffer = ByteBuffer.wrap(buffer);
+		channelBuffer.clear();
+		channelBuffer.position(offset);
+		channelBuffer.limit(offset + count);
+		try {
+			int read = channel.read(channelBuffer);
+			if (read == -1) endOfStream = true;
+			return read;
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+
+	/** Reads any bytes available from the channel and returns true if a complete frame is buffered. When true is returned, the
+	 * position is the start of the frame and the limit is the end of the frame. When false is returned, more bytes are needed or
+	 * {@link #isEndOfStream()} is true.
+	 * @throws KryoException if the frame length is malformed or larger than the maximum buffer size. */
+	public boolean readFrame () throws KryoException {
+		if (inFrame) throw new IllegalStateException("endFrame must be called before reading the next frame.");
+		if (!frameBuffered()) {
+			// Read until the frame is complete or the channel has no more bytes available.
+			while (true) {
+				ensureFrameCapacity();
+				int count = readChannel(buffer, limit, capacity - limit);
+				if (count <= 0) return false;
+				limit += count;
+				if (frameBuffered()) break;
+			}
+		}
+		inFrame = true;
+		dataLimit = limit;
+		limit = position + frameLength;
+		if (TRACE) trace("kryo", "Read frame: " + frameLength);
+		return true;
+	}
+
+	/** Ends the current frame, skipping any bytes in the frame which were not read. */
+	public void endFrame () {
+		if (!inFrame) throw new IllegalStateException("readFrame has not returned true.");
+		position = limit;
+		limit = dataLimit;
+		frameLength = -1;
+		inFrame = false;
+	}
+
+	/** Parses the frame length if needed, then returns true if all the bytes for the frame are buffered. */
+	private boolean frameBuffered () throws KryoException {
+		if (frameLength == -1) {
+			byte[] buffer = this.buffer;
+			int p = position, result = 0;
+			for (int shift = 0;; shift += 7) {
+				if (p == limit) return false;
+				int b = buffer[p++];
+				result |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) break;
+				if (shift == 28) throw new KryoException("Malformed frame length.");
+			}
+			if (result < 0 || result > maxCapacity)
+				throw new KryoException("Frame too large. Max capacity: " + maxCapacity + ", frame length: " + result);
+			position = p;
+			frameLength = result;
+		}
+		return limit - position >= frameLength;
+	}
+
+	/** Compacts or grows the buffer so the rest of the current frame, or at least a frame length, can be read into it. */
+	private void ensureFrameCapacity () {
+		int required = frameLength == -1 ? 5 : frameLength;
+		if (capacity - position >= required && limit < capacity) return;
+		int remaining = limit - position;
+		byte[] newBuffer = buffer;
+		if (required > capacity) {
+			int newCapacity = Math.max(capacity, 16);
+			while (newCapacity < required)
+				newCapacity = (int)Math.min((long)newCapacity * 2, maxCapacity);
+			newBuffer = new byte[newCapacity];
+			capacity = newCapacity;
+		}
+		System.arraycopy(buffer, position, newBuffer, 0, remaining);
+		buffer = newBuffer;
+		total += position;
+		position = 0;
+		limit = remaining;
+	}
+
+	public int available () throws IOException {
+		return limit - position;
+	}
+
+	/** Closes the underlying channel, if any. */
+	public void close () throws KryoException {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Checksum;
+
+/** An {@link InputChunked} that reads data written by {@link CheckedOutputChunked}, verifying the CRC-32C checksum of the bytes
+ * written by each flush. A {@link KryoException} with the offset of the corrupted or truncated bytes is thrown when they are
+ * read, including when they are skipped by {@link #nextChunk()}.
+ * <p>
+ * When the bytes written by a flush fit in the space available in the buffer, they are verified before any of them can be
+ * deserialized. Otherwise the bytes are verified when the last of them is read.
+ * @author Nathan Sweet */
+public class CheckedInputChunked extends InputChunked {
+	private final Checksum checksum = Crc32c.newChecksum();
+	private final byte[] checksumBytes = new byte[4];
+	private long streamOffset, blockOffset;
+
+	/** @see Input#Input() */
+	public CheckedInputChunked () {
+		super();
+	}
+
+	/** @see Input#Input(int) */
+	public CheckedInputChunked (int bufferSize) {
+		super(bufferSize);
+	}
+
+	/** @see Input#Input(InputStream) */
+	public CheckedInputChunked (InputStream inputStream) {
+		super(inputStream);
+	}
+
+	/** @see Input#Input(InputStream, int) */
+	public CheckedInputChunked (InputStream inputStream, int bufferSize) {
+		super(inputStream, bufferSize);
+	}
+
+	public void setInputStream (InputStream inputStream) {
+		super.setInputStream(inputStream);
+		streamOffset = 0;
+	}
+
+	public void setBuffer (byte[] bytes, int offset, int count) {
+		super.setBuffer(bytes, offset, count);
+		streamOffset = 0;
+	}
+
+	public void reset () {
+		super.reset();
+		streamOffset = 0;
+	}
+
+	/** Returns the number of bytes read from the InputStream, including the chunk lengths and checksums. */
+	public long getStreamOffset () {
+		return streamOffset;
+	}
+
+	protected int fill (byte[] buffer, int offset, int count) throws KryoException {
+		if (chunkSize == -1) { // No current chunk, expect a new chunk.
+			if (!readBlockSize()) return -1;
+		} else if (chunkSize == 0) // End of chunk.
+			return -1;
+		InputStream inputStream = this.inputStream;
+		if (inputStream == null) return -1;
+		if (count == 0) return 0;
+		int actual = 0;
+		try {
+			// Read the whole block if it fits, so it is verified before it is used.
+			int required = count >= chunkSize ? chunkSize : 1;
+			do {
+				int read = inputStream.read(buffer, offset + actual, Math.min(chunkSize, count) - actual);
+				if (read == -1) throw new KryoException("Chunk is truncated at offset: " + blockOffset);
+				actual += read;
+			} while (actual < required);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		checksum.update(buffer, offset, actual);
+		streamOffset += actual;
+		chunkSize -= actual;
+		if (chunkSize == 0) {
+			verify();
+			readBlockSize();
+		}
+		return actual;
+	}
+
+	/** Reads the size of the bytes written by the next flush, or 0 for the end of the chunk.
+	 * @return false if the end of the stream was reached. */
+	private boolean readBlockSize () {
+		blockOffset = streamOffset;
+		if (!readChunkSize()) return false;
+		streamOffset += Output.varIntLength(chunkSize, true);
+		checksum.reset();
+		return true;
+	}
+
+	private void verify () throws KryoException {
+		byte[] checksumBytes = this.checksumBytes;
+		try {
+			for (int i = 0; i < 4;) {
+				int read = inputStream.read(checksumBytes, i, 4 - i);
+				if (read == -1) throw new KryoException("Chunk is truncated at offset: " + blockOffset);
+				i += read;
+			}
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		streamOffset += 4;
+		int expected = checksumBytes[0] & 0xFF //
+			| (checksumBytes[1] & 0xFF) << 8 //
+			| (checksumBytes[2] & 0xFF) << 16 //
+			| (checksumBytes[3] & 0xFF) << 24;
+		int actual = (int)checksum.getValue();
+		if (actual != expected) {
+			throw new KryoException("Chunk checksum mismatch at offset " + blockOffset + ": expected " + Integer.toHexString(expected)
+				+ ", actual " + Integer.toHexString(actual));
+		}
+		if (TRACE) trace("kryo", "Verified chunk checksum at offset: " + blockOffset);
+	}
+
+	public void nextChunk () {
+		if (chunkSize == -1) readBlockSize(); // No current chunk, expect a new chunk.
+		super.nextChunk();
+	}
+}
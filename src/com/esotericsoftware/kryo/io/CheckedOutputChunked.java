@@ -0,0 +1,80 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Checksum;
+
+/** An {@link OutputChunked} that writes a CRC-32C checksum after the bytes written by each flush, so
+ * {@link CheckedInputChunked} can detect corrupted or truncated data, such as from a torn write, before it is deserialized.
+ * <p>
+ * On Java 9+ the hardware accelerated java.util.zip.CRC32C is used, which is fast enough to leave enabled. The data must be read
+ * with {@link CheckedInputChunked}.
+ * @author Nathan Sweet */
+public class CheckedOutputChunked extends OutputChunked {
+	private final Checksum checksum = Crc32c.newChecksum();
+	private final byte[] checksumBytes = new byte[4];
+
+	/** @see Output#Output() */
+	public CheckedOutputChunked () {
+		super();
+	}
+
+	/** @see Output#Output(int) */
+	public CheckedOutputChunked (int bufferSize) {
+		super(bufferSize);
+	}
+
+	/** @see Output#Output(OutputStream) */
+	public CheckedOutputChunked (OutputStream outputStream) {
+		super(outputStream);
+	}
+
+	/** @see Output#Output(OutputStream, int) */
+	public CheckedOutputChunked (OutputStream outputStream, int bufferSize) {
+		super(outputStream, bufferSize);
+	}
+
+	public void flush () throws KryoException {
+		if (position > 0 && outputStream != null) {
+			checksum.reset();
+			checksum.update(buffer, 0, position);
+			int value = (int)checksum.getValue();
+			byte[] checksumBytes = this.checksumBytes;
+			checksumBytes[0] = (byte)value;
+			checksumBytes[1] = (byte)(value >> 8);
+			checksumBytes[2] = (byte)(value >> 16);
+			checksumBytes[3] = (byte)(value >> 24);
+			try {
+				writeChunkSize();
+				outputStream.write(buffer, 0, position);
+				outputStream.write(checksumBytes, 0, 4);
+			} catch (IOException ex) {
+				throw new KryoException(ex);
+			}
+			total += position;
+			position = 0;
+		}
+		super.flush();
+	}
+}
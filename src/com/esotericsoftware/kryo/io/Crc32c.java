@@ -0,0 +1,79 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.lang.reflect.Constructor;
+import java.util.zip.Checksum;
+
+/** Computes the CRC-32C checksum, for Java versions before 9 which don't have java.util.zip.CRC32C.
+ * @author Nathan Sweet */
+final class Crc32c implements Checksum {
+	static private final int[] table = new int[256];
+	static private final Constructor<? extends Checksum> jdkConstructor;
+	static {
+		for (int i = 0; i < 256; i++) {
+			int crc = i;
+			for (int ii = 0; ii < 8; ii++)
+				crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x82F63B78 : crc >>> 1;
+			table[i] = crc;
+		}
+
+		Constructor<? extends Checksum> constructor = null;
+		try {
+			constructor = Class.forName("java.util.zip.CRC32C").asSubclass(Checksum.class).getConstructor();
+		} catch (Exception ignored) { // Java 8.
+		}
+		jdkConstructor = constructor;
+	}
+
+	private int crc = -1;
+
+	public void update (int b) {
+		crc = (crc >>> 8) ^ table[(crc ^ b) & 0xFF];
+	}
+
+	public void update (byte[] bytes, int offset, int length) {
+		int crc = this.crc;
+		for (int n = offset + length; offset < n; offset++)
+			crc = (crc >>> 8) ^ table[(crc ^ bytes[offset]) & 0xFF];
+		this.crc = crc;
+	}
+
+	public long getValue () {
+		return ~crc & 0xFFFFFFFFL;
+	}
+
+	public void reset () {
+		crc = -1;
+	}
+
+	/** Returns java.util.zip.CRC32C if available, which is hardware accelerated on most platforms, else a {@link Crc32c}. Both
+	 * compute the same values. */
+	static Checksum newChecksum () {
+		if (jdkConstructor == null) return new Crc32c();
+		try {
+			return jdkConstructor.newInstance();
+		} catch (Exception ex) {
+			throw new KryoException("Unable to create CRC32C.", ex);
+		}
+	}
+}
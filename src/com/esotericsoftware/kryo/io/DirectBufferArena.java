@@ -0,0 +1,187 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.unsafe.UnsafeUtil;
+import com.esotericsoftware.kryo.util.IdentityMap;
+import com.esotericsoftware.kryo.util.Util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/** Allocates direct ByteBuffers by slicing them from larger direct slabs, so direct memory is reserved up front in a bounded
+ * amount and freed buffers are reused rather than left for GC to release.
+ * <p>
+ * Buffer sizes are rounded up to a power of two. A freed buffer is kept for the next allocation of the same size. A buffer larger
+ * than the slab size is allocated separately and is released when it is freed. {@link #close()} releases all the memory, after
+ * which the arena can't allocate and freeing does nothing, so outputs using the arena can be closed before or after it.
+ * <p>
+ * An arena is thread safe and can be shared by many outputs, see
+ * {@link ByteBufferOutput#ByteBufferOutput(int, int, DirectBufferArena)}.
+ * @author Nathan Sweet */
+public class DirectBufferArena {
+	static private final int minShift = 6;
+
+	private final int slabSize;
+	private final long maxReserved;
+	private final ArrayList<ByteBuffer> slabs = new ArrayList();
+	private final ArrayDeque<ByteBuffer>[] freeBuffers;
+	private final IdentityMap<ByteBuffer, ByteBuffer> allocated = new IdentityMap();
+	private ByteBuffer slab;
+	private long reserved, inUse, peakInUse;
+	private boolean closed;
+
+	/** Creates an arena with 1 MB slabs and no maximum. */
+	public DirectBufferArena () {
+		this(1 << 20, -1);
+	}
+
+	/** @param slabSize The size of each slab, rounded up to a power of two.
+	 * @param maxReserved The maximum number of bytes of direct memory the arena reserves, or -1 for no maximum. If allocating would
+	 *           exceed the maximum, an exception is thrown. */
+	public DirectBufferArena (int slabSize, long maxReserved) {
+		if (slabSize < 1 << minShift) throw new IllegalArgumentException("slabSize must be >= " + (1 << minShift) + ": " + slabSize);
+		if (slabSize > 1 << 30) throw new IllegalArgumentException("slabSize is too large: " + slabSize);
+		if (maxReserved < -1) throw new IllegalArgumentException("maxReserved cannot be < -1: " + maxReserved);
+		this.slabSize = 1 << shift(slabSize);
+		this.maxReserved = maxReserved == -1 ? Long.MAX_VALUE : maxReserved;
+		freeBuffers = new ArrayDeque[shift(this.slabSize) - minShift + 1];
+		for (int i = 0; i < freeBuffers.length; i++)
+			freeBuffers[i] = new ArrayDeque();
+	}
+
+	/** Returns a direct buffer with a capacity of at least the specified size, position 0, limit equal to the capacity, and big
+	 * endian byte order. The contents are unspecified.
+	 * @throws KryoException if the maximum reserved bytes would be exceeded or the arena is closed. */
+	public synchronized ByteBuffer allocate (int size) throws KryoException {
+		if (closed) throw new KryoException("The arena is closed.");
+		ByteBuffer buffer;
+		if (size > slabSize) {
+			reserve(size);
+			buffer = ByteBuffer.allocateDirect(size);
+		} else {
+			int index = index(size);
+			buffer = freeBuffers[index].poll();
+			if (buffer == null) buffer = slice(1 << index + minShift);
+			buffer.clear();
+			buffer.order(ByteOrder.BIG_ENDIAN);
+		}
+		allocated.put(buffer, buffer);
+		inUse += buffer.capacity();
+		peakInUse = Math.max(peakInUse, inUse);
+		return buffer;
+	}
+
+	/** Returns a buffer obtained from {@link #allocate(int)}. The buffer must not be used afterward. Does nothing if the arena is
+	 * closed, since its memory was already released.
+	 * @throws IllegalArgumentException if the buffer was not allocated by this arena or was already freed. */
+	public synchronized void free (ByteBuffer buffer) {
+		if (closed) return;
+		if (allocated.remove(buffer) == null)
+			throw new IllegalArgumentException("The buffer was not allocated by this arena or was already freed.");
+		int capacity = buffer.capacity();
+		inUse -= capacity;
+		if (capacity > slabSize) {
+			reserved -= capacity;
+			if (Util.unsafe) UnsafeUtil.dispose(buffer);
+		} else
+			freeBuffers[index(capacity)].add(buffer);
+	}
+
+	/** Slices a buffer of the size from the current slab, reserving a new slab if needed. */
+	private ByteBuffer slice (int size) {
+		if (slab == null || slab.remaining() < size) {
+			if (slab != null) {
+				// Keep the rest of the slab as free buffers.
+				while (slab.remaining() >= 1 << minShift) {
+					int remaining = Integer.highestOneBit(slab.remaining());
+					freeBuffers[index(remaining)].add(slice(slab, remaining));
+				}
+			}
+			reserve(slabSize);
+			slab = ByteBuffer.allocateDirect(slabSize);
+			slabs.add(slab);
+		}
+		return slice(slab, size);
+	}
+
+	static private ByteBuffer slice (ByteBuffer slab, int size) {
+		int position = slab.position();
+		slab.limit(position + size);
+		ByteBuffer buffer = slab.slice();
+		slab.limit(slab.capacity());
+		slab.position(position + size);
+		return buffer;
+	}
+
+	private void reserve (int size) throws KryoException {
+		if (reserved + size > maxReserved) {
+			throw new KryoException(
+				"Direct buffer arena is exhausted. Max reserved: " + maxReserved + ", reserved: " + reserved + ", required: " + size);
+		}
+		reserved += size;
+	}
+
+	/** Returns the number of bytes of direct memory reserved by the arena. */
+	public synchronized long getReserved () {
+		return reserved;
+	}
+
+	/** Returns the number of bytes in buffers which have been allocated and not freed. */
+	public synchronized long getInUse () {
+		return inUse;
+	}
+
+	/** Returns the largest number of bytes that have been in use at once. */
+	public synchronized long getPeakInUse () {
+		return peakInUse;
+	}
+
+	/** Releases all the direct memory reserved by the arena. Buffers which have not been freed must not be used afterward, but
+	 * may still be {@link #free(ByteBuffer) freed}, which does nothing. Allocating afterward throws an exception. */
+	public synchronized void close () {
+		closed = true;
+		if (Util.unsafe) {
+			for (ByteBuffer slab : slabs)
+				UnsafeUtil.dispose(slab);
+			for (ByteBuffer buffer : allocated.keys())
+				if (buffer.capacity() > slabSize) UnsafeUtil.dispose(buffer);
+		}
+		slabs.clear();
+		slab = null;
+		for (ArrayDeque<ByteBuffer> buffers : freeBuffers)
+			buffers.clear();
+		allocated.clear();
+		reserved = 0;
+		inUse = 0;
+	}
+
+	private int index (int size) {
+		return Math.max(shift(size) - minShift, 0);
+	}
+
+	/** Returns the exponent of the smallest power of two that is >= size. */
+	static private int shift (int size) {
+		return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+}
@@ -0,0 +1,59 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+/** Reads frames written by {@link FrameWriter}. The frame data is read directly from the {@link Input}, the rest of a frame is
+ * skipped with a single {@link Input#skip(long) skip}.
+ * <p>
+ * Unlike {@link InputChunked}, reading is not stopped at the end of a frame, so reading past the end of a frame is only detected
+ * by {@link #endFrame()}.
+ * @author Nathan Sweet */
+public class FrameReader {
+	private final Input input;
+	private long frameEnd = -1;
+
+	public FrameReader (Input input) {
+		if (input == null) throw new IllegalArgumentException("input cannot be null.");
+		this.input = input;
+	}
+
+	/** Reads the length of the next frame. The frame data is then read from the Input. */
+	public void beginFrame () throws KryoException {
+		if (frameEnd != -1) throw new IllegalStateException("endFrame must be called before beginning another frame.");
+		int length = input.readInt();
+		if (length < 0) throw new KryoException("Invalid frame length: " + length);
+		if (TRACE) trace("kryo", "Read frame: " + length);
+		frameEnd = input.total() + length;
+	}
+
+	/** Skips the rest of the current frame.
+	 * @throws KryoException if more than the frame's data was read. */
+	public void endFrame () throws KryoException {
+		if (frameEnd == -1) throw new IllegalStateException("beginFrame must be called first.");
+		long remaining = frameEnd - input.total();
+		frameEnd = -1;
+		if (remaining < 0) throw new KryoException("Read past the end of the frame: " + -remaining);
+		if (remaining > 0) input.skip(remaining);
+	}
+}
@@ -0,0 +1,81 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+/** Writes frames to an {@link Output}, each prefixed with its length as a 4 byte int, so a {@link FrameReader} can skip a frame
+ * with a single {@link Input#skip(long) skip}.
+ * <p>
+ * When the Output {@link Output#canBackpatch() can backpatch}, eg it has no OutputStream, a frame is written directly to the
+ * Output and the length is written afterward in the space reserved for it. Otherwise the frame is written to a separate buffer and
+ * copied to the Output when the frame ends.
+ * @author Nathan Sweet */
+public class FrameWriter {
+	private final Output output;
+	private final boolean backpatch;
+	private Output frameOutput;
+	private int lengthPosition = -1;
+
+	public FrameWriter (Output output) {
+		if (output == null) throw new IllegalArgumentException("output cannot be null.");
+		this.output = output;
+		backpatch = output.canBackpatch();
+	}
+
+	/** Begins a frame.
+	 * @return The Output the frame must be written to. */
+	public Output beginFrame () {
+		if (lengthPosition != -1) throw new IllegalStateException("endFrame must be called before beginning another frame.");
+		if (backpatch) {
+			lengthPosition = output.position();
+			output.writeInt(0);
+			return output;
+		}
+		if (frameOutput == null) {
+			frameOutput = new Output(256, -1);
+			frameOutput.setVariableLengthEncoding(output.getVariableLengthEncoding());
+		} else
+			frameOutput.reset();
+		lengthPosition = 0;
+		return frameOutput;
+	}
+
+	/** Ends the current frame, writing its length. */
+	public void endFrame () throws KryoException {
+		if (lengthPosition == -1) throw new IllegalStateException("beginFrame must be called first.");
+		int length;
+		if (backpatch) {
+			int position = output.position();
+			length = position - lengthPosition - 4;
+			output.setPosition(lengthPosition);
+			output.writeInt(length);
+			output.setPosition(position);
+		} else {
+			length = frameOutput.position();
+			output.writeInt(length);
+			output.writeBytes(frameOutput.getBuffer(), 0, length);
+		}
+		lengthPosition = -1;
+		if (TRACE) trace("kryo", "Write frame: " + length);
+	}
+}
@@ -0,0 +1,75 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+/** Determines the new capacity of an {@link Output} buffer which is full and cannot be flushed.
+ * @author Nathan Sweet */
+public interface GrowthPolicy {
+	/** Doubles the capacity, starting with 32 for an empty buffer. This is the default. */
+	static public final GrowthPolicy doubling = factor(2);
+
+	/** @param capacity The current capacity, may be 0.
+	 * @param required The minimum new capacity.
+	 * @return The new capacity. The output uses at least required and at most its maximum capacity. */
+	public int grow (int capacity, int required);
+
+	/** Multiplies the capacity by the factor until it is at least the required capacity. An empty buffer is treated as 16. */
+	static public GrowthPolicy factor (final float factor) {
+		if (factor <= 1) throw new IllegalArgumentException("factor must be > 1: " + factor);
+		return new GrowthPolicy() {
+			public int grow (int capacity, int required) {
+				long newCapacity = capacity == 0 ? 16 : capacity;
+				do {
+					newCapacity = Math.max((long)(newCapacity * factor), newCapacity + 1);
+				} while (newCapacity < required);
+				return (int)Math.min(newCapacity, Integer.MAX_VALUE);
+			}
+		};
+	}
+
+	/** Adds the increment to the capacity until it is at least the required capacity. */
+	static public GrowthPolicy increment (final int increment) {
+		if (increment < 1) throw new IllegalArgumentException("increment must be > 0: " + increment);
+		return new GrowthPolicy() {
+			public int grow (int capacity, int required) {
+				long newCapacity = capacity;
+				do {
+					newCapacity += increment;
+				} while (newCapacity < required);
+				return (int)Math.min(newCapacity, Integer.MAX_VALUE);
+			}
+		};
+	}
+
+	/** Doubles the capacity but grows by at most maxIncrement at a time, which avoids doubling large buffers when only a little
+	 * more space is needed. An empty buffer is treated as 16. */
+	static public GrowthPolicy capped (final int maxIncrement) {
+		if (maxIncrement < 1) throw new IllegalArgumentException("maxIncrement must be > 0: " + maxIncrement);
+		return new GrowthPolicy() {
+			public int grow (int capacity, int required) {
+				long newCapacity = capacity == 0 ? 16 : capacity;
+				do {
+					newCapacity += Math.min(newCapacity, maxIncrement);
+				} while (newCapacity < required);
+				return (int)Math.min(newCapacity, Integer.MAX_VALUE);
+			}
+		};
+	}
+}
@@ -39,6 +39,12 @@ public class Input extends InputStream implements Poolable {
 	protected char[] chars = new char[32];
 	protected InputStream inputStream;
 	protected boolean varEncoding = true;
+	protected StringCache stringCache;
+	protected BufferAllocator allocator;
+	private int initialCapacity;
+	private boolean ownsBuffer;
+	private long bits;
+	private int bitCount;
 
 	/** Creates an uninitialized Input, {@link #setBuffer(byte[])} must be called before the Input is used. */
 	public Input () {
@@ -80,6 +86,17 @@ public class Input extends InputStream implements Poolable {
 		this.inputStream = inputStream;
 	}
 
+	/** Creates a new Input for reading from an InputStream with a buffer obtained from an allocator. {@link #close()} returns the
+	 * buffer to the allocator.
+	 * @param allocator May be null to allocate a buffer that is not reused. */
+	public Input (InputStream inputStream, int bufferSize, BufferAllocator allocator) {
+		if (inputStream == null) throw new IllegalArgumentException("inputStream cannot be null.");
+		this.inputStream = inputStream;
+		this.allocator = allocator;
+		initialCapacity = bufferSize;
+		allocateBuffer();
+	}
+
 	/** Sets a new buffer. The offset is 0 and the count is the buffer's length.
 	 * @see #setBuffer(byte[], int, int) */
 	public void setBuffer (byte[] bytes) {
@@ -90,6 +107,7 @@ public class Input extends InputStream implements Poolable {
 	 * The position and total are reset. The {@link #setInputStream(InputStream) InputStream} is set to null. */
 	public void setBuffer (byte[] bytes, int offset, int count) {
 		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		freeBuffer();
 		buffer = bytes;
 		position = offset;
 		limit = offset + count;
@@ -126,6 +144,18 @@ public class Input extends InputStream implements Poolable {
 		this.varEncoding = varEncoding;
 	}
 
+	/** @return May be null. */
+	public StringCache getStringCache () {
+		return stringCache;
+	}
+
+	/** Sets a cache that {@link #readString()} uses to return the same String instance for repeated strings rather than allocating
+	 * a new one each time. The cache may be shared by many inputs. Default is null.
+	 * @param stringCache May be null. */
+	public void setStringCache (StringCache stringCache) {
+		this.stringCache = stringCache;
+	}
+
 	/** Returns the total number of bytes read. */
 	public long total () {
 		return total + position;
@@ -156,11 +186,39 @@ public class Input extends InputStream implements Poolable {
 		this.limit = limit;
 	}
 
-	/** Sets the position and total to zero. */
+	/** Sets the position and total to zero. If the buffer was returned to the allocator by {@link #close()}, a new buffer is
+	 * obtained. */
 	@SuppressWarnings("sync-override")
 	public void reset () {
 		position = 0;
 		total = 0;
+		bitCount = 0;
+		if (allocator != null && capacity == 0 && initialCapacity > 0) {
+			allocateBuffer();
+			limit = 0;
+		}
+	}
+
+	public BufferAllocator getBufferAllocator () {
+		return allocator;
+	}
+
+	private void allocateBuffer () {
+		if (allocator == null)
+			buffer = new byte[initialCapacity];
+		else {
+			buffer = allocator.allocate(initialCapacity);
+			ownsBuffer = true;
+		}
+		capacity = buffer.length;
+	}
+
+	/** If the buffer was obtained from the allocator, it is returned. The buffer must not be used afterward. */
+	private void freeBuffer () {
+		if (ownsBuffer) {
+			ownsBuffer = false;
+			allocator.free(buffer);
+		}
 	}
 
 	/** Discards the specified number of bytes. */
@@ -321,7 +379,8 @@ public class Input extends InputStream implements Poolable {
 		return count;
 	}
 
-	/** Closes the underlying InputStream, if any. */
+	/** Closes the underlying InputStream, if any. If the buffer was obtained from an allocator, it is returned and
+	 * {@link #reset()} or {@link #setInputStream(InputStream)} must be called before the Input is used again. */
 	public void close () throws KryoException {
 		if (inputStream != null) {
 			try {
@@ -329,6 +388,13 @@ public class Input extends InputStream implements Poolable {
 			} catch (IOException ignored) {
 			}
 		}
+		if (ownsBuffer) {
+			freeBuffer();
+			buffer = new byte[0];
+			capacity = 0;
+			position = 0;
+			limit = 0;
+		}
 	}
 
 	// byte:
@@ -773,7 +839,7 @@ public class Input extends InputStream implements Poolable {
 	 * {@link Output#writeString(String)} and {@link Output#writeAscii(String)}.
 	 * @return May be null. */
 	public String readString () {
-		if (!readVarIntFlag()) return readAsciiString(); // ASCII.
+		if (!readVarIntFlag()) return stringCache == null ? readAsciiString() : readAsciiStringCached(); // ASCII.
 		// Null, empty, or UTF8.
 		int charCount = readVarIntFlag(true);
 		switch (charCount) {
@@ -783,6 +849,37 @@ public class Input extends InputStream implements Poolable {
 			return "";
 		}
 		charCount--;
+		StringCache stringCache = this.stringCache;
+		if (stringCache != null) {
+			int start = position, end = utf8End(charCount, stringCache.getMaxLength());
+			if (end != -1) {
+				String value = stringCache.get(buffer, start, end - start);
+				if (value != null) {
+					position = end;
+					return value;
+				}
+				value = readUtf8String(charCount);
+				stringCache.put(buffer, start, end - start, value);
+				return value;
+			}
+		}
+		return readUtf8String(charCount);
+	}
+
+	private String readUtf8String (int charCount) {
+		if (limit - position >= charCount) {
+			// If the chars are all ASCII, create the string from the buffer without copying to the chars. With compact strings
+			// (Java 9+) the bytes are copied once, directly to the string's Latin-1 bytes.
+			byte[] buffer = this.buffer;
+			int p = position, n = p + charCount;
+			while (p < n && buffer[p] >= 0)
+				p++;
+			if (p == n) {
+				String value = new String(buffer, 0, position, charCount);
+				position = n;
+				return value;
+			}
+		}
 		readUtf8Chars(charCount);
 		return new String(chars, 0, charCount);
 	}
@@ -862,6 +959,45 @@ public class Input extends InputStream implements Poolable {
 		}
 	}
 
+	/** Returns the end of the UTF8 bytes for the chars, or -1 if they are not all in the buffer or are more than maxLength bytes. */
+	private int utf8End (int charCount, int maxLength) {
+		byte[] buffer = this.buffer;
+		int p = position, n = Math.min(limit, position + maxLength);
+		for (int i = 0; i < charCount; i++) {
+			if (p >= n) return -1;
+			switch ((buffer[p] & 0xFF) >> 4) {
+			case 12:
+			case 13:
+				p += 2;
+				break;
+			case 14:
+				p += 3;
+				break;
+			default:
+				p++;
+			}
+		}
+		return p <= n ? p : -1;
+	}
+
+	private String readAsciiStringCached () {
+		byte[] buffer = this.buffer;
+		int start = position, p = start, n = Math.min(limit, start + stringCache.getMaxLength());
+		while (p < n) {
+			if (buffer[p++] < 0) { // The last char has the high bit set.
+				String value = stringCache.get(buffer, start, p - start);
+				if (value != null) {
+					position = p;
+					return value;
+				}
+				value = readAsciiString();
+				stringCache.put(buffer, start, p - start, value);
+				return value;
+			}
+		}
+		return readAsciiString();
+	}
+
 	private String readAsciiString () {
 		char[] chars = this.chars;
 		byte[] buffer = this.buffer;
@@ -925,15 +1061,33 @@ public class Input extends InputStream implements Poolable {
 	/** Reads an int array in bulk using fixed or variable length encoding, depending on
 	 * {@link #setVariableLengthEncoding(boolean)}. This may be more efficient than reading them individually. */
 	public int[] readInts (int length, boolean optimizePositive) throws KryoException {
-		if (varEncoding) {
-			int[] array = new int[length];
-			for (int i = 0; i < length; i++)
-				array[i] = readVarInt(optimizePositive);
-			return array;
-		}
+		if (varEncoding) return readVarInts(length, optimizePositive);
 		return readInts(length);
 	}
 
+	/** Reads an int array in bulk using variable length encoding, regardless of {@link #setVariableLengthEncoding(boolean)}.
+	 * This may be more efficient than reading them individually. */
+	public int[] readVarInts (int length, boolean optimizePositive) throws KryoException {
+		int[] array = new int[length];
+		for (int i = 0; i < length;) {
+			// Read values without checking the limit for each byte while at least 5 bytes are buffered.
+			byte[] buffer = this.buffer;
+			int p = position, end = limit - 5;
+			for (; i < length && p <= end; i++) {
+				int b = buffer[p++];
+				int result = b & 0x7F;
+				for (int shift = 7; b < 0 && shift < 35; shift += 7) {
+					b = buffer[p++];
+					result |= (b & 0x7F) << shift;
+				}
+				array[i] = optimizePositive ? result : ((result >>> 1) ^ -(result & 1));
+			}
+			position = p;
+			if (i < length) array[i++] = readVarInt(optimizePositive);
+		}
+		return array;
+	}
+
 	/** Reads a long array in bulk. This may be more efficient than reading them individually. */
 	public long[] readLongs (int length) throws KryoException {
 		long[] array = new long[length];
@@ -961,15 +1115,149 @@ public class Input extends InputStream implements Poolable {
 	/** Reads an int array in bulk using fixed or variable length encoding, depending on
 	 * {@link #setVariableLengthEncoding(boolean)}. This may be more efficient than reading them individually. */
 	public long[] readLongs (int length, boolean optimizePositive) throws KryoException {
-		if (varEncoding) {
-			long[] array = new long[length];
-			for (int i = 0; i < length; i++)
-				array[i] = readVarLong(optimizePositive);
-			return array;
-		}
+		if (varEncoding) return readVarLongs(length, optimizePositive);
 		return readLongs(length);
 	}
 
+	/** Reads a long array in bulk using variable length encoding, regardless of {@link #setVariableLengthEncoding(boolean)}.
+	 * This may be more efficient than reading them individually. */
+	public long[] readVarLongs (int length, boolean optimizePositive) throws KryoException {
+		long[] array = new long[length];
+		for (int i = 0; i < length;) {
+			// Read values without checking the limit for each byte while at least 9 bytes are buffered.
+			byte[] buffer = this.buffer;
+			int p = position, end = limit - 9;
+			for (; i < length && p <= end; i++) {
+				int b = buffer[p++];
+				long result = b & 0x7F;
+				for (int shift = 7; b < 0 && shift < 56; shift += 7) {
+					b = buffer[p++];
+					result |= (long)(b & 0x7F) << shift;
+				}
+				if (b < 0) result |= (long)buffer[p++] << 56;
+				array[i] = optimizePositive ? result : ((result >>> 1) ^ -(result & 1));
+			}
+			position = p;
+			if (i < length) array[i++] = readVarLong(optimizePositive);
+		}
+		return array;
+	}
+
+	/** Reads an int array written by {@link Output#writeDeltaInts(int[], int, int)}. */
+	public int[] readDeltaInts (int length) throws KryoException {
+		int[] array = new int[length];
+		int value = 0;
+		for (int i = 0; i < length; i++) {
+			value += readVarInt(false);
+			array[i] = value;
+		}
+		return array;
+	}
+
+	/** Reads a long array written by {@link Output#writeDeltaLongs(long[], int, int)}. */
+	public long[] readDeltaLongs (int length) throws KryoException {
+		long[] array = new long[length];
+		long value = 0;
+		for (int i = 0; i < length; i++) {
+			value += readVarLong(false);
+			array[i] = value;
+		}
+		return array;
+	}
+
+	/** Reads an int array written by {@link Output#writeAdaptiveInts(int[], int, int)}. */
+	public int[] readAdaptiveInts (int length) throws KryoException {
+		int encoding = readByte();
+		switch (encoding) {
+		case Output.ADAPTIVE_FIXED:
+			return readInts(length);
+		case Output.ADAPTIVE_VAR:
+			return readVarInts(length, true);
+		case Output.ADAPTIVE_ZIGZAG:
+			return readVarInts(length, false);
+		case Output.ADAPTIVE_DELTA:
+			return readDeltaInts(length);
+		}
+		throw new KryoException("Invalid array encoding: " + encoding);
+	}
+
+	/** Reads a long array written by {@link Output#writeAdaptiveLongs(long[], int, int)}. */
+	public long[] readAdaptiveLongs (int length) throws KryoException {
+		int encoding = readByte();
+		switch (encoding) {
+		case Output.ADAPTIVE_FIXED:
+			return readLongs(length);
+		case Output.ADAPTIVE_VAR:
+			return readVarLongs(length, true);
+		case Output.ADAPTIVE_ZIGZAG:
+			return readVarLongs(length, false);
+		case Output.ADAPTIVE_DELTA:
+			return readDeltaLongs(length);
+		}
+		throw new KryoException("Invalid array encoding: " + encoding);
+	}
+
+	/** Reads the specified number of bits written by {@link Output#writeBits(long, int)}. Bits are read from the buffer a byte at
+	 * a time, so {@link #clearBits()} must be called before reading anything else.
+	 * @param count 0 to 64. */
+	public long readBits (int count) throws KryoException {
+		if (count > 32) return readBits(count - 32) << 32 | readBits(32);
+		long bits = this.bits;
+		int bitCount = this.bitCount;
+		while (bitCount < count) {
+			bits = bits << 8 | readByte() & 0xFF;
+			bitCount += 8;
+		}
+		bitCount -= count;
+		this.bits = bits;
+		this.bitCount = bitCount;
+		return bits >>> bitCount & (1L << count) - 1;
+	}
+
+	/** Discards any bits from a partially read byte, which were padding written by {@link Output#flushBits()}. */
+	public void clearBits () {
+		bitCount = 0;
+	}
+
+	/** Reads a double array written by {@link Output#writeXorDoubles(double[], int, int)}. */
+	public double[] readXorDoubles (int length) throws KryoException {
+		double[] array = new double[length];
+		long value = 0;
+		int leading = 0, trailing = 0;
+		for (int i = 0; i < length; i++) {
+			if (readBits(1) != 0) {
+				if (readBits(1) != 0) {
+					int header = (int)readBits(12);
+					leading = header >>> 6;
+					trailing = 64 - leading - (header & 0x3f) - 1;
+				}
+				value ^= readBits(64 - leading - trailing) << trailing;
+			}
+			array[i] = Double.longBitsToDouble(value);
+		}
+		clearBits();
+		return array;
+	}
+
+	/** Reads a float array written by {@link Output#writeXorFloats(float[], int, int)}. */
+	public float[] readXorFloats (int length) throws KryoException {
+		float[] array = new float[length];
+		int value = 0, leading = 0, trailing = 0;
+		for (int i = 0; i < length; i++) {
+			if (readBits(1) != 0) {
+				if (readBits(1) != 0) {
+					int header = (int)readBits(10);
+					leading = header >>> 5;
+					trailing = 32 - leading - (header & 0x1f) - 1;
+				}
+				value ^= (int)readBits(32 - leading - trailing) << trailing;
+			}
+			array[i] = Float.intBitsToFloat(value);
+		}
+		clearBits();
+		return array;
+	}
+
 	/** Reads a float array in bulk. This may be more efficient than reading them individually. */
 	public float[] readFloats (int length) throws KryoException {
 		float[] array = new float[length];
@@ -1061,4 +1349,38 @@ public class Input extends InputStream implements Poolable {
 		}
 		return array;
 	}
+
+	/** Reads a boolean array written by {@link Output#writePackedBooleans(boolean[], int, int)}. */
+	public boolean[] readPackedBooleans (int length) throws KryoException {
+		boolean[] array = new boolean[length];
+		int byteCount = Output.packedBytes(length);
+		if (optional(byteCount) == byteCount) {
+			byte[] buffer = this.buffer;
+			int p = this.position;
+			for (int i = 0; i < length; i += 8)
+				unpack(buffer[p++], array, i, Math.min(length - i, 8));
+			position = p;
+		} else {
+			for (int i = 0; i < length; i += 8)
+				unpack(readByte(), array, i, Math.min(length - i, 8));
+		}
+		return array;
+	}
+
+	/** Stores up to 8 bits of a byte as booleans, the lowest bit first. */
+	static void unpack (int bits, boolean[] array, int offset, int count) {
+		if (count == 8) {
+			array[offset] = (bits & 1) != 0;
+			array[offset + 1] = (bits & 2) != 0;
+			array[offset + 2] = (bits & 4) != 0;
+			array[offset + 3] = (bits & 8) != 0;
+			array[offset + 4] = (bits & 16) != 0;
+			array[offset + 5] = (bits & 32) != 0;
+			array[offset + 6] = (bits & 64) != 0;
+			array[offset + 7] = (bits & 128) != 0;
+			return;
+		}
+		for (int i = 0; i < count; i++)
+			array[offset + i] = (bits & 1 << i) != 0;
+	}
 }
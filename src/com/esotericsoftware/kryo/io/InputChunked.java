@@ -29,7 +29,7 @@ import java.io.InputStream;
 /** An {@link Input} that reads lengths and chunks of data from another OutputStream, allowing chunks to be skipped.
  * @author Nathan Sweet */
 public class InputChunked extends Input {
-	private int chunkSize = -1;
+	int chunkSize = -1;
 
 	/** @see Input#Input() */
 	public InputChunked () {
@@ -78,7 +78,7 @@ public class InputChunked extends Input {
 	}
 
 	/** @return false if the end of the stream was reached. */
-	private boolean readChunkSize () {
+	boolean readChunkSize () {
 		try {
 			InputStream inputStream = getInputStream();
 			for (int offset = 0, result = 0; offset < 32; offset += 7) {
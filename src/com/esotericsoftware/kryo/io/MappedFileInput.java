@@ -0,0 +1,213 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.unsafe.UnsafeUtil;
+import com.esotericsoftware.kryo.util.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/** A {@link ByteBufferInput} that reads a file by memory mapping it, avoiding the copy from a stream into a heap buffer. The file
+ * is mapped in windows of a fixed size, so files larger than the 2GB limit of a single MappedByteBuffer can be read. When
+ * {@link #require(int)} needs bytes beyond the current window, a new window is mapped starting at the current position.
+ * <p>
+ * {@link #position()} and {@link #limit()} are relative to the current window, {@link #total()} and {@link #filePosition()} are
+ * the position in the file. The window size must be at least as large as the largest number of bytes required at once, eg 9
+ * bytes for a variable length long.
+ * @author Nathan Sweet */
+public class MappedFileInput extends ByteBufferInput {
+	static public final int defaultWindowSize = 64 * 1024 * 1024;
+
+	private FileChannel channel;
+	private boolean windowSliced;
+
+	/** Creates a new Input for reading the specified file with a window size of 64MB. */
+	public MappedFileInput (File file) {
+		this(file, defaultWindowSize);
+	}
+
+	/** Creates a new Input for reading the specified file.
+	 * @param windowSize The maximum number of bytes mapped at once. */
+	public MappedFileInput (File file, int windowSize) {
+		this(open(file), windowSize);
+	}
+
+	/** Creates a new Input for reading from the specified channel, starting at the beginning of the file. The channel is closed
+	 * when this Input is {@link #close() closed}.
+	 * @param windowSize The maximum number of bytes mapped at once. */
+	public MappedFileInput (FileChannel channel, int windowSize) {
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		if (windowSize < 1) throw new IllegalArgumentException("windowSize must be > 0: " + windowSize);
+		this.channel = channel;
+		capacity = windowSize;
+		map(0);
+	}
+
+	static private FileChannel open (File file) {
+		if (file == null) throw new IllegalArgumentException("file cannot be null.");
+		try {
+			return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		} catch (IOException ex) {
+			throw new KryoException("Unable to open file: " + file, ex);
+		}
+	}
+
+	/** Maps a new window starting at the specified position in the file. The window is smaller than the window size if the end of
+	 * the file is reached. */
+	private void map (long filePosition) {
+		try {
+			long fileSize = channel.size();
+			if (filePosition > fileSize) throw new KryoException("Buffer underflow.");
+			int size = (int)Math.min(capacity, fileSize - filePosition);
+			ByteBuffer newBuffer = channel.map(MapMode.READ_ONLY, filePosition, size);
+			if (byteBuffer != null && !windowSliced) dispose(byteBuffer);
+			byteBuffer = newBuffer;
+			windowSliced = false;
+		} catch (IOException ex) {
+			throw new KryoException("Unable to map file at position: " + filePosition, ex);
+		}
+		if (TRACE) trace("kryo", "Map window: " + filePosition + ", " + byteBuffer.limit());
+		total = filePosition;
+		position = 0;
+		limit = byteBuffer.limit();
+	}
+
+	/** Unmaps a window immediately rather than waiting for GC, if possible. Windows that {@link #readByteBufferSlice(int) slices}
+	 * were returned for are not disposed, since the slices may still be used. */
+	static void dispose (ByteBuffer buffer) {
+		if (Util.unsafe) UnsafeUtil.dispose(buffer);
+	}
+
+	/** Returns true if the current window extends to the end of the file. */
+	private boolean endMapped () {
+		if (channel == null) return true;
+		try {
+			return total + limit >= channel.size();
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+
+	public FileChannel getChannel () {
+		return channel;
+	}
+
+	/** Returns the position in the file where the next byte will be read. */
+	public long filePosition () {
+		return total + position;
+	}
+
+	/** Sets the position in the file where the next byte will be read. A new window is mapped if the position is outside the
+	 * current window. */
+	public void setFilePosition (long filePosition) {
+		if (filePosition >= total && filePosition <= total + limit)
+			setPosition((int)(filePosition - total));
+		else
+			map(filePosition);
+	}
+
+	/** Throws {@link UnsupportedOperationException} because this input reads from a file channel.
+	 * @deprecated */
+	public void setBuffer (ByteBuffer buffer) {
+		throw new UnsupportedOperationException("This input reads from a file channel.");
+	}
+
+	/** Throws {@link UnsupportedOperationException} because this input reads from a file channel.
+	 * @deprecated */
+	public void setInputStream (InputStream inputStream) {
+		throw new UnsupportedOperationException("This input reads from a file channel.");
+	}
+
+	/** Sets the position to the beginning of the file. */
+	public void reset () {
+		setFilePosition(0);
+	}
+
+	/** Returns a read-only view of the bytes in the current window. The window is not unmapped when a new window is mapped or this
+	 * input is closed, so the view stays valid until it is garbage collected. This keeps the window mapped until then. */
+	public ByteBuffer readByteBufferSlice (int length) throws KryoException {
+		ByteBuffer slice = super.readByteBufferSlice(length);
+		windowSliced = true;
+		return slice;
+	}
+
+	protected int require (int required) throws KryoException {
+		int remaining = limit - position;
+		if (remaining >= required) return remaining;
+		if (required > capacity) throw new KryoException("Buffer too small: capacity: " + capacity + ", required: " + required);
+		if (endMapped()) throw new KryoException("Buffer underflow.");
+		map(total + position);
+		remaining = limit;
+		if (remaining < required) throw new KryoException("Buffer underflow.");
+		return remaining;
+	}
+
+	protected int optional (int optional) throws KryoException {
+		int remaining = limit - position;
+		if (remaining >= optional) return optional;
+		optional = Math.min(optional, capacity);
+		if (!endMapped()) {
+			map(total + position);
+			remaining = limit;
+		}
+		return remaining == 0 ? -1 : Math.min(remaining, optional);
+	}
+
+	protected int fill (ByteBuffer buffer, int offset, int count) throws KryoException {
+		return -1;
+	}
+
+	public int available () throws IOException {
+		return (int)Math.min(channel.size() - filePosition(), Integer.MAX_VALUE);
+	}
+
+	public void skip (int count) throws KryoException {
+		if (count <= limit - position)
+			setPosition(position + count);
+		else
+			setFilePosition(filePosition() + count);
+	}
+
+	/** Unmaps the current window, unless it was sliced, and closes the file channel. */
+	public void close () throws KryoException {
+		if (channel == null) return;
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+		}
+		channel = null;
+		// Replace the window so reading after close fails rather than accessing unmapped memory.
+		ByteBuffer window = byteBuffer;
+		byteBuffer = ByteBuffer.allocate(0);
+		position = 0;
+		limit = 0;
+		if (!windowSliced) dispose(window);
+		windowSliced = false;
+	}
+}
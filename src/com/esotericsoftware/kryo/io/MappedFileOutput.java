@@ -0,0 +1,195 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/** A {@link ByteBufferOutput} that writes a file by memory mapping it, avoiding the copy from a heap buffer to a stream. The file
+ * is mapped in windows of a fixed size, so files larger than the 2GB limit of a single MappedByteBuffer can be written. When
+ * {@link #require(int)} needs more bytes than remain in the current window, a new window is mapped starting at the current
+ * position.
+ * <p>
+ * Mapping a window extends the file to the end of the window. {@link #close()} truncates the file to the number of bytes written.
+ * {@link #position()} is relative to the current window, {@link #total()} and {@link #filePosition()} are the position in the
+ * file.
+ * @author Nathan Sweet */
+public class MappedFileOutput extends ByteBufferOutput {
+	private FileChannel channel;
+	private long end;
+
+	/** Creates a new Output for writing the specified file with a window size of 64MB. The file is created if it does not exist
+	 * and truncated if it does. */
+	public MappedFileOutput (File file) {
+		this(file, MappedFileInput.defaultWindowSize);
+	}
+
+	/** Creates a new Output for writing the specified file. The file is created if it does not exist and truncated if it does.
+	 * @param windowSize The number of bytes mapped at once. */
+	public MappedFileOutput (File file, int windowSize) {
+		this(open(file), windowSize);
+	}
+
+	/** Creates a new Output for writing to the specified channel, starting at the beginning of the file. The channel must be
+	 * readable and writable. The channel is closed when this Output is {@link #close() closed}.
+	 * @param windowSize The number of bytes mapped at once. */
+	public MappedFileOutput (FileChannel channel, int windowSize) {
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		if (windowSize < 1) throw new IllegalArgumentException("windowSize must be > 0: " + windowSize);
+		this.channel = channel;
+		capacity = windowSize;
+		maxCapacity = windowSize;
+		map(0);
+	}
+
+	static private FileChannel open (File file) {
+		if (file == null) throw new IllegalArgumentException("file cannot be null.");
+		try {
+			return FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException ex) {
+			throw new KryoException("Unable to open file: " + file, ex);
+		}
+	}
+
+	/** Maps a new window starting at the specified position in the file. */
+	private void map (long filePosition) {
+		markEnd();
+		try {
+			ByteBuffer newBuffer = channel.map(MapMode.READ_WRITE, filePosition, capacity);
+			if (byteBuffer != null) MappedFileInput.dispose(byteBuffer);
+			byteBuffer = newBuffer;
+		} catch (IOException ex) {
+			throw new KryoException("Unable to map file at position: " + filePosition, ex);
+		}
+		if (TRACE) trace("kryo", "Map window: " + filePosition + ", " + capacity);
+		total = filePosition;
+		position = 0;
+	}
+
+	/** Tracks the largest position written, since the position may be moved backward before the output is closed. */
+	private void markEnd () {
+		end = Math.max(end, total + position);
+	}
+
+	public FileChannel getChannel () {
+		return channel;
+	}
+
+	/** Returns the position in the file where the next byte will be written. */
+	public long filePosition () {
+		return total + position;
+	}
+
+	/** Sets the position in the file where the next byte will be written. A new window is mapped if the position is outside the
+	 * current window.
+	 * @throws KryoException if the output is closed. */
+	public void setFilePosition (long filePosition) {
+		if (channel == null) throw new KryoException("The output is closed.");
+		markEnd();
+		if (filePosition >= total && filePosition <= total + capacity)
+			setPosition((int)(filePosition - total));
+		else
+			map(filePosition);
+	}
+
+	public void setPosition (int position) {
+		markEnd();
+		super.setPosition(position);
+	}
+
+	/** Throws {@link UnsupportedOperationException} because this output writes to a file channel.
+	 * @deprecated */
+	public void setBuffer (ByteBuffer buffer, int maxBufferSize) {
+		throw new UnsupportedOperationException("This output writes to a file channel.");
+	}
+
+	/** Throws {@link UnsupportedOperationException} because this output writes to a file channel.
+	 * @deprecated */
+	public void setOutputStream (OutputStream outputStream) {
+		throw new UnsupportedOperationException("This output writes to a file channel.");
+	}
+
+	/** Sets the position to the beginning of the file and discards the bytes written.
+	 * @throws KryoException if the output is closed. */
+	public void reset () {
+		setFilePosition(0);
+		end = 0;
+	}
+
+	/** Returns false, the position is relative to the current mapped window. */
+	protected boolean canBackpatch () {
+		return false;
+	}
+
+	protected boolean require (int required) throws KryoException {
+		if (capacity - position >= required) return false;
+		if (required > capacity)
+			throw new KryoException("Buffer overflow. Window size: " + capacity + ", required: " + required);
+		map(total + position);
+		return true;
+	}
+
+	/** Does nothing, bytes are written to the file as they are written to the mapped window.
+	 * @see #force() */
+	public void flush () throws KryoException {
+	}
+
+	/** Forces changes made to the current window to be written to the storage device.
+	 * @throws KryoException if the output is closed. */
+	public void force () {
+		if (channel == null) throw new KryoException("The output is closed.");
+		((MappedByteBuffer)byteBuffer).force();
+	}
+
+	/** Unmaps the current window, truncates the file to the largest position written, and closes the file channel. */
+	public void close () throws KryoException {
+		if (channel == null) return;
+		markEnd();
+		long size = end;
+		// Replace the window so writing after close fails rather than accessing unmapped memory.
+		ByteBuffer window = byteBuffer;
+		byteBuffer = ByteBuffer.allocate(0);
+		position = 0;
+		capacity = 0;
+		MappedFileInput.dispose(window);
+		try {
+			channel.truncate(size);
+		} catch (IOException ex) {
+			throw new KryoException("Unable to truncate file: " + size, ex);
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+			}
+			channel = null;
+		}
+	}
+}
@@ -20,6 +20,7 @@
 package com.esotericsoftware.kryo.io;
 
 import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.unsafe.UnsafeUtil;
 import com.esotericsoftware.kryo.util.Pool.Poolable;
 import com.esotericsoftware.kryo.util.Util;
 
@@ -30,6 +31,9 @@ import java.io.OutputStream;
  * efficiently writing primitive types and strings using big endian.
  * @author Nathan Sweet */
 public class Output extends OutputStream implements AutoCloseable, Poolable {
+	/** True if the Latin-1 bytes of compact strings (Java 9+) can be accessed. */
+	static final boolean compactStrings = Util.unsafe && UnsafeUtil.isLatin1BytesAvailable();
+
 	protected int maxCapacity;
 	protected long total;
 	protected int position;
@@ -37,6 +41,12 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 	protected byte[] buffer;
 	protected OutputStream outputStream;
 	protected boolean varEncoding = true;
+	protected BufferAllocator allocator;
+	protected GrowthPolicy growthPolicy = GrowthPolicy.doubling;
+	private int initialCapacity;
+	private boolean ownsBuffer, replaceOnReset;
+	private long bits;
+	private int bitCount;
 
 	/** Creates an uninitialized Output, {@link #setBuffer(byte[], int)} must be called before the Output is used. */
 	public Output () {
@@ -54,12 +64,24 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 	 * @param maxBufferSize If {@link #flush()} does not empty the buffer, the buffer is doubled as needed until it exceeds
 	 *           maxBufferSize and an exception is thrown. Can be -1 for no maximum. */
 	public Output (int bufferSize, int maxBufferSize) {
+		this(bufferSize, maxBufferSize, null);
+	}
+
+	/** Creates a new Output for writing to a byte[] obtained from an allocator. When the buffer grows, the previous buffer is
+	 * returned to the allocator. {@link #close()} returns the buffer and {@link #reset()} replaces a buffer which has grown with one
+	 * of the initial size.
+	 * @param bufferSize The initial size of the buffer.
+	 * @param maxBufferSize If {@link #flush()} does not empty the buffer, the buffer is grown as needed until it exceeds
+	 *           maxBufferSize and an exception is thrown. Can be -1 for no maximum.
+	 * @param allocator May be null to allocate buffers that are not reused. */
+	public Output (int bufferSize, int maxBufferSize, BufferAllocator allocator) {
 		if (bufferSize > maxBufferSize && maxBufferSize != -1) throw new IllegalArgumentException(
 			"bufferSize: " + bufferSize + " cannot be greater than maxBufferSize: " + maxBufferSize);
 		if (maxBufferSize < -1) throw new IllegalArgumentException("maxBufferSize cannot be < -1: " + maxBufferSize);
-		this.capacity = bufferSize;
 		this.maxCapacity = maxBufferSize == -1 ? Util.maxArraySize : maxBufferSize;
-		buffer = new byte[bufferSize];
+		this.allocator = allocator;
+		initialCapacity = bufferSize;
+		allocateBuffer(bufferSize);
 	}
 
 	/** Creates a new Output for writing to a byte[].
@@ -116,6 +138,8 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 		if (buffer.length > maxBufferSize && maxBufferSize != -1) throw new IllegalArgumentException(
 			"buffer has length: " + buffer.length + " cannot be greater than maxBufferSize: " + maxBufferSize);
 		if (maxBufferSize < -1) throw new IllegalArgumentException("maxBufferSize cannot be < -1: " + maxBufferSize);
+		freeBuffer();
+		replaceOnReset = false;
 		this.buffer = buffer;
 		this.maxCapacity = maxBufferSize == -1 ? Util.maxArraySize : maxBufferSize;
 		capacity = buffer.length;
@@ -129,6 +153,45 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 		return buffer;
 	}
 
+	public BufferAllocator getBufferAllocator () {
+		return allocator;
+	}
+
+	/** Sets the allocator used when the buffer grows. The current buffer is not returned to the new allocator.
+	 * @param allocator May be null to allocate buffers that are not reused. */
+	public void setBufferAllocator (BufferAllocator allocator) {
+		ownsBuffer = false;
+		this.allocator = allocator;
+	}
+
+	public GrowthPolicy getGrowthPolicy () {
+		return growthPolicy;
+	}
+
+	/** Sets how the buffer grows when it is full and cannot be flushed. Default is {@link GrowthPolicy#doubling}. */
+	public void setGrowthPolicy (GrowthPolicy growthPolicy) {
+		if (growthPolicy == null) throw new IllegalArgumentException("growthPolicy cannot be null.");
+		this.growthPolicy = growthPolicy;
+	}
+
+	private void allocateBuffer (int size) {
+		if (allocator == null)
+			buffer = new byte[size];
+		else {
+			buffer = allocator.allocate(size);
+			ownsBuffer = true;
+		}
+		capacity = Math.min(buffer.length, maxCapacity);
+	}
+
+	/** If the buffer was obtained from the allocator, it is returned. The buffer must not be used afterward. */
+	private void freeBuffer () {
+		if (ownsBuffer) {
+			ownsBuffer = false;
+			allocator.free(buffer);
+		}
+	}
+
 	/** Allocates and returns a new byte[] containing the bytes currently in the buffer between 0 and {@link #position()}. */
 	public byte[] toBytes () {
 		byte[] newBuffer = new byte[position];
@@ -162,16 +225,31 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 		return total + position;
 	}
 
+	/** Returns true if bytes written stay in the buffer at the same position until {@link #reset()}, so they can be overwritten
+	 * later by {@link #setPosition(int) setting the position}. This is false when there is an {@link #getOutputStream()
+	 * OutputStream}, since bytes may be flushed.
+	 * @see FrameWriter */
+	protected boolean canBackpatch () {
+		return outputStream == null;
+	}
+
 	/** The maximum buffer size, or -1 for no maximum.
 	 * @see Output#Output(int, int) */
 	public int getMaxCapacity () {
 		return maxCapacity;
 	}
 
-	/** Sets the position and total to 0. */
+	/** Sets the position and total to 0. If the buffer was obtained from an allocator and has grown or was returned by
+	 * {@link #close()}, it is replaced with a buffer of the initial size. */
 	public void reset () {
 		position = 0;
 		total = 0;
+		bitCount = 0;
+		if (replaceOnReset) {
+			replaceOnReset = false;
+			freeBuffer();
+			allocateBuffer(initialCapacity);
+		}
 	}
 
 	/** Ensures the buffer is large enough to read the specified number of bytes.
@@ -185,13 +263,16 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 				throw new KryoException("Buffer overflow. Max capacity: " + maxCapacity + ", required: " + required);
 			throw new KryoException("Buffer overflow. Available: " + (maxCapacity - position) + ", required: " + required);
 		}
-		if (capacity == 0) capacity = 16;
-		do {
-			capacity = Math.min(capacity * 2, maxCapacity);
-		} while (capacity - position < required);
-		byte[] newBuffer = new byte[capacity];
+		int newCapacity = Math.max(Math.min(growthPolicy.grow(capacity, position + required), maxCapacity), position + required);
+		byte[] newBuffer = allocator == null ? new byte[newCapacity] : allocator.allocate(newCapacity);
 		System.arraycopy(buffer, 0, newBuffer, 0, position);
+		freeBuffer();
 		buffer = newBuffer;
+		capacity = Math.min(newBuffer.length, maxCapacity);
+		if (allocator != null) {
+			ownsBuffer = true;
+			replaceOnReset = true;
+		}
 		return true;
 	}
 
@@ -211,7 +292,8 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 		position = 0;
 	}
 
-	/** Flushes any buffered bytes and closes the underlying OutputStream, if any. */
+	/** Flushes any buffered bytes and closes the underlying OutputStream, if any. If the buffer was obtained from an allocator, it
+	 * is returned and {@link #reset()} must be called before the Output is used again. */
 	public void close () throws KryoException {
 		flush();
 		if (outputStream != null) {
@@ -220,6 +302,13 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 			} catch (IOException ignored) {
 			}
 		}
+		if (ownsBuffer) {
+			freeBuffer();
+			buffer = new byte[0];
+			capacity = 0;
+			position = 0;
+			replaceOnReset = true;
+		}
 	}
 
 	/** Writes a byte. */
@@ -667,6 +756,13 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 			return;
 		}
 		writeVarIntFlag(true, charCount + 1, true);
+		if (compactStrings) {
+			byte[] latin1 = UnsafeUtil.getLatin1Bytes(value);
+			if (latin1 != null) {
+				writeLatin1(latin1, charCount);
+				return;
+			}
+		}
 		int charIndex = 0;
 		if (capacity - position >= charCount) {
 			// Try to write 7 bit chars.
@@ -717,6 +813,29 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 		buffer[position - 1] |= 0x80; // Bit 8 means end of ASCII.
 	}
 
+	/** Writes the Latin-1 bytes of a compact string as UTF8. Runs of ASCII are copied in bulk. */
+	private void writeLatin1 (byte[] latin1, int charCount) {
+		int charIndex = 0;
+		while (charIndex < charCount) {
+			int required = latin1[charIndex] < 0 ? 2 : 1;
+			if (capacity - position < required) require(required);
+			byte[] buffer = this.buffer;
+			int p = position, start = charIndex;
+			for (int n = Math.min(charCount, charIndex + capacity - p); charIndex < n && latin1[charIndex] >= 0;)
+				charIndex++;
+			System.arraycopy(latin1, start, buffer, p, charIndex - start);
+			p += charIndex - start;
+			// Characters 128-255 are 2 bytes.
+			for (; charIndex < charCount && capacity - p >= 2; charIndex++) {
+				int c = latin1[charIndex] & 0xFF;
+				if (c <= 127) break;
+				buffer[p++] = (byte)(0xC0 | c >> 6);
+				buffer[p++] = (byte)(0x80 | c & 0x3F);
+			}
+			position = p;
+		}
+	}
+
 	private void writeUtf8_slow (String value, int charCount, int charIndex) {
 		for (; charIndex < charCount; charIndex++) {
 			if (position == capacity) require(Math.min(capacity, charCount - charIndex));
@@ -753,6 +872,9 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 
 	// Primitive arrays:
 
+	// Encodings written by writeAdaptiveInts and writeAdaptiveLongs.
+	static final int ADAPTIVE_FIXED = 0, ADAPTIVE_VAR = 1, ADAPTIVE_ZIGZAG = 2, ADAPTIVE_DELTA = 3;
+
 	/** Writes an int array in bulk. This may be more efficient than writing them individually. */
 	public void writeInts (int[] array, int offset, int count) throws KryoException {
 		if (capacity >= count << 2) {
@@ -776,13 +898,37 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 	/** Writes an int array in bulk using fixed or variable length encoding, depending on
 	 * {@link #setVariableLengthEncoding(boolean)}. This may be more efficient than writing them individually. */
 	public void writeInts (int[] array, int offset, int count, boolean optimizePositive) throws KryoException {
-		if (varEncoding) {
-			for (int n = offset + count; offset < n; offset++)
-				writeVarInt(array[offset], optimizePositive);
-		} else
+		if (varEncoding)
+			writeVarInts(array, offset, count, optimizePositive);
+		else
 			writeInts(array, offset, count);
 	}
 
+	/** Writes an int array in bulk using variable length encoding, regardless of {@link #setVariableLengthEncoding(boolean)}.
+	 * This may be more efficient than writing them individually. */
+	public void writeVarInts (int[] array, int offset, int count, boolean optimizePositive) throws KryoException {
+		for (int n = offset + count; offset < n;) {
+			// Write as many values as are sure to fit (5 bytes each) without checking the capacity for each value.
+			int batch = Math.min(n - offset, (capacity - position) / 5);
+			if (batch == 0) {
+				writeVarInt(array[offset++], optimizePositive);
+				continue;
+			}
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int end = offset + batch; offset < end; offset++) {
+				int value = array[offset];
+				if (!optimizePositive) value = (value << 1) ^ (value >> 31);
+				while (value >>> 7 != 0) {
+					buffer[p++] = (byte)((value & 0x7F) | 0x80);
+					value >>>= 7;
+				}
+				buffer[p++] = (byte)value;
+			}
+			position = p;
+		}
+	}
+
 	/** Writes a long array in bulk. This may be more efficient than writing them individually. */
 	public void writeLongs (long[] array, int offset, int count) throws KryoException {
 		if (capacity >= count << 3) {
@@ -810,13 +956,221 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 	/** Writes a long array in bulk using fixed or variable length encoding, depending on
 	 * {@link #setVariableLengthEncoding(boolean)}. This may be more efficient than writing them individually. */
 	public void writeLongs (long[] array, int offset, int count, boolean optimizePositive) throws KryoException {
-		if (varEncoding) {
-			for (int n = offset + count; offset < n; offset++)
-				writeVarLong(array[offset], optimizePositive);
-		} else
+		if (varEncoding)
+			writeVarLongs(array, offset, count, optimizePositive);
+		else
 			writeLongs(array, offset, count);
 	}
 
+	/** Writes a long array in bulk using variable length encoding, regardless of {@link #setVariableLengthEncoding(boolean)}.
+	 * This may be more efficient than writing them individually. */
+	public void writeVarLongs (long[] array, int offset, int count, boolean optimizePositive) throws KryoException {
+		for (int n = offset + count; offset < n;) {
+			// Write as many values as are sure to fit (9 bytes each) without checking the capacity for each value.
+			int batch = Math.min(n - offset, (capacity - position) / 9);
+			if (batch == 0) {
+				writeVarLong(array[offset++], optimizePositive);
+				continue;
+			}
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int end = offset + batch; offset < end; offset++) {
+				long value = array[offset];
+				if (!optimizePositive) value = (value << 1) ^ (value >> 63);
+				// The 9th byte, if reached, holds the remaining 8 bits.
+				for (int i = 0; i < 8 && value >>> 7 != 0; i++) {
+					buffer[p++] = (byte)((value & 0x7F) | 0x80);
+					value >>>= 7;
+				}
+				buffer[p++] = (byte)value;
+			}
+			position = p;
+		}
+	}
+
+	/** Writes an int array as the first value followed by the difference between each value and the previous value. Each is
+	 * written as a variable length int with zigzag encoding, regardless of {@link #setVariableLengthEncoding(boolean)}. This is
+	 * much smaller than {@link #writeInts(int[], int, int, boolean)} for sorted or slowly changing values, such as IDs or
+	 * timestamps. */
+	public void writeDeltaInts (int[] array, int offset, int count) throws KryoException {
+		int previous = 0;
+		for (int n = offset + count; offset < n; offset++) {
+			int value = array[offset];
+			writeVarInt(value - previous, false);
+			previous = value;
+		}
+	}
+
+	/** Writes a long array as the first value followed by the difference between each value and the previous value. Each is
+	 * written as a variable length long with zigzag encoding, regardless of {@link #setVariableLengthEncoding(boolean)}.
+	 * @see #writeDeltaInts(int[], int, int) */
+	public void writeDeltaLongs (long[] array, int offset, int count) throws KryoException {
+		long previous = 0;
+		for (int n = offset + count; offset < n; offset++) {
+			long value = array[offset];
+			writeVarLong(value - previous, false);
+			previous = value;
+		}
+	}
+
+	/** Writes an int array using whichever of fixed length, variable length, zigzag variable length, or
+	 * {@link #writeDeltaInts(int[], int, int) delta} encoding is estimated to be smallest, preceded by one byte for the encoding.
+	 * The estimate examines up to 64 values spread across the array, so the cost of choosing is small even for large arrays. Ties
+	 * favor fixed length, which is fastest. {@link #setVariableLengthEncoding(boolean)} is not used. */
+	public void writeAdaptiveInts (int[] array, int offset, int count) throws KryoException {
+		int step = (count + 63) >>> 6, samples = 0, positive = 0, zigzag = 0, delta = 0;
+		for (int i = offset, n = offset + count; i < n; i += step, samples++) {
+			int value = array[i];
+			positive += varIntLength(value, true);
+			zigzag += varIntLength(value, false);
+			delta += varIntLength(i == offset ? value : value - array[i - 1], false);
+		}
+		int encoding = adaptiveEncoding(samples << 2, positive, zigzag, delta);
+		writeByte(encoding);
+		switch (encoding) {
+		case ADAPTIVE_FIXED:
+			writeInts(array, offset, count);
+			break;
+		case ADAPTIVE_VAR:
+			writeVarInts(array, offset, count, true);
+			break;
+		case ADAPTIVE_ZIGZAG:
+			writeVarInts(array, offset, count, false);
+			break;
+		default:
+			writeDeltaInts(array, offset, count);
+		}
+	}
+
+	/** Writes a long array using whichever of fixed length, variable length, zigzag variable length, or
+	 * {@link #writeDeltaLongs(long[], int, int) delta} encoding is estimated to be smallest, preceded by one byte for the
+	 * encoding.
+	 * @see #writeAdaptiveInts(int[], int, int) */
+	public void writeAdaptiveLongs (long[] array, int offset, int count) throws KryoException {
+		int step = (count + 63) >>> 6, samples = 0, positive = 0, zigzag = 0, delta = 0;
+		for (int i = offset, n = offset + count; i < n; i += step, samples++) {
+			long value = array[i];
+			positive += varLongLength(value, true);
+			zigzag += varLongLength(value, false);
+			delta += varLongLength(i == offset ? value : value - array[i - 1], false);
+		}
+		int encoding = adaptiveEncoding(samples << 3, positive, zigzag, delta);
+		writeByte(encoding);
+		switch (encoding) {
+		case ADAPTIVE_FIXED:
+			writeLongs(array, offset, count);
+			break;
+		case ADAPTIVE_VAR:
+			writeVarLongs(array, offset, count, true);
+			break;
+		case ADAPTIVE_ZIGZAG:
+			writeVarLongs(array, offset, count, false);
+			break;
+		default:
+			writeDeltaLongs(array, offset, count);
+		}
+	}
+
+	static private int adaptiveEncoding (int fixed, int positive, int zigzag, int delta) {
+		int encoding = ADAPTIVE_FIXED, size = fixed;
+		if (positive < size) {
+			encoding = ADAPTIVE_VAR;
+			size = positive;
+		}
+		if (zigzag < size) {
+			encoding = ADAPTIVE_ZIGZAG;
+			size = zigzag;
+		}
+		if (delta < size) encoding = ADAPTIVE_DELTA;
+		return encoding;
+	}
+
+	/** Writes the specified number of low bits of the value, most significant bit first. Bits are written to the buffer a byte at
+	 * a time, so {@link #flushBits()} must be called before writing anything else.
+	 * @param count 0 to 64. */
+	public void writeBits (long value, int count) throws KryoException {
+		if (count > 32) {
+			writeBits(value >>> 32, count - 32);
+			count = 32;
+		}
+		long bits = this.bits << count | value & (1L << count) - 1;
+		int bitCount = this.bitCount + count;
+		while (bitCount >= 8) {
+			bitCount -= 8;
+			writeByte((int)(bits >>> bitCount));
+		}
+		this.bits = bits;
+		this.bitCount = bitCount;
+	}
+
+	/** Writes any bits from {@link #writeBits(long, int)} which do not fill a byte, padded with zero bits to a full byte. */
+	public void flushBits () throws KryoException {
+		if (bitCount > 0) {
+			writeByte((int)(bits << 8 - bitCount));
+			bitCount = 0;
+		}
+	}
+
+	/** Writes a double array by XORing each value with the previous value, as described in the Gorilla paper. Consecutive values
+	 * of a slowly changing series often differ in only a few bits, which are written without the surrounding zero bits: an
+	 * unchanged value takes 1 bit, a change which fits the leading and trailing zeros of the previous change takes 2 bits plus
+	 * the changed bits, otherwise 14 bits plus the changed bits. The result is much smaller than
+	 * {@link #writeDoubles(double[], int, int)} for series such as metrics and is lossless, including NaN values. Random values
+	 * take slightly more than 8 bytes each. */
+	public void writeXorDoubles (double[] array, int offset, int count) throws KryoException {
+		long previous = 0;
+		int leading = -1, trailing = 0;
+		for (int n = offset + count; offset < n; offset++) {
+			long value = Double.doubleToRawLongBits(array[offset]);
+			long xor = value ^ previous;
+			previous = value;
+			if (xor == 0) {
+				writeBits(0, 1);
+				continue;
+			}
+			int newLeading = Long.numberOfLeadingZeros(xor), newTrailing = Long.numberOfTrailingZeros(xor);
+			if (newLeading >= leading && newTrailing >= trailing && leading != -1) {
+				writeBits(0b10, 2);
+				writeBits(xor >>> trailing, 64 - leading - trailing);
+			} else {
+				int length = 64 - newLeading - newTrailing;
+				writeBits(0b11 << 12 | newLeading << 6 | length - 1, 14);
+				writeBits(xor >>> newTrailing, length);
+				leading = newLeading;
+				trailing = newTrailing;
+			}
+		}
+		flushBits();
+	}
+
+	/** Writes a float array by XORing each value with the previous value. A change which does not fit the leading and trailing
+	 * zeros of the previous change takes 12 bits plus the changed bits.
+	 * @see #writeXorDoubles(double[], int, int) */
+	public void writeXorFloats (float[] array, int offset, int count) throws KryoException {
+		int previous = 0, leading = -1, trailing = 0;
+		for (int n = offset + count; offset < n; offset++) {
+			int value = Float.floatToRawIntBits(array[offset]);
+			int xor = value ^ previous;
+			previous = value;
+			if (xor == 0) {
+				writeBits(0, 1);
+				continue;
+			}
+			int newLeading = Integer.numberOfLeadingZeros(xor), newTrailing = Integer.numberOfTrailingZeros(xor);
+			if (newLeading >= leading && newTrailing >= trailing && leading != -1) {
+				writeBits(0b10, 2);
+				writeBits(xor >>> trailing, 32 - leading - trailing);
+			} else {
+				int length = 32 - newLeading - newTrailing;
+				writeBits(0b11 << 10 | newLeading << 5 | length - 1, 12);
+				writeBits(xor >>> newTrailing, length);
+				leading = newLeading;
+				trailing = newTrailing;
+			}
+		}
+		flushBits();
+	}
+
 	/** Writes a float array in bulk. This may be more efficient than writing them individually. */
 	public void writeFloats (float[] array, int offset, int count) throws KryoException {
 		if (capacity >= count << 2) {
@@ -912,6 +1266,47 @@ public class Output extends OutputStream implements AutoCloseable, Poolable {
 		}
 	}
 
+	/** Writes a boolean array with 8 booleans per byte, using 1/8th the bytes of {@link #writeBooleans(boolean[], int, int)}. The
+	 * first boolean is the lowest bit of the first byte. Unused bits in the last byte are 0. */
+	public void writePackedBooleans (boolean[] array, int offset, int count) throws KryoException {
+		int byteCount = packedBytes(count);
+		if (capacity >= byteCount) {
+			require(byteCount);
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int n = offset + count; offset < n; offset += 8)
+				buffer[p++] = (byte)pack(array, offset, Math.min(n - offset, 8));
+			position = p;
+		} else {
+			for (int n = offset + count; offset < n; offset += 8)
+				writeByte(pack(array, offset, Math.min(n - offset, 8)));
+		}
+	}
+
+	/** Returns the number of bytes used by {@link #writePackedBooleans(boolean[], int, int)} for the specified number of
+	 * booleans. */
+	static public int packedBytes (int count) {
+		return (count >>> 3) + ((count & 7) != 0 ? 1 : 0);
+	}
+
+	/** Returns up to 8 booleans as the bits of a byte, the first boolean in the lowest bit. */
+	static int pack (boolean[] array, int offset, int count) {
+		if (count == 8) {
+			return (array[offset] ? 1 : 0) //
+				| (array[offset + 1] ? 2 : 0) //
+				| (array[offset + 2] ? 4 : 0) //
+				| (array[offset + 3] ? 8 : 0) //
+				| (array[offset + 4] ? 16 : 0) //
+				| (array[offset + 5] ? 32 : 0) //
+				| (array[offset + 6] ? 64 : 0) //
+				| (array[offset + 7] ? 128 : 0);
+		}
+		int bits = 0;
+		for (int i = 0; i < count; i++)
+			if (array[offset + i]) bits |= 1 << i;
+		return bits;
+	}
+
 	//
 
 	/** Returns the number of bytes that would be written with {@link #writeVarInt(int, boolean)}. */
@@ -62,7 +62,7 @@ public class OutputChunked extends Output {
 		super.flush();
 	}
 
-	private void writeChunkSize () throws IOException {
+	void writeChunkSize () throws IOException {
 		int size = position();
 		if (TRACE) trace("kryo", "Write chunk: " + size + pos(size));
 		OutputStream outputStream = getOutputStream();
@@ -0,0 +1,91 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.util.Pool;
+
+/** A thread safe {@link BufferAllocator} which keeps freed buffers in a {@link Pool} for each size class. Sizes are rounded up to
+ * a power of two between the minimum and maximum size. Larger buffers are allocated without being pooled.
+ * <p>
+ * The allocator can be shared by many outputs and inputs on different threads.
+ * @author Nathan Sweet */
+public class PooledBufferAllocator implements BufferAllocator {
+	private final int minShift, maxSize;
+	private final Pool<byte[]>[] pools;
+
+	/** Creates an allocator for sizes from 256 to 1048576 which keeps up to 64 free buffers of each size. */
+	public PooledBufferAllocator () {
+		this(256, 1 << 20, 64);
+	}
+
+	/** @param minSize The smallest buffer size, rounded up to a power of two.
+	 * @param maxSize The largest buffer size which is pooled, rounded up to a power of two.
+	 * @param maxFree The maximum number of free buffers kept for each size. */
+	public PooledBufferAllocator (int minSize, int maxSize, int maxFree) {
+		if (minSize < 1) throw new IllegalArgumentException("minSize must be > 0: " + minSize);
+		if (maxSize < minSize) throw new IllegalArgumentException("maxSize cannot be < minSize: " + maxSize);
+		if (maxSize > 1 << 30) throw new IllegalArgumentException("maxSize is too large: " + maxSize);
+		minShift = shift(minSize);
+		int maxShift = shift(maxSize);
+		this.maxSize = 1 << maxShift;
+		pools = new Pool[maxShift - minShift + 1];
+		for (int i = 0; i < pools.length; i++) {
+			final int size = 1 << minShift + i;
+			pools[i] = new Pool<byte[]>(true, false, maxFree) {
+				protected byte[] create () {
+					return new byte[size];
+				}
+			};
+		}
+	}
+
+	public byte[] allocate (int size) {
+		if (size > maxSize) return new byte[size];
+		return pools[index(size)].obtain();
+	}
+
+	/** Keeps the buffer if its length is one of the pooled sizes and the pool for that size is not full. */
+	public void free (byte[] buffer) {
+		int length = buffer.length;
+		if (length > maxSize || length < 1 << minShift || (length & length - 1) != 0) return;
+		pools[index(length)].free(buffer);
+	}
+
+	/** Returns the number of free buffers that will be used for the specified size. */
+	public int getFree (int size) {
+		if (size > maxSize) return 0;
+		return pools[index(size)].getFree();
+	}
+
+	/** Removes all free buffers. */
+	public void clear () {
+		for (Pool pool : pools)
+			pool.clear();
+	}
+
+	private int index (int size) {
+		return Math.max(shift(size) - minShift, 0);
+	}
+
+	/** Returns the exponent of the smallest power of two that is >= size. */
+	static private int shift (int size) {
+		return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+}
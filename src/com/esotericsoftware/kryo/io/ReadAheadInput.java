@@ -0,0 +1,244 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/** An {@link Input} that reads from an InputStream on another thread, so the next bytes are read while the current bytes are
+ * being deserialized.
+ * <p>
+ * A reader running on an {@link Executor} fills blocks from the InputStream, up to the specified number of blocks ahead. When
+ * the buffer needs more bytes, {@link #fill(byte[], int, int)} copies them from the next block instead of waiting for the
+ * InputStream. The buffer itself is never replaced, as code reading from the buffer may keep a reference to it across a fill.
+ * <p>
+ * The reader fills each block completely unless the end of the stream is reached, so this is intended for streams which are
+ * read to the end, such as files or decompressing streams, rather than for interactive streams. If the InputStream throws an
+ * exception, including a RuntimeException or Error, it is thrown wrapped in a KryoException by the method that needs the bytes
+ * which could not be read.
+ * <p>
+ * A ReadAheadInput is not thread safe, only the reader uses another thread.
+ * @author Nathan Sweet */
+public class ReadAheadInput extends Input {
+	private final int blockCount;
+	private Executor executor;
+	private final boolean ownsExecutor;
+	private Reader reader;
+	private byte[] block;
+	private int blockPosition, blockLimit;
+
+	/** Creates a new Input with a buffer size of 65536 which reads two blocks ahead using a thread owned by this input. */
+	public ReadAheadInput (InputStream inputStream) {
+		this(inputStream, 65536, 2, null);
+	}
+
+	/** Creates a new Input for reading from an InputStream.
+	 * @param bufferSize The size of the buffer and each block.
+	 * @param blockCount The maximum number of blocks, at least 1. The buffer is filled from one block while the reader fills the
+	 *           others.
+	 * @param executor Runs the reader, which occupies a thread until the end of the stream or until the InputStream is replaced or
+	 *           closed. If null, a daemon thread owned by this input is used and is stopped by {@link #close()}. */
+	public ReadAheadInput (InputStream inputStream, int bufferSize, int blockCount, Executor executor) {
+		super(inputStream, bufferSize);
+		if (blockCount < 1) throw new IllegalArgumentException("blockCount must be >= 1: " + blockCount);
+		this.blockCount = blockCount;
+		this.executor = executor;
+		ownsExecutor = executor == null;
+	}
+
+	public int getBlockCount () {
+		return blockCount;
+	}
+
+	/** Sets a new InputStream. The position and total are reset, discarding any buffered bytes. The reader for the previous
+	 * InputStream stops after its current read returns.
+	 * @param inputStream May be null. */
+	public void setInputStream (InputStream inputStream) {
+		stopReader();
+		super.setInputStream(inputStream);
+	}
+
+	public void setBuffer (byte[] bytes, int offset, int count) {
+		stopReader();
+		super.setBuffer(bytes, offset, count);
+	}
+
+	private void stopReader () {
+		if (reader != null) {
+			reader.stop();
+			reader = null;
+		}
+		block = null;
+	}
+
+	/** Copies bytes from the next block. */
+	protected int fill (byte[] buffer, int offset, int count) throws KryoException {
+		if (!nextBlock()) return -1;
+		count = Math.min(count, blockLimit - blockPosition);
+		System.arraycopy(block, blockPosition, buffer, offset, count);
+		blockPosition += count;
+		return count;
+	}
+
+	/** Ensures {@link #block} has bytes, waiting for the reader if necessary.
+	 * @return false if there are no more bytes. */
+	private boolean nextBlock () throws KryoException {
+		if (block != null) {
+			if (blockPosition < blockLimit) return true;
+			reader.free.offer(block);
+			block = null;
+		}
+		if (reader == null) {
+			if (inputStream == null) return false;
+			reader = new Reader(inputStream, Math.max(capacity, 1), blockCount);
+			try {
+				executor().execute(reader);
+			} catch (RuntimeException ex) {
+				reader = null;
+				throw new KryoException("Unable to start the reader.", ex);
+			}
+		}
+		Reader reader = this.reader;
+		while (true) {
+			if (reader.error != null) throw new KryoException(reader.error);
+			if (reader.end) return false;
+			Block next;
+			try {
+				next = reader.ready.take();
+			} catch (InterruptedException ex) {
+				throw new KryoException(ex);
+			}
+			if (next.error != null)
+				reader.error = next.error;
+			else if (next.bytes == null)
+				reader.end = true;
+			else if (next.count > 0) {
+				block = next.bytes;
+				blockPosition = 0;
+				blockLimit = next.count;
+				return true;
+			} else
+				reader.free.offer(next.bytes);
+		}
+	}
+
+	private Executor executor () {
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread (Runnable runnable) {
+					Thread thread = new Thread(runnable, "ReadAheadInput");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	public int available () throws IOException {
+		return limit - position + (block != null ? blockLimit - blockPosition : 0);
+	}
+
+	/** Stops the reader and closes the underlying InputStream, if any. If the executor is owned by this input, its thread is
+	 * stopped. A new thread is started if the input is used again. */
+	public void close () throws KryoException {
+		stopReader();
+		super.close();
+		if (ownsExecutor && executor != null) {
+			((ExecutorService)executor).shutdown();
+			executor = null;
+		}
+	}
+
+	/** Reads blocks from an InputStream until the end of the stream or until stopped. */
+	static private final class Reader implements Runnable {
+		final InputStream inputStream;
+		final int blockSize, blockCount;
+		final LinkedBlockingQueue<Block> ready = new LinkedBlockingQueue();
+		final LinkedBlockingQueue<byte[]> free = new LinkedBlockingQueue();
+		volatile boolean stopped;
+		int allocated;
+
+		// Only used by the input's thread.
+		boolean end;
+		Throwable error;
+
+		Reader (InputStream inputStream, int blockSize, int blockCount) {
+			this.inputStream = inputStream;
+			this.blockSize = blockSize;
+			this.blockCount = blockCount;
+		}
+
+		public void run () {
+			try {
+				while (!stopped) {
+					byte[] bytes = free.poll();
+					if (bytes == null) {
+						if (allocated < blockCount) {
+							allocated++;
+							bytes = new byte[blockSize];
+						} else
+							bytes = free.take();
+					}
+					if (stopped) return;
+					int count = 0;
+					while (count < bytes.length) {
+						int read = inputStream.read(bytes, count, bytes.length - count);
+						if (read == -1) {
+							ready.put(new Block(bytes, count, null));
+							ready.put(new Block(null, 0, null));
+							return;
+						}
+						count += read;
+					}
+					ready.put(new Block(bytes, count, null));
+				}
+			} catch (InterruptedException ignored) {
+			} catch (Throwable ex) {
+				// Any exception must be posted, otherwise the input would wait for a block forever.
+				ready.offer(new Block(null, 0, ex));
+			}
+		}
+
+		void stop () {
+			stopped = true;
+			free.offer(new byte[0]); // Wakes the reader if it is waiting for a block.
+		}
+	}
+
+	static private final class Block {
+		final byte[] bytes;
+		final int count;
+		final Throwable error;
+
+		Block (byte[] bytes, int count, Throwable error) {
+			this.bytes = bytes;
+			this.count = count;
+			this.error = error;
+		}
+	}
+}
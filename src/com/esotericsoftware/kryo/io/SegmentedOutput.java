@@ -0,0 +1,261 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.util.Pool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/** An {@link Output} that grows by appending fixed size segments obtained from a {@link SegmentPool} rather than by allocating a
+ * larger byte[] and copying. The segments can be written to a {@link GatheringByteChannel} or an OutputStream without being
+ * combined. {@link #toBytes()} is the only method that copies all the bytes.
+ * <p>
+ * {@link #position()} and {@link #setPosition(int)} are relative to the current segment, {@link #total()} is the number of bytes
+ * in all segments. When a value does not fit in the rest of the current segment, the remaining bytes of the segment are left
+ * unused. The segment size must be at least as large as the largest number of bytes required at once, eg 9 bytes for a variable
+ * length long.
+ * <p>
+ * Note that the byte[] {@link #getBuffer() buffer} is not used. Code taking an Output and expecting the byte[] to hold all the
+ * bytes written may not work correctly.
+ * @author Nathan Sweet */
+public class SegmentedOutput extends Output {
+	/** The current segment after {@link #release()}, so writing bytes does not need to check for a null buffer. */
+	static private final byte[] released = new byte[0];
+
+	private final Pool<byte[]> segmentPool;
+	private byte[][] segments = new byte[8][];
+	private int[] segmentLengths = new int[8];
+	private int segmentCount;
+
+	/** Creates a new Output which obtains 8192 byte segments from a pool which is not thread safe. */
+	public SegmentedOutput () {
+		this(new SegmentPool(8192, false));
+	}
+
+	/** Creates a new Output which obtains segments of the specified size from a pool which is not thread safe. */
+	public SegmentedOutput (int segmentSize) {
+		this(new SegmentPool(segmentSize, false));
+	}
+
+	/** Creates a new Output which obtains segments from the specified pool. The pool may be shared with other outputs if it is
+	 * thread safe or the outputs are used by the same thread. */
+	public SegmentedOutput (Pool<byte[]> segmentPool) {
+		if (segmentPool == null) throw new IllegalArgumentException("segmentPool cannot be null.");
+		this.segmentPool = segmentPool;
+		buffer = segmentPool.obtain();
+		capacity = buffer.length;
+		maxCapacity = capacity;
+	}
+
+	public Pool<byte[]> getSegmentPool () {
+		return segmentPool;
+	}
+
+	/** Throws {@link UnsupportedOperationException} because this output uses segments, not a single byte[].
+	 * @deprecated
+	 * @see #toByteBuffers() */
+	public byte[] getBuffer () {
+		throw new UnsupportedOperationException("This output uses segments, see #toByteBuffers().");
+	}
+
+	/** Throws {@link UnsupportedOperationException} because this output uses segments, not a single byte[].
+	 * @deprecated */
+	public void setBuffer (byte[] buffer, int maxBufferSize) {
+		throw new UnsupportedOperationException("This output uses segments.");
+	}
+
+	/** Returns the number of segments which hold data, including the current segment if it is not empty. */
+	public int getSegmentCount () {
+		return position > 0 ? segmentCount + 1 : segmentCount;
+	}
+
+	/** Returns a segment. The segment is returned to the pool when the output is {@link #reset()} or {@link #release() released}.
+	 * @see #getSegmentLength(int) */
+	public byte[] getSegment (int index) {
+		if (index == segmentCount) return buffer;
+		return segments[index];
+	}
+
+	/** Returns the number of bytes used in a segment. */
+	public int getSegmentLength (int index) {
+		if (index == segmentCount) return position;
+		return segmentLengths[index];
+	}
+
+	/** Ends the current segment and obtains a new one from the pool. */
+	private void nextSegment () {
+		if (buffer != released) {
+			if (segmentCount == segments.length) {
+				byte[][] newSegments = new byte[segmentCount << 1][];
+				System.arraycopy(segments, 0, newSegments, 0, segmentCount);
+				segments = newSegments;
+				int[] newLengths = new int[segmentCount << 1];
+				System.arraycopy(segmentLengths, 0, newLengths, 0, segmentCount);
+				segmentLengths = newLengths;
+			}
+			segments[segmentCount] = buffer;
+			segmentLengths[segmentCount++] = position;
+			total += position;
+		}
+		buffer = segmentPool.obtain();
+		capacity = buffer.length;
+		maxCapacity = capacity;
+		position = 0;
+	}
+
+	/** Returns all segments to the pool except the current segment. */
+	private void freeSegments () {
+		for (int i = 0, n = segmentCount; i < n; i++) {
+			segmentPool.free(segments[i]);
+			segments[i] = null;
+		}
+		segmentCount = 0;
+	}
+
+	/** Sets the position and total to zero and returns all segments except the current segment to the pool. */
+	public void reset () {
+		super.reset();
+		freeSegments();
+	}
+
+	/** Returns all segments, including the current segment, to the pool. The output can still be used afterward, a new segment is
+	 * obtained when needed. */
+	public void release () {
+		reset();
+		if (buffer != released) {
+			segmentPool.free(buffer);
+			buffer = released;
+			capacity = 0;
+		}
+	}
+
+	/** Returns false, the position is relative to the current segment. */
+	protected boolean canBackpatch () {
+		return false;
+	}
+
+	protected boolean require (int required) throws KryoException {
+		if (capacity - position >= required) return false;
+		if (buffer != released && required > capacity)
+			throw new KryoException("Buffer overflow. Segment size: " + capacity + ", required: " + required);
+		nextSegment();
+		if (required > capacity)
+			throw new KryoException("Buffer overflow. Segment size: " + capacity + ", required: " + required);
+		return true;
+	}
+
+	/** Returns ByteBuffers which wrap the segments holding data. The bytes are not copied. */
+	public ByteBuffer[] toByteBuffers () {
+		int count = getSegmentCount();
+		ByteBuffer[] buffers = new ByteBuffer[count];
+		for (int i = 0; i < count; i++)
+			buffers[i] = ByteBuffer.wrap(getSegment(i), 0, getSegmentLength(i));
+		return buffers;
+	}
+
+	/** Allocates and returns a new byte[] containing all the bytes in the segments. Bytes which were {@link #flush() flushed} are
+	 * not included. */
+	public byte[] toBytes () {
+		int count = getSegmentCount(), size = 0;
+		for (int i = 0; i < count; i++)
+			size += getSegmentLength(i);
+		byte[] bytes = new byte[size];
+		int offset = 0;
+		for (int i = 0; i < count; i++) {
+			int length = getSegmentLength(i);
+			System.arraycopy(getSegment(i), 0, bytes, offset, length);
+			offset += length;
+		}
+		return bytes;
+	}
+
+	/** Writes the bytes in all segments to the channel using a single gathering write when possible. The segments are not
+	 * returned to the pool.
+	 * @return The number of bytes written. */
+	public long writeTo (GatheringByteChannel channel) throws KryoException {
+		ByteBuffer[] buffers = toByteBuffers();
+		long written = 0;
+		try {
+			for (int i = 0, n = buffers.length; i < n;) {
+				written += channel.write(buffers, i, n - i);
+				while (i < n && !buffers[i].hasRemaining())
+					i++;
+			}
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		return written;
+	}
+
+	/** Writes the bytes in all segments to the stream. The segments are not returned to the pool. */
+	public void writeTo (OutputStream outputStream) throws KryoException {
+		try {
+			for (int i = 0, n = getSegmentCount(); i < n; i++)
+				outputStream.write(getSegment(i), 0, getSegmentLength(i));
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+
+	/** Writes the bytes in all segments to the {@link #getOutputStream() OutputStream}, if any, and returns all segments except the
+	 * current segment to the pool. */
+	public void flush () throws KryoException {
+		if (outputStream == null) return;
+		writeTo(outputStream);
+		try {
+			outputStream.flush();
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		total += position;
+		position = 0;
+		freeSegments();
+	}
+
+	/** A pool of byte[] segments of the same size.
+	 * @author Nathan Sweet */
+	static public class SegmentPool extends Pool<byte[]> {
+		private final int segmentSize;
+
+		/** Creates a pool with no maximum. */
+		public SegmentPool (int segmentSize, boolean threadSafe) {
+			this(segmentSize, threadSafe, Integer.MAX_VALUE);
+		}
+
+		/** @param maximumCapacity The maximum number of free segments to store in this pool. */
+		public SegmentPool (int segmentSize, boolean threadSafe, int maximumCapacity) {
+			super(threadSafe, false, maximumCapacity);
+			if (segmentSize < 1) throw new IllegalArgumentException("segmentSize must be > 0: " + segmentSize);
+			this.segmentSize = segmentSize;
+		}
+
+		public int getSegmentSize () {
+			return segmentSize;
+		}
+
+		protected byte[] create () {
+			return new byte[segmentSize];
+		}
+	}
+}
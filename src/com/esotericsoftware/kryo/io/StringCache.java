@@ -0,0 +1,166 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** A bounded cache of strings keyed by their encoded bytes, used by {@link Input#readString()} to return the same String instance
+ * for repeated values instead of allocating a new one each time. The wire format is not affected.
+ * <p>
+ * The cache is direct mapped: each entry is stored in a slot chosen by the hash of its bytes, replacing any previous entry in that
+ * slot. Lookups and stores are lock-free, so a single cache can be shared by many inputs on different threads. Only strings that
+ * are completely in the input's buffer and whose encoded length is at most {@link #getMaxLength()} bytes are cached.
+ * @author Nathan Sweet */
+public class StringCache {
+	private final AtomicReferenceArray<Entry> entries;
+	private final int mask, maxLength;
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+	/** Creates a cache with 4096 slots which caches strings up to 64 bytes. */
+	public StringCache () {
+		this(4096, 64);
+	}
+
+	/** @param capacity The number of slots, rounded up to the next power of two.
+	 * @param maxLength The maximum number of encoded bytes for a string to be cached. */
+	public StringCache (int capacity, int maxLength) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+		if (capacity > 1 << 30) throw new IllegalArgumentException("capacity is too large: " + capacity);
+		if (maxLength < 1) throw new IllegalArgumentException("maxLength must be > 0: " + maxLength);
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) size <<= 1;
+		entries = new AtomicReferenceArray(size);
+		mask = size - 1;
+		this.maxLength = maxLength;
+	}
+
+	/** Returns the cached string for the bytes, or null. The hit or miss is counted. */
+	public String get (byte[] bytes, int offset, int length) {
+		int hash = hash(bytes, offset, length);
+		Entry entry = entries.get(hash & mask);
+		if (entry != null && entry.hash == hash && entry.bytes.length == length) {
+			byte[] entryBytes = entry.bytes;
+			int i = 0;
+			while (i < length && entryBytes[i] == bytes[offset + i])
+				i++;
+			if (i == length) {
+				hits.increment();
+				return entry.value;
+			}
+		}
+		misses.increment();
+		return null;
+	}
+
+	/** Returns the cached string for the bytes from the buffer's absolute offset, or null. The buffer's position is not changed.
+	 * The hit or miss is counted. */
+	public String get (ByteBuffer buffer, int offset, int length) {
+		int hash = hash(buffer, offset, length);
+		Entry entry = entries.get(hash & mask);
+		if (entry != null && entry.hash == hash && entry.bytes.length == length) {
+			byte[] entryBytes = entry.bytes;
+			int i = 0;
+			while (i < length && entryBytes[i] == buffer.get(offset + i))
+				i++;
+			if (i == length) {
+				hits.increment();
+				return entry.value;
+			}
+		}
+		misses.increment();
+		return null;
+	}
+
+	/** Stores the string for the bytes, replacing any entry in the same slot. Does nothing if length is more than
+	 * {@link #getMaxLength()}. */
+	public void put (byte[] bytes, int offset, int length, String value) {
+		if (length > maxLength) return;
+		byte[] entryBytes = new byte[length];
+		System.arraycopy(bytes, offset, entryBytes, 0, length);
+		int hash = hash(bytes, offset, length);
+		entries.lazySet(hash & mask, new Entry(hash, entryBytes, value));
+	}
+
+	/** Stores the string for the bytes from the buffer's absolute offset, replacing any entry in the same slot. The buffer's
+	 * position is not changed. Does nothing if length is more than {@link #getMaxLength()}. */
+	public void put (ByteBuffer buffer, int offset, int length, String value) {
+		if (length > maxLength) return;
+		byte[] entryBytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			entryBytes[i] = buffer.get(offset + i);
+		int hash = hash(entryBytes, 0, length);
+		entries.lazySet(hash & mask, new Entry(hash, entryBytes, value));
+	}
+
+	/** The maximum number of encoded bytes for a string to be cached. */
+	public int getMaxLength () {
+		return maxLength;
+	}
+
+	/** Returns the number of lookups which found a cached string. */
+	public long getHits () {
+		return hits.sum();
+	}
+
+	/** Returns the number of lookups which did not find a cached string. */
+	public long getMisses () {
+		return misses.sum();
+	}
+
+	/** Sets the hit and miss counts to zero. */
+	public void resetStats () {
+		hits.reset();
+		misses.reset();
+	}
+
+	/** Removes all cached strings. */
+	public void clear () {
+		for (int i = 0, n = entries.length(); i < n; i++)
+			entries.lazySet(i, null);
+	}
+
+	static private int hash (byte[] bytes, int offset, int length) {
+		int h = 1;
+		for (int i = offset, n = offset + length; i < n; i++)
+			h = 31 * h + bytes[i];
+		return h ^ h >>> 16;
+	}
+
+	static private int hash (ByteBuffer buffer, int offset, int length) {
+		int h = 1;
+		for (int i = offset, n = offset + length; i < n; i++)
+			h = 31 * h + buffer.get(i);
+		return h ^ h >>> 16;
+	}
+
+	static private final class Entry {
+		final int hash;
+		final byte[] bytes;
+		final String value;
+
+		Entry (int hash, byte[] bytes, String value) {
+			this.hash = hash;
+			this.bytes = bytes;
+			this.value = value;
+		}
+	}
+}
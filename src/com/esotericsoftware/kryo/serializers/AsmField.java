@@ -22,6 +22,7 @@ package com.esotericsoftware.kryo.serializers;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CachedFields.BooleanField;
 import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
 import com.esotericsoftware.kryo.util.Generics.GenericType;
 import com.esotericsoftware.reflectasm.FieldAccess;
@@ -134,11 +135,19 @@ class AsmField extends ReflectField {
 		}
 	}
 
-	final static class BooleanAsmField extends CachedField {
+	final static class BooleanAsmField extends CachedField implements BooleanField {
 		public BooleanAsmField (Field field) {
 			super(field);
 		}
 
+		public boolean getBoolean (Object object) {
+			return access.getBoolean(object, accessIndex);
+		}
+
+		public void setBoolean (Object object, boolean value) {
+			access.setBoolean(object, accessIndex, value);
+		}
+
 		public void write (Output output, Object object) {
 			output.writeBoolean(access.getBoolean(object, accessIndex));
 		}
@@ -26,6 +26,8 @@ import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.SerializerFactory;
 import com.esotericsoftware.kryo.SerializerFactory.ReflectionSerializerFactory;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.AsmField.BooleanAsmField;
 import com.esotericsoftware.kryo.serializers.AsmField.ByteAsmField;
 import com.esotericsoftware.kryo.serializers.AsmField.CharAsmField;
@@ -58,9 +60,11 @@ import com.esotericsoftware.kryo.serializers.UnsafeField.LongUnsafeField;
 import com.esotericsoftware.kryo.serializers.UnsafeField.ShortUnsafeField;
 import com.esotericsoftware.kryo.serializers.UnsafeField.StringUnsafeField;
 import com.esotericsoftware.kryo.util.Generics.GenericType;
+import com.esotericsoftware.kryo.util.IdentityMap;
 import com.esotericsoftware.reflectasm.FieldAccess;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.security.AccessControlException;
 import java.util.ArrayList;
@@ -73,9 +77,29 @@ import java.util.Map;
 class CachedFields implements Comparator<CachedField> {
 	static final CachedField[] emptyCachedFields = new CachedField[0];
 
+	/** Creates fields that use VarHandles instead of Unsafe, ReflectASM, or reflection. Null unless the system property
+	 * "kryo.varHandle" is "true" and Java 9+ is used. VarHandleField is in the Java 9 classes of the multi-release jar, so it is
+	 * found reflectively. */
+	static private final Method newVarHandleField;
+	static {
+		Method method = null;
+		if ("true".equals(System.getProperty("kryo.varHandle"))) {
+			try {
+				method = Class.forName("com.esotericsoftware.kryo.serializers.VarHandleField", true, CachedFields.class.getClassLoader())
+					.getDeclaredMethod("newField", Field.class, Class.class, FieldSerializer.class, GenericType.class, boolean.class);
+			} catch (Throwable ex) {
+				if (TRACE) trace("kryo", "VarHandle fields are unavailable.", ex);
+			}
+		}
+		newVarHandleField = method;
+	}
+
 	private final FieldSerializer serializer;
 	CachedField[] fields = new CachedField[0];
 	CachedField[] copyFields = new CachedField[0];
+	/** The fields written and read by {@link FieldSerializer}, which are {@link #fields} with consecutive boolean fields combined
+	 * if {@link FieldSerializerConfig#setPackBooleans(boolean)} is true. */
+	CachedField[] packedFields = fields;
 	private final ArrayList<Field> removedFields = new ArrayList();
 	private Object access;
 
@@ -83,10 +107,39 @@ class CachedFields implements Comparator<CachedField> {
 		this.serializer = serializer;
 	}
 
+	/** Copies the cached fields of another serializer without using reflection.
+	 * @see FieldSerializer#copyForKryo(com.esotericsoftware.kryo.Kryo) */
+	CachedFields (FieldSerializer serializer, CachedFields original) {
+		this.serializer = serializer;
+		IdentityMap<CachedField, CachedField> copies = new IdentityMap();
+		fields = copy(original.fields, copies);
+		copyFields = copy(original.copyFields, copies);
+		removedFields.addAll(original.removedFields);
+		access = original.access;
+		packBooleans();
+	}
+
+	private CachedField[] copy (CachedField[] fields, IdentityMap<CachedField, CachedField> copies) {
+		CachedField[] newFields = new CachedField[fields.length];
+		for (int i = 0, n = fields.length; i < n; i++) {
+			CachedField field = fields[i], copy = copies.get(field);
+			if (copy == null) {
+				copy = field.copy();
+				if (copy instanceof ReflectField) ((ReflectField)copy).fieldSerializer = serializer;
+				if (copy.serializer instanceof FieldSerializer)
+					copy.serializer = ((FieldSerializer)copy.serializer).copyForKryo(serializer.kryo);
+				copies.put(field, copy);
+			}
+			newFields[i] = copy;
+		}
+		return newFields;
+	}
+
 	public void rebuild () {
 		if (serializer.type.isInterface()) { // No fields to serialize.
 			fields = emptyCachedFields;
 			copyFields = emptyCachedFields;
+			packedFields = emptyCachedFields;
 			serializer.initializeCachedFields();
 			return;
 		}
@@ -108,9 +161,31 @@ class CachedFields implements Comparator<CachedField> {
 		newCopyFields.toArray(copyFields);
 		Arrays.sort(copyFields, this);
 
+		packBooleans();
 		serializer.initializeCachedFields();
 	}
 
+	/** Sets {@link #packedFields}, replacing each run of consecutive boolean fields with a single field. */
+	private void packBooleans () {
+		if (!serializer.config.packBooleans) {
+			packedFields = fields;
+			return;
+		}
+		ArrayList<CachedField> newFields = new ArrayList(fields.length);
+		for (int i = 0, n = fields.length; i < n;) {
+			int start = i;
+			while (i < n && fields[i] instanceof BooleanField)
+				i++;
+			if (i - start > 1)
+				newFields.add(new PackedBooleanFields(Arrays.copyOfRange(fields, start, i)));
+			else if (i == start)
+				newFields.add(fields[i++]);
+			else
+				newFields.add(fields[start]);
+		}
+		packedFields = newFields.toArray(new CachedField[newFields.size()]);
+	}
+
 	private void addField (Field field, boolean asm, ArrayList<CachedField> fields, ArrayList<CachedField> copyFields) {
 		int modifiers = field.getModifiers();
 		if (Modifier.isStatic(modifiers)) return;
@@ -151,15 +226,18 @@ class CachedFields implements Comparator<CachedField> {
 			}
 		}
 
-		CachedField cachedField;
-		if (unsafe)
-			cachedField = newUnsafeField(field, fieldClass, genericType);
-		else if (accessIndex != -1) {
-			cachedField = newAsmField(field, fieldClass, genericType);
-			cachedField.access = (FieldAccess)access;
-			cachedField.accessIndex = accessIndex;
-		} else
-			cachedField = newReflectField(field, fieldClass, genericType);
+		// Final fields and fields a VarHandle can't access use the other field types.
+		CachedField cachedField = newVarHandleField == null ? null : newVarHandleField(field, fieldClass, genericType);
+		if (cachedField == null) {
+			if (unsafe)
+				cachedField = newUnsafeField(field, fieldClass, genericType);
+			else if (accessIndex != -1) {
+				cachedField = newAsmField(field, fieldClass, genericType);
+				cachedField.access = (FieldAccess)access;
+				cachedField.accessIndex = accessIndex;
+			} else
+				cachedField = newReflectField(field, fieldClass, genericType);
+		}
 
 		cachedField.varEncoding = config.varEncoding;
 		if (config.extendedFieldNames)
@@ -194,6 +272,18 @@ class CachedFields implements Comparator<CachedField> {
 		}
 	}
 
+	/** @return May be null. */
+	private CachedField newVarHandleField (Field field, Class fieldClass, GenericType genericType) {
+		boolean stringField = fieldClass == String.class
+			&& (!serializer.kryo.getReferences() || !serializer.kryo.getReferenceResolver().useReferences(String.class));
+		try {
+			return (CachedField)newVarHandleField.invoke(null, field, fieldClass, serializer, genericType, stringField);
+		} catch (Exception ex) {
+			if (DEBUG) debug("kryo", "Unable to use VarHandle: " + field, ex);
+			return null;
+		}
+	}
+
 	private CachedField newUnsafeField (Field field, Class fieldClass, GenericType genericType) {
 		if (fieldClass.isPrimitive()) {
 			if (fieldClass == int.class) return new IntUnsafeField(field);
@@ -257,6 +347,7 @@ class CachedFields implements Comparator<CachedField> {
 				System.arraycopy(fields, 0, newFields, 0, i);
 				System.arraycopy(fields, i + 1, newFields, i, newFields.length - i);
 				fields = newFields;
+				packBooleans();
 				removedFields.add(cachedField.field);
 				found = true;
 				break;
@@ -288,6 +379,7 @@ class CachedFields implements Comparator<CachedField> {
 				System.arraycopy(fields, 0, newFields, 0, i);
 				System.arraycopy(fields, i + 1, newFields, i, newFields.length - i);
 				fields = newFields;
+				packBooleans();
 				removedFields.add(cachedField.field);
 				found = true;
 				break;
@@ -395,4 +487,50 @@ class CachedFields implements Comparator<CachedField> {
 		if (factoryClass == null) return null;
 		return newFactory(factoryClass, serializerClass).newSerializer(serializer.kryo, valueClass);
 	}
+
+	/** A primitive boolean field. */
+	interface BooleanField {
+		public boolean getBoolean (Object object);
+
+		public void setBoolean (Object object, boolean value);
+	}
+
+	/** Writes consecutive boolean fields with 8 fields per byte, the first field in the lowest bit. */
+	static final class PackedBooleanFields extends CachedField {
+		final CachedField[] fields;
+
+		PackedBooleanFields (CachedField[] fields) {
+			super(fields[0].field);
+			this.fields = fields;
+			valueClass = boolean.class;
+			StringBuilder buffer = new StringBuilder(fields[0].name);
+			for (int i = 1, n = fields.length; i < n; i++)
+				buffer.append(", ").append(fields[i].name);
+			name = buffer.toString();
+		}
+
+		public void write (Output output, Object object) {
+			CachedField[] fields = this.fields;
+			for (int i = 0, n = fields.length; i < n; i += 8) {
+				int bits = 0;
+				for (int ii = 0, nn = Math.min(n - i, 8); ii < nn; ii++)
+					if (((BooleanField)fields[i + ii]).getBoolean(object)) bits |= 1 << ii;
+				output.writeByte(bits);
+			}
+		}
+
+		public void read (Input input, Object object) {
+			CachedField[] fields = this.fields;
+			for (int i = 0, n = fields.length; i < n; i += 8) {
+				int bits = input.readByte();
+				for (int ii = 0, nn = Math.min(n - i, 8); ii < nn; ii++)
+					((BooleanField)fields[i + ii]).setBoolean(object, (bits & 1 << ii) != 0);
+			}
+		}
+
+		public void copy (Object original, Object copy) {
+			for (CachedField field : fields)
+				field.copy(original, copy);
+		}
+	}
 }
@@ -25,6 +25,8 @@ import static com.esotericsoftware.minlog.Log.*;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.io.FrameReader;
+import com.esotericsoftware.kryo.io.FrameWriter;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.InputChunked;
 import com.esotericsoftware.kryo.io.Output;
@@ -72,16 +74,20 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 			}
 		}
 
-		boolean chunked = config.chunked, readUnknownTagData = config.readUnknownFieldData;
+		boolean framed = config.framed, chunked = config.chunked && !framed, readUnknownTagData = config.readUnknownFieldData;
 		Output fieldOutput;
 		OutputChunked outputChunked = null;
+		FrameWriter frameWriter = null;
 		if (chunked)
 			fieldOutput = outputChunked = new OutputChunked(output, config.chunkSize);
-		else
+		else {
 			fieldOutput = output;
+			if (framed) frameWriter = new FrameWriter(output);
+		}
 		for (int i = 0, n = fields.length; i < n; i++) {
 			CachedField cachedField = fields[i];
 			if (TRACE) log("Write", cachedField, output.position());
+			if (framed) fieldOutput = frameWriter.beginFrame();
 
 			// Write the value class so the field data can be read even if the field is removed.
 			if (readUnknownTagData) {
@@ -95,7 +101,9 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 				}
 				kryo.writeClass(fieldOutput, valueClass);
 				if (valueClass == null) {
-					if (chunked) outputChunked.endChunk();
+					if (chunked)
+						outputChunked.endChunk();
+					else if (framed) frameWriter.endFrame();
 					continue;
 				}
 				cachedField.setCanBeNull(false);
@@ -103,7 +111,9 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 			}
 
 			cachedField.write(fieldOutput, object);
-			if (chunked) outputChunked.endChunk();
+			if (chunked)
+				outputChunked.endChunk();
+			else if (framed) frameWriter.endFrame();
 		}
 
 		if (pop > 0) popTypeVariables(pop);
@@ -118,15 +128,20 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 		CachedField[] fields = (CachedField[])kryo.getGraphContext().get(this);
 		if (fields == null) fields = readFields(kryo, input);
 
-		boolean chunked = config.chunked, readUnknownTagData = config.readUnknownFieldData;
+		boolean framed = config.framed, chunked = config.chunked || framed, readUnknownTagData = config.readUnknownFieldData;
 		Input fieldInput;
 		InputChunked inputChunked = null;
-		if (chunked)
+		FrameReader frameReader = null;
+		if (framed) {
+			fieldInput = input;
+			frameReader = new FrameReader(input);
+		} else if (chunked)
 			fieldInput = inputChunked = new InputChunked(input, config.chunkSize);
 		else
 			fieldInput = input;
 		for (int i = 0, n = fields.length; i < n; i++) {
 			CachedField cachedField = fields[i];
+			if (framed) frameReader.beginFrame();
 
 			if (readUnknownTagData) {
 				Registration registration;
@@ -136,11 +151,11 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 					String message = "Unable to read unknown data (unknown type). (" + getType().getName() + "#" + cachedField + ")";
 					if (!chunked) throw new KryoException(message, ex);
 					if (DEBUG) debug("kryo", message, ex);
-					inputChunked.nextChunk();
+					nextChunk(inputChunked, frameReader);
 					continue;
 				}
 				if (registration == null) {
-					if (chunked) inputChunked.nextChunk();
+					if (chunked) nextChunk(inputChunked, frameReader);
 					continue;
 				}
 				Class valueClass = registration.getType();
@@ -155,7 +170,7 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 						if (!chunked) throw new KryoException(message, ex);
 						if (DEBUG) debug("kryo", message, ex);
 					}
-					if (chunked) inputChunked.nextChunk();
+					if (chunked) nextChunk(inputChunked, frameReader);
 					continue;
 				}
 
@@ -165,7 +180,7 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 						+ className(cachedField.valueClass) + " (" + getType().getName() + "#" + cachedField + ")";
 					if (!chunked) throw new KryoException(message);
 					if (DEBUG) debug("kryo", message);
-					inputChunked.nextChunk();
+					nextChunk(inputChunked, frameReader);
 					continue;
 				}
 
@@ -174,13 +189,13 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 			} else if (cachedField == null) {
 				if (!chunked) throw new KryoException("Unknown field. (" + getType().getName() + ")");
 				if (TRACE) trace("kryo", "Skip unknown field.");
-				inputChunked.nextChunk();
+				nextChunk(inputChunked, frameReader);
 				continue;
 			}
 
 			if (TRACE) log("Read", cachedField, input.position());
 			cachedField.read(fieldInput, object);
-			if (chunked) inputChunked.nextChunk();
+			if (chunked) nextChunk(inputChunked, frameReader);
 		}
 
 		if (pop > 0) popTypeVariables(pop);
@@ -239,13 +254,21 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 		return fields;
 	}
 
+	/** Skips to the end of the current field's chunks or frame. */
+	static private void nextChunk (InputChunked inputChunked, FrameReader frameReader) {
+		if (frameReader != null)
+			frameReader.endFrame();
+		else
+			inputChunked.nextChunk();
+	}
+
 	public CompatibleFieldSerializerConfig getCompatibleFieldSerializerConfig () {
 		return config;
 	}
 
 	/** Configuration for CompatibleFieldSerializer instances. */
 	static public class CompatibleFieldSerializerConfig extends FieldSerializerConfig {
-		boolean readUnknownFieldData = true, chunked;
+		boolean readUnknownFieldData = true, chunked, framed;
 		int chunkSize = 1024;
 
 		public CompatibleFieldSerializerConfig clone () {
@@ -283,6 +306,21 @@ public class CompatibleFieldSerializer<T> extends FieldSerializer<T> {
 			return chunked;
 		}
 
+		/** When true, each field is written with its length as a 4 byte int so unknown field data can be skipped, like
+		 * {@link #setChunkedEncoding(boolean) chunked encoding} but without splitting the field data into chunks. When the
+		 * {@link Output} has no OutputStream, the field data is written directly to it and the length is backpatched, otherwise the
+		 * field data is buffered and copied. When reading, the rest of a field is skipped with a single skip. Overrides chunked
+		 * encoding, the same setting must be used for reading and writing. Default is false.
+		 * @see FrameWriter */
+		public void setFramedEncoding (boolean framed) {
+			this.framed = framed;
+			if (TRACE) trace("kryo", "CompatibleFieldSerializerConfig setFramed: " + framed);
+		}
+
+		public boolean getFramedEncoding () {
+			return framed;
+		}
+
 		/** The maximum size of each chunk for chunked encoding. Default is 1024. */
 		public void setChunkSize (int chunkSize) {
 			this.chunkSize = chunkSize;
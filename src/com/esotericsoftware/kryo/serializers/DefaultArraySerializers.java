@@ -141,6 +141,90 @@ public class DefaultArraySerializers {
 		}
 	}
 
+	/** Writes int arrays as the first value followed by the difference between each value and the previous value, which is much
+	 * smaller for sorted or slowly changing values. Use it for a field with
+	 * {@link com.esotericsoftware.kryo.serializers.FieldSerializer.Bind @Bind(serializer = DeltaIntArraySerializer.class)} or
+	 * for all int arrays by registering it for int[].
+	 * @see Output#writeDeltaInts(int[], int, int) */
+	static public class DeltaIntArraySerializer extends IntArraySerializer {
+		public void write (Kryo kryo, Output output, int[] object) {
+			if (object == null) {
+				output.writeByte(NULL);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeDeltaInts(object, 0, object.length);
+		}
+
+		public int[] read (Kryo kryo, Input input, Class type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readDeltaInts(length - 1);
+		}
+	}
+
+	/** Writes long arrays as the first value followed by the difference between each value and the previous value.
+	 * @see DeltaIntArraySerializer
+	 * @see Output#writeDeltaLongs(long[], int, int) */
+	static public class DeltaLongArraySerializer extends LongArraySerializer {
+		public void write (Kryo kryo, Output output, long[] object) {
+			if (object == null) {
+				output.writeByte(NULL);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeDeltaLongs(object, 0, object.length);
+		}
+
+		public long[] read (Kryo kryo, Input input, Class type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readDeltaLongs(length - 1);
+		}
+	}
+
+	/** Writes int arrays using fixed length, variable length, or delta encoding, whichever is estimated to be smallest for each
+	 * array. This costs 1 byte per array to store the encoding, but is useful when the values in some arrays are small and in
+	 * others large, such as hashes.
+	 * @see Output#writeAdaptiveInts(int[], int, int) */
+	static public class AdaptiveIntArraySerializer extends IntArraySerializer {
+		public void write (Kryo kryo, Output output, int[] object) {
+			if (object == null) {
+				output.writeByte(NULL);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeAdaptiveInts(object, 0, object.length);
+		}
+
+		public int[] read (Kryo kryo, Input input, Class type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readAdaptiveInts(length - 1);
+		}
+	}
+
+	/** Writes long arrays using fixed length, variable length, or delta encoding, whichever is estimated to be smallest for each
+	 * array.
+	 * @see AdaptiveIntArraySerializer
+	 * @see Output#writeAdaptiveLongs(long[], int, int) */
+	static public class AdaptiveLongArraySerializer extends LongArraySerializer {
+		public void write (Kryo kryo, Output output, long[] object) {
+			if (object == null) {
+				output.writeByte(NULL);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeAdaptiveLongs(object, 0, object.length);
+		}
+
+		public long[] read (Kryo kryo, Input input, Class type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readAdaptiveLongs(length - 1);
+		}
+	}
+
 	static public class ShortArraySerializer extends Serializer<short[]> {
 		{
 			setAcceptsNull(true);
@@ -222,28 +306,90 @@ public class DefaultArraySerializers {
 		}
 	}
 
+	/** Writes double arrays by XORing each value with the previous value and writing only the bits which changed, which is much
+	 * smaller for slowly changing series such as metrics. The values are read exactly as they were written. Use it for a field
+	 * with {@link com.esotericsoftware.kryo.serializers.FieldSerializer.Bind @Bind(serializer = XorDoubleArraySerializer.class)}
+	 * or for all double arrays by registering it for double[].
+	 * @see Output#writeXorDoubles(double[], int, int) */
+	static public class XorDoubleArraySerializer extends DoubleArraySerializer {
+		public void write (Kryo kryo, Output output, double[] object) {
+			if (object == null) {
+				output.writeByte(NULL);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeXorDoubles(object, 0, object.length);
+		}
+
+		public double[] read (Kryo kryo, Input input, Class type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readXorDoubles(length - 1);
+		}
+	}
+
+	/** Writes float arrays by XORing each value with the previous value and writing only the bits which changed.
+	 * @see XorDoubleArraySerializer
+	 * @see Output#writeXorFloats(float[], int, int) */
+	static public class XorFloatArraySerializer extends FloatArraySerializer {
+		public void write (Kryo kryo, Output output, float[] object) {
+			if (object == null) {
+				output.writeByte(NULL);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeXorFloats(object, 0, object.length);
+		}
+
+		public float[] read (Kryo kryo, Input input, Class type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readXorFloats(length - 1);
+		}
+	}
+
 	static public class BooleanArraySerializer extends Serializer<boolean[]> {
+		private boolean packed;
+
 		{
 			setAcceptsNull(true);
 		}
 
+		public BooleanArraySerializer () {
+		}
+
+		/** @see #setPacked(boolean) */
+		public BooleanArraySerializer (boolean packed) {
+			this.packed = packed;
+		}
+
+		/** When true, 8 booleans are written per byte. Default is false.
+		 * @see Output#writePackedBooleans(boolean[], int, int) */
+		public void setPacked (boolean packed) {
+			this.packed = packed;
+		}
+
+		public boolean getPacked () {
+			return packed;
+		}
+
 		public void write (Kryo kryo, Output output, boolean[] object) {
 			if (object == null) {
 				output.writeByte(NULL);
 				return;
 			}
 			output.writeVarInt(object.length + 1, true);
-			for (int i = 0, n = object.length; i < n; i++)
-				output.writeBoolean(object[i]);
+			if (packed)
+				output.writePackedBooleans(object, 0, object.length);
+			else
+				output.writeBooleans(object, 0, object.length);
 		}
 
 		public boolean[] read (Kryo kryo, Input input, Class type) {
 			int length = input.readVarInt(true);
 			if (length == NULL) return null;
-			boolean[] array = new boolean[--length];
-			for (int i = 0; i < length; i++)
-				array[i] = input.readBoolean();
-			return array;
+			if (packed) return input.readPackedBooleans(length - 1);
+			return input.readBooleans(length - 1);
 		}
 
 		public boolean[] copy (Kryo kryo, boolean[] original) {
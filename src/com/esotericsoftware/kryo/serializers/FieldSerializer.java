@@ -24,6 +24,7 @@ import static com.esotericsoftware.minlog.Log.*;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.SerializerFactory;
 import com.esotericsoftware.kryo.io.Input;
@@ -38,6 +39,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 
 /** Serializes objects using direct field assignment. FieldSerializer is generic and can serialize most classes without any
  * configuration. All non-public fields are written and read by default, so it is important to evaluate each class that will be
@@ -57,12 +60,14 @@ import java.lang.reflect.Field;
  * @see CompatibleFieldSerializer
  * @author Nathan Sweet
  * @author Roman Levenstein <romixlev@gmail.com> */
-public class FieldSerializer<T> extends Serializer<T> {
-	final Kryo kryo;
+public class FieldSerializer<T> extends Serializer<T> implements Cloneable {
+	Kryo kryo;
 	final Class type;
 	final FieldSerializerConfig config;
-	final CachedFields cachedFields;
+	CachedFields cachedFields;
 	private final GenericsHierarchy genericsHierarchy;
+	private Boolean acyclic;
+	private int acyclicVersion;
 
 	public FieldSerializer (Kryo kryo, Class type) {
 		this(kryo, type, new FieldSerializerConfig());
@@ -80,6 +85,7 @@ public class FieldSerializer<T> extends Serializer<T> {
 
 		cachedFields = new CachedFields(this);
 		cachedFields.rebuild();
+		if (config.elideReferences && kryo != null) kryo.setElideReferences(true);
 	}
 
 	/** Called when {@link #getFields()} and {@link #getCopyFields()} have been repopulated. Subclasses can override this method to
@@ -95,13 +101,15 @@ public class FieldSerializer<T> extends Serializer<T> {
 	/** Must be called after {@link #getFieldSerializerConfig()} settings are changed to repopulate the cached fields. */
 	public void updateFields () {
 		if (TRACE) trace("kryo", "Update fields: " + className(type));
+		acyclic = null;
 		cachedFields.rebuild();
+		if (config.elideReferences && kryo != null) kryo.setElideReferences(true);
 	}
 
 	public void write (Kryo kryo, Output output, T object) {
 		int pop = pushTypeVariables();
 
-		CachedField[] fields = cachedFields.fields;
+		CachedField[] fields = cachedFields.packedFields;
 		for (int i = 0, n = fields.length; i < n; i++) {
 			if (TRACE) log("Write", fields[i], output.position());
 			fields[i].write(output, object);
@@ -116,7 +124,7 @@ public class FieldSerializer<T> extends Serializer<T> {
 		T object = create(kryo, input, type);
 		kryo.reference(object);
 
-		CachedField[] fields = cachedFields.fields;
+		CachedField[] fields = cachedFields.packedFields;
 		for (int i = 0, n = fields.length; i < n; i++) {
 			if (TRACE) log("Read", fields[i], input.position());
 			fields[i].read(input, object);
@@ -175,11 +183,13 @@ public class FieldSerializer<T> extends Serializer<T> {
 
 	/** Removes a field so that it won't be serialized. */
 	public void removeField (String fieldName) {
+		acyclic = null;
 		cachedFields.removeField(fieldName);
 	}
 
 	/** Removes a field so that it won't be serialized. */
 	public void removeField (CachedField field) {
+		acyclic = null;
 		cachedFields.removeField(field);
 	}
 
@@ -201,6 +211,72 @@ public class FieldSerializer<T> extends Serializer<T> {
 		return kryo;
 	}
 
+	/** Returns true if objects of the type can never be part of a cycle and are immutable, so they can be written without tracking
+	 * references. This is the case when the type is final and every serialized field is final and has a primitive or enum type,
+	 * or a final type registered with an immutable serializer or with a FieldSerializer whose type is also acyclic.
+	 * <p>
+	 * The result is cached and computed again after {@link #updateFields()}, after a field is removed, or when the
+	 * {@link Kryo#getRegistrationVersion() registrations} of the Kryo change. Registrations changed directly on the
+	 * {@link com.esotericsoftware.kryo.ClassResolver} or a {@link Registration} are not detected, so {@link #updateFields()} must be
+	 * called after them.
+	 * @see FieldSerializerConfig#setElideReferences(boolean) */
+	public boolean isAcyclic () {
+		if (acyclic != null && acyclicVersion == registrationVersion()) return acyclic;
+		return isAcyclic(new ArrayList());
+	}
+
+	private boolean isAcyclic (ArrayList<FieldSerializer> visiting) {
+		if (acyclic != null && acyclicVersion == registrationVersion()) return acyclic;
+		if (!Modifier.isFinal(type.getModifiers())) return false;
+		if (visiting.contains(this)) return false; // A type which can reach itself.
+		visiting.add(this);
+		boolean result = true;
+		for (CachedField cachedField : cachedFields.fields) {
+			Field field = cachedField.field;
+			if (!Modifier.isFinal(field.getModifiers()) || !isAcyclicField(field.getType(), visiting)) {
+				result = false;
+				break;
+			}
+		}
+		visiting.remove(visiting.size() - 1);
+		if (TRACE) trace("kryo", "Acyclic " + className(type) + ": " + result);
+		acyclic = result;
+		acyclicVersion = registrationVersion();
+		return result;
+	}
+
+	private int registrationVersion () {
+		return kryo == null ? 0 : kryo.getRegistrationVersion();
+	}
+
+	private boolean isAcyclicField (Class fieldType, ArrayList<FieldSerializer> visiting) {
+		if (fieldType.isPrimitive() || fieldType.isEnum()) return true;
+		if (!Modifier.isFinal(fieldType.getModifiers()) || fieldType.isArray()) return false;
+		Registration registration = kryo.getClassResolver().getRegistration(fieldType);
+		if (registration == null) return false;
+		Serializer serializer = registration.getSerializer();
+		if (serializer instanceof FieldSerializer) return ((FieldSerializer)serializer).isAcyclic(visiting);
+		return serializer.isImmutable();
+	}
+
+	/** Returns a copy of this serializer for use with another Kryo instance. The copy shares the config and the fields found by
+	 * reflection, so it is much faster to create than a new serializer. Any other state of a subclass is copied shallowly, then
+	 * {@link #initializeCachedFields()} is called on the copy. */
+	public FieldSerializer<T> copyForKryo (Kryo kryo) {
+		FieldSerializer copy;
+		try {
+			copy = (FieldSerializer)clone();
+		} catch (CloneNotSupportedException ex) {
+			throw new KryoException(ex);
+		}
+		copy.kryo = kryo;
+		copy.acyclic = null;
+		copy.cachedFields = new CachedFields(copy, cachedFields);
+		if (config.elideReferences && kryo != null) kryo.setElideReferences(true);
+		copy.initializeCachedFields();
+		return copy;
+	}
+
 	/** Used by {@link #copy(Kryo, Object)} to create a new object. This can be overridden to customize object creation, eg to call
 	 * a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
 	protected T createCopy (Kryo kryo, T original) {
@@ -218,7 +294,7 @@ public class FieldSerializer<T> extends Serializer<T> {
 	}
 
 	/** Settings for serializing a field. */
-	static public abstract class CachedField {
+	static public abstract class CachedField implements Cloneable {
 		final Field field;
 		String name;
 		Class valueClass;
@@ -316,6 +392,14 @@ public class FieldSerializer<T> extends Serializer<T> {
 			return name;
 		}
 
+		CachedField copy () {
+			try {
+				return (CachedField)clone();
+			} catch (CloneNotSupportedException ex) {
+				throw new KryoException(ex);
+			}
+		}
+
 		abstract public void write (Output output, Object object);
 
 		abstract public void read (Input input, Object object);
@@ -378,6 +462,8 @@ public class FieldSerializer<T> extends Serializer<T> {
 		boolean serializeTransient;
 		boolean varEncoding = true;
 		boolean extendedFieldNames;
+		boolean packBooleans;
+		boolean elideReferences;
 
 		public FieldSerializerConfig clone () {
 			try {
@@ -479,5 +565,32 @@ public class FieldSerializer<T> extends Serializer<T> {
 		public boolean getExtendedFieldNames () {
 			return extendedFieldNames;
 		}
+
+		/** When true, boolean fields which are next to each other in the serialized field order are written with 8 fields per
+		 * byte. Subclasses of FieldSerializer which write data for each field, such as {@link CompatibleFieldSerializer}, do not
+		 * pack boolean fields. Default is false. */
+		public void setPackBooleans (boolean packBooleans) {
+			this.packBooleans = packBooleans;
+			if (TRACE) trace("kryo", "FieldSerializerConfig packBooleans: " + packBooleans);
+		}
+
+		public boolean getPackBooleans () {
+			return packBooleans;
+		}
+
+		/** When true and the type is {@link FieldSerializer#isAcyclic() acyclic}, references are not tracked for objects of the
+		 * type, even when {@link Kryo#setReferences(boolean) references} are enabled. An object referenced more than once in a graph
+		 * is then written each time and read as separate but equal objects. This only applies when the type is registered with an
+		 * ID and the {@link com.esotericsoftware.kryo.ReferenceResolver} checks {@link com.esotericsoftware.kryo.util.Util#isReferenceElided(Kryo, Class)}, as the
+		 * resolvers provided by Kryo do. The writer and reader must use the same setting. {@link FieldSerializer#updateFields()} must
+		 * be called after this is set, which enables {@link Kryo#setElideReferences(boolean)}. Default is false. */
+		public void setElideReferences (boolean elideReferences) {
+			this.elideReferences = elideReferences;
+			if (TRACE) trace("kryo", "FieldSerializerConfig elideReferences: " + elideReferences);
+		}
+
+		public boolean getElideReferences () {
+			return elideReferences;
+		}
 	}
 }
@@ -25,6 +25,7 @@ import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CachedFields.BooleanField;
 import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
 import com.esotericsoftware.kryo.util.Generics.GenericType;
 
@@ -34,7 +35,7 @@ import java.lang.reflect.Field;
  * @author Nathan Sweet
  * @author Roman Levenstein <romixlev@gmail.com> */
 class ReflectField extends CachedField {
-	final FieldSerializer fieldSerializer;
+	FieldSerializer fieldSerializer;
 	final GenericType genericType;
 
 	ReflectField (Field field, FieldSerializer fieldSerializer, GenericType genericType) {
@@ -309,11 +310,31 @@ class ReflectField extends CachedField {
 		}
 	}
 
-	final static class BooleanReflectField extends CachedField {
+	final static class BooleanReflectField extends CachedField implements BooleanField {
 		public BooleanReflectField (Field field) {
 			super(field);
 		}
 
+		public boolean getBoolean (Object object) {
+			try {
+				return field.getBoolean(object);
+			} catch (Throwable t) {
+				KryoException ex = new KryoException(t);
+				ex.addTrace(name + " (boolean)");
+				throw ex;
+			}
+		}
+
+		public void setBoolean (Object object, boolean value) {
+			try {
+				field.setBoolean(object, value);
+			} catch (Throwable t) {
+				KryoException ex = new KryoException(t);
+				ex.addTrace(name + " (boolean)");
+				throw ex;
+			}
+		}
+
 		public void write (Output output, Object object) {
 			try {
 				output.writeBoolean(field.getBoolean(object));
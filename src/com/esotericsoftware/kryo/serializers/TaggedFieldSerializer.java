@@ -26,6 +26,8 @@ import static com.esotericsoftware.minlog.Log.*;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.io.FrameReader;
+import com.esotericsoftware.kryo.io.FrameWriter;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.InputChunked;
 import com.esotericsoftware.kryo.io.Output;
@@ -123,18 +125,22 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 		output.writeVarInt(writeTags.length + 1, true);
 		writeHeader(kryo, output, object);
 
-		boolean chunked = config.chunked, readUnknownTagData = config.readUnknownTagData;
+		boolean framed = config.framed, chunked = config.chunked && !framed, readUnknownTagData = config.readUnknownTagData;
 		Output fieldOutput;
 		OutputChunked outputChunked = null;
+		FrameWriter frameWriter = null;
 		if (chunked)
 			fieldOutput = outputChunked = new OutputChunked(output, config.chunkSize);
-		else
+		else {
 			fieldOutput = output;
+			if (framed) frameWriter = new FrameWriter(output);
+		}
 
 		for (int i = 0, n = writeTags.length; i < n; i++) {
 			CachedField cachedField = writeTags[i];
 			if (TRACE) log("Write", cachedField, output.position());
 			output.writeVarInt(cachedField.tag, true);
+			if (framed) fieldOutput = frameWriter.beginFrame();
 
 			// Write the value class so the field data can be read even if the field is removed.
 			if (readUnknownTagData) {
@@ -148,7 +154,9 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 				}
 				kryo.writeClass(fieldOutput, valueClass);
 				if (valueClass == null) {
-					if (chunked) outputChunked.endChunk();
+					if (chunked)
+						outputChunked.endChunk();
+					else if (framed) frameWriter.endFrame();
 					continue;
 				}
 				cachedField.setCanBeNull(false);
@@ -156,7 +164,9 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 			}
 
 			cachedField.write(fieldOutput, object);
-			if (chunked) outputChunked.endChunk();
+			if (chunked)
+				outputChunked.endChunk();
+			else if (framed) frameWriter.endFrame();
 		}
 
 		if (pop > 0) popTypeVariables(pop);
@@ -176,10 +186,14 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 		T object = create(kryo, input, type);
 		kryo.reference(object);
 
-		boolean chunked = config.chunked, readUnknownTagData = config.readUnknownTagData;
+		boolean framed = config.framed, chunked = config.chunked || framed, readUnknownTagData = config.readUnknownTagData;
 		Input fieldInput;
 		InputChunked inputChunked = null;
-		if (chunked)
+		FrameReader frameReader = null;
+		if (framed) {
+			fieldInput = input;
+			frameReader = new FrameReader(input);
+		} else if (chunked)
 			fieldInput = inputChunked = new InputChunked(input, config.chunkSize);
 		else
 			fieldInput = input;
@@ -187,6 +201,7 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 		for (int i = 0; i < fieldCount; i++) {
 			int tag = input.readVarInt(true);
 			CachedField cachedField = readTags.get(tag);
+			if (framed) frameReader.beginFrame();
 
 			if (readUnknownTagData) {
 				Registration registration;
@@ -197,11 +212,11 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 						+ cachedField + ")";
 					if (!chunked) throw new KryoException(message, ex);
 					if (DEBUG) debug("kryo", message, ex);
-					inputChunked.nextChunk();
+					nextChunk(inputChunked, frameReader);
 					continue;
 				}
 				if (registration == null) {
-					if (chunked) inputChunked.nextChunk();
+					if (chunked) nextChunk(inputChunked, frameReader);
 					continue;
 				}
 				Class valueClass = registration.getType();
@@ -216,7 +231,7 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 						if (!chunked) throw new KryoException(message, ex);
 						if (DEBUG) debug("kryo", message, ex);
 					}
-					if (chunked) inputChunked.nextChunk();
+					if (chunked) nextChunk(inputChunked, frameReader);
 					continue;
 				}
 				cachedField.setCanBeNull(false);
@@ -224,19 +239,27 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 			} else if (cachedField == null) {
 				if (!chunked) throw new KryoException("Unknown field tag: " + tag + " (" + getType().getName() + ")");
 				if (TRACE) trace("kryo", "Skip unknown field tag: " + tag);
-				inputChunked.nextChunk();
+				nextChunk(inputChunked, frameReader);
 				continue;
 			}
 
 			if (TRACE) log("Read", cachedField, input.position());
 			cachedField.read(fieldInput, object);
-			if (chunked) inputChunked.nextChunk();
+			if (chunked) nextChunk(inputChunked, frameReader);
 		}
 
 		if (pop > 0) popTypeVariables(pop);
 		return object;
 	}
 
+	/** Skips to the end of the current field's chunks or frame. */
+	static private void nextChunk (InputChunked inputChunked, FrameReader frameReader) {
+		if (frameReader != null)
+			frameReader.endFrame();
+		else
+			inputChunked.nextChunk();
+	}
+
 	public TaggedFieldSerializerConfig getTaggedFieldSerializerConfig () {
 		return config;
 	}
@@ -250,7 +273,7 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 
 	/** Configuration for TaggedFieldSerializer instances. */
 	static public class TaggedFieldSerializerConfig extends FieldSerializerConfig {
-		boolean readUnknownTagData, chunked;
+		boolean readUnknownTagData, chunked, framed;
 		int chunkSize = 1024;
 
 		public TaggedFieldSerializerConfig clone () {
@@ -289,6 +312,21 @@ public class TaggedFieldSerializer<T> extends FieldSerializer<T> {
 			return chunked;
 		}
 
+		/** When true, each field is written with its length as a 4 byte int so unknown field data can be skipped, like
+		 * {@link #setChunkedEncoding(boolean) chunked encoding} but without splitting the field data into chunks. When the
+		 * {@link Output} has no OutputStream, the field data is written directly to it and the length is backpatched, otherwise the
+		 * field data is buffered and copied. When reading, the rest of a field is skipped with a single skip. Overrides chunked
+		 * encoding, the same setting must be used for reading and writing. Default is false.
+		 * @see FrameWriter */
+		public void setFramedEncoding (boolean framed) {
+			this.framed = framed;
+			if (TRACE) trace("kryo", "TaggedFieldSerializerConfig setFramed: " + framed);
+		}
+
+		public boolean getFramedEncoding () {
+			return framed;
+		}
+
 		/** The maximum size of each chunk for chunked encoding. Default is 1024. */
 		public void setChunkSize (int chunkSize) {
 			this.chunkSize = chunkSize;
@@ -24,6 +24,7 @@ import static com.esotericsoftware.kryo.unsafe.UnsafeUtil.*;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CachedFields.BooleanField;
 import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
 import com.esotericsoftware.kryo.util.Generics.GenericType;
 
@@ -141,12 +142,20 @@ class UnsafeField extends ReflectField {
 		}
 	}
 
-	final static class BooleanUnsafeField extends CachedField {
+	final static class BooleanUnsafeField extends CachedField implements BooleanField {
 		public BooleanUnsafeField (Field field) {
 			super(field);
 			offset = unsafe.objectFieldOffset(field);
 		}
 
+		public boolean getBoolean (Object object) {
+			return unsafe.getBoolean(object, offset);
+		}
+
+		public void setBoolean (Object object, boolean value) {
+			unsafe.putBoolean(object, offset, value);
+		}
+
 		public void write (Output output, Object object) {
 			output.writeBoolean(unsafe.getBoolean(object, offset));
 		}
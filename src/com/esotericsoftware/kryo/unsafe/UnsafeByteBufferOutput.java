@@ -180,31 +180,31 @@ public class UnsafeByteBufferOutput extends ByteBufferOutput {
 	}
 
 	public void writeInts (int[] array, int offset, int count) throws KryoException {
-		writeBytes(array, intArrayBaseOffset, array.length << 2);
+		writeBytes(array, intArrayBaseOffset + ((long)offset << 2), count << 2);
 	}
 
 	public void writeLongs (long[] array, int offset, int count) throws KryoException {
-		writeBytes(array, longArrayBaseOffset, array.length << 3);
+		writeBytes(array, longArrayBaseOffset + ((long)offset << 3), count << 3);
 	}
 
 	public void writeFloats (float[] array, int offset, int count) throws KryoException {
-		writeBytes(array, floatArrayBaseOffset, array.length << 2);
+		writeBytes(array, floatArrayBaseOffset + ((long)offset << 2), count << 2);
 	}
 
 	public void writeDoubles (double[] array, int offset, int count) throws KryoException {
-		writeBytes(array, doubleArrayBaseOffset, array.length << 3);
+		writeBytes(array, doubleArrayBaseOffset + ((long)offset << 3), count << 3);
 	}
 
 	public void writeShorts (short[] array, int offset, int count) throws KryoException {
-		writeBytes(array, shortArrayBaseOffset, array.length << 1);
+		writeBytes(array, shortArrayBaseOffset + ((long)offset << 1), count << 1);
 	}
 
 	public void writeChars (char[] array, int offset, int count) throws KryoException {
-		writeBytes(array, charArrayBaseOffset, array.length << 1);
+		writeBytes(array, charArrayBaseOffset + ((long)offset << 1), count << 1);
 	}
 
 	public void writeBooleans (boolean[] array, int offset, int count) throws KryoException {
-		writeBytes(array, booleanArrayBaseOffset, array.length);
+		writeBytes(array, booleanArrayBaseOffset + offset, count);
 	}
 
 	public void writeBytes (byte[] array, int offset, int count) throws KryoException {
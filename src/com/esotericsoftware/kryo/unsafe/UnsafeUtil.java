@@ -91,6 +91,23 @@ public class UnsafeUtil {
 		unsafe = tempUnsafe;
 	}
 
+	// Offsets of the String fields which store compact strings (Java 9+) as Latin-1 bytes.
+	static private long stringValueOffset = -1, stringCoderOffset = -1;
+	static {
+		if (unsafe != null) {
+			try {
+				Field valueField = String.class.getDeclaredField("value");
+				Field coderField = String.class.getDeclaredField("coder");
+				if (valueField.getType() == byte[].class && coderField.getType() == byte.class) {
+					stringValueOffset = unsafe.objectFieldOffset(valueField);
+					stringCoderOffset = unsafe.objectFieldOffset(coderField);
+				}
+			} catch (Exception ex) {
+				if (DEBUG) debug("kryo", "String Latin-1 bytes are not available.", ex);
+			}
+		}
+	}
+
 	// Constructor to be used for creation of ByteBuffers that use preallocated memory regions.
 	static private Constructor<? extends ByteBuffer> directByteBufferConstructor;
 	static {
@@ -135,6 +152,18 @@ public class UnsafeUtil {
 		return directByteBufferConstructor != null;
 	}
 
+	/** Returns true if {@link #getLatin1Bytes(String)} can return the bytes of compact strings. */
+	static public boolean isLatin1BytesAvailable () {
+		return stringCoderOffset != -1;
+	}
+
+	/** Returns the byte[] a compact string (Java 9+) uses to store its Latin-1 characters, one byte per character, or null if the
+	 * string is not stored that way or compact strings are not available. The bytes are not copied and must not be modified. */
+	static public byte[] getLatin1Bytes (String value) {
+		if (stringCoderOffset == -1 || unsafe.getByte(value, stringCoderOffset) != 0) return null;
+		return (byte[])unsafe.getObject(value, stringValueOffset);
+	}
+
 	/** Release a direct buffer immediately rather than waiting for GC. */
 	static public void dispose (ByteBuffer buffer) {
 		if (!(buffer instanceof DirectBuffer)) return;
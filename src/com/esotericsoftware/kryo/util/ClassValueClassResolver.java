@@ -0,0 +1,84 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import com.esotericsoftware.kryo.Registration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A {@link DefaultClassResolver} which looks up the registration for a class in an array rather than a hash map. Each class is
+ * given a small index the first time it is used by any resolver, which is stored in a {@link ClassValue} so getting it is about as
+ * fast as a field access. Each resolver stores its registrations in an array at those indices.
+ * <p>
+ * This is faster than hashing the class when serializing many small objects of different classes. The ClassValue only stores the
+ * index, so it does not keep a resolver, Kryo, or serializer from being garbage collected.
+ * @author Nathan Sweet */
+public class ClassValueClassResolver extends DefaultClassResolver {
+	static private final AtomicInteger nextIndex = new AtomicInteger();
+	static private final ClassValue<Integer> classIndex = new ClassValue<Integer>() {
+		protected Integer computeValue (Class type) {
+			return nextIndex.getAndIncrement();
+		}
+	};
+
+	private Registration[] registrations = new Registration[64];
+
+	public Registration register (Registration registration) {
+		super.register(registration);
+		Class type = registration.getType();
+		set(type, registration);
+		Class wrapperClass = Util.getWrapperClass(type);
+		if (wrapperClass != type) set(wrapperClass, registration);
+		return registration;
+	}
+
+	public Registration unregister (int classID) {
+		Registration registration = super.unregister(classID);
+		if (registration != null) {
+			Class type = registration.getType();
+			set(type, null);
+			Class wrapperClass = Util.getWrapperClass(type);
+			if (wrapperClass != type) set(wrapperClass, null);
+		}
+		return registration;
+	}
+
+	private void set (Class type, Registration registration) {
+		int index = classIndex.get(type);
+		Registration[] registrations = this.registrations;
+		if (index >= registrations.length) {
+			if (registration == null) return;
+			Registration[] newRegistrations = new Registration[Math.max(index + 1, registrations.length << 1)];
+			System.arraycopy(registrations, 0, newRegistrations, 0, registrations.length);
+			this.registrations = registrations = newRegistrations;
+		}
+		registrations[index] = registration;
+	}
+
+	public Registration getRegistration (Class type) {
+		int index = classIndex.get(type);
+		Registration[] registrations = this.registrations;
+		if (index < registrations.length) {
+			Registration registration = registrations[index];
+			if (registration != null) return registration;
+		}
+		return super.getRegistration(type);
+	}
+}
@@ -33,21 +33,30 @@ import com.esotericsoftware.kryo.io.Output;
  * @author Nathan Sweet */
 public class DefaultClassResolver implements ClassResolver {
 	static public final byte NAME = -1;
+	/** IDs less than this are also stored in an array so they can be looked up without hashing. */
+	static private final int maxDenseId = 1024;
 
 	protected Kryo kryo;
 
+	/** Subclasses must not modify this map directly, they must use {@link #register(Registration)} and {@link #unregister(int)}.
+	 * Registrations with small IDs are also stored in an array which is checked first, so a registration added or removed only
+	 * here may not be seen, or may still be returned after it is removed. */
 	protected final IntMap<Registration> idToRegistration = new IntMap();
+	private Registration[] denseIdToRegistration = new Registration[32];
 	protected final ObjectMap<Class, Registration> classToRegistration = new ObjectMap();
 
 	protected IdentityObjectIntMap<Class> classToNameId;
 	protected IntMap<Class> nameIdToClass;
 	protected ObjectMap<String, Class> nameToClass;
 	protected int nextNameId;
+	private boolean session;
 
 	private int memoizedClassId = -1;
 	private Registration memoizedClassIdValue;
 	private Class memoizedClass;
 	private Registration memoizedClassValue;
+	private Class memoizedWriteClass;
+	private Registration memoizedWriteClassValue;
 
 	public void setKryo (Kryo kryo) {
 		this.kryo = kryo;
@@ -56,6 +65,7 @@ public class DefaultClassResolver implements ClassResolver {
 	public Registration register (Registration registration) {
 		memoizedClassId = -1;
 		memoizedClass = null;
+		memoizedWriteClass = null;
 		if (registration == null) throw new IllegalArgumentException("registration cannot be null.");
 		if (registration.getId() != NAME) {
 			if (TRACE) {
@@ -63,6 +73,7 @@ public class DefaultClassResolver implements ClassResolver {
 					+ registration.getSerializer().getClass().getName() + ")");
 			}
 			idToRegistration.put(registration.getId(), registration);
+			setDense(registration.getId(), registration);
 		} else if (TRACE) {
 			trace("kryo", "Register class name: " + className(registration.getType()) + " ("
 				+ registration.getSerializer().getClass().getName() + ")");
@@ -76,15 +87,29 @@ public class DefaultClassResolver implements ClassResolver {
 	public Registration unregister (int classID) {
 		Registration registration = idToRegistration.remove(classID);
 		if (registration != null) {
+			setDense(classID, null);
 			classToRegistration.remove(registration.getType());
 			memoizedClassId = -1;
 			memoizedClass = null;
+			memoizedWriteClass = null;
 			Class wrapperClass = getWrapperClass(registration.getType());
 			if (wrapperClass != registration.getType()) classToRegistration.remove(wrapperClass);
 		}
 		return registration;
 	}
 
+	private void setDense (int classID, Registration registration) {
+		if (classID < 0 || classID >= maxDenseId) return;
+		Registration[] dense = denseIdToRegistration;
+		if (classID >= dense.length) {
+			if (registration == null) return;
+			Registration[] newDense = new Registration[Math.min(Math.max(classID + 1, dense.length << 1), maxDenseId)];
+			System.arraycopy(dense, 0, newDense, 0, dense.length);
+			denseIdToRegistration = dense = newDense;
+		}
+		dense[classID] = registration;
+	}
+
 	public Registration registerImplicit (Class type) {
 		return register(new Registration(type, kryo.getDefaultSerializer(type), NAME));
 	}
@@ -100,6 +125,11 @@ public class DefaultClassResolver implements ClassResolver {
 	}
 
 	public Registration getRegistration (int classID) {
+		Registration[] dense = denseIdToRegistration;
+		if (classID >= 0 && classID < dense.length) {
+			Registration registration = dense[classID];
+			if (registration != null) return registration;
+		}
 		return idToRegistration.get(classID);
 	}
 
@@ -109,7 +139,15 @@ public class DefaultClassResolver implements ClassResolver {
 			output.writeByte(Kryo.NULL);
 			return null;
 		}
-		Registration registration = kryo.getRegistration(type);
+		Registration registration;
+		if (type == memoizedWriteClass)
+			registration = memoizedWriteClassValue;
+		else {
+			// Kryo may return the registration of another class, eg for proxies, so the result is memoized separately.
+			registration = kryo.getRegistration(type);
+			memoizedWriteClass = type;
+			memoizedWriteClassValue = registration;
+		}
 		if (registration.getId() == NAME)
 			writeName(output, type, registration);
 		else {
@@ -155,7 +193,10 @@ public class DefaultClassResolver implements ClassResolver {
 				"Read class " + (classID - 2) + ": " + className(memoizedClassIdValue.getType()) + pos(input.position()));
 			return memoizedClassIdValue;
 		}
-		Registration registration = idToRegistration.get(classID - 2);
+		Registration registration = null;
+		Registration[] dense = denseIdToRegistration;
+		if (classID - 2 >= 0 && classID - 2 < dense.length) registration = dense[classID - 2];
+		if (registration == null) registration = idToRegistration.get(classID - 2);
 		if (registration == null) throw new KryoException("Encountered unregistered class ID: " + (classID - 2));
 		if (TRACE) trace("kryo", "Read class " + (classID - 2) + ": " + className(registration.getType()) + pos(input.position()));
 		memoizedClassId = classID;
@@ -197,7 +238,38 @@ public class DefaultClassResolver implements ClassResolver {
 		return nameToClass != null ? nameToClass.get(className) : null;
 	}
 
+	/** Starts a session, where the class names written and read are remembered across {@link #reset()} until
+	 * {@link #endSession()}, so each unregistered class name is written only once per session rather than once per object graph.
+	 * The class names already written or read are discarded.
+	 * <p>
+	 * A session is intended for a single connection, where every object graph written is read in the same order by a Kryo which is
+	 * also in a session. Writing and reading use separate tables, so the same Kryo can write to and read from one connection, but
+	 * it must not be used with other streams until the session is ended. The writer and reader must start and end their sessions
+	 * at the same point in the stream.
+	 * <p>
+	 * The class names of a graph are remembered as soon as they are written, even if writing the graph fails or its bytes are
+	 * discarded rather than sent. The reader never sees those names, so later graphs would refer to names it doesn't know. If
+	 * writing or reading a graph fails, or written bytes are not delivered, the session must be ended on both sides and a new
+	 * session started at the same point in the stream. */
+	public void startSession () {
+		session = false;
+		reset();
+		session = true;
+	}
+
+	/** Ends the session and discards the class names written and read. */
+	public void endSession () {
+		session = false;
+		reset();
+	}
+
+	/** Returns true if {@link #startSession()} has been called and {@link #endSession()} has not. */
+	public boolean isSession () {
+		return session;
+	}
+
 	public void reset () {
+		if (session) return;
 		if (!kryo.isRegistrationRequired()) {
 			if (classToNameId != null) classToNameId.clear(2048);
 			if (nameIdToClass != null) nameIdToClass.clear();
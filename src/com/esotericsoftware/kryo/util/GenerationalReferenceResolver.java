@@ -0,0 +1,155 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static com.esotericsoftware.kryo.util.ObjectMap.*;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.ReferenceResolver;
+
+import java.util.Arrays;
+
+/** Like {@link MapReferenceResolver}, but {@link #reset()} takes constant time, which matters when serializing many small object
+ * graphs. Each entry in the written objects table is stamped with the generation it was written in, and reset increments the
+ * generation so all entries become empty without clearing the table.
+ * <p>
+ * Since tables are not cleared, objects from previous graphs stay reachable from this resolver until their entry is reused. When
+ * reset, tables which grew larger than needed for the maximum capacity are replaced with smaller ones, which bounds the number of
+ * objects kept reachable.
+ * @author Nathan Sweet */
+public class GenerationalReferenceResolver implements ReferenceResolver {
+	static private final float loadFactor = 0.8f;
+
+	protected Kryo kryo;
+	private final int maximumCapacity;
+
+	private Object[] keyTable;
+	private int[] valueTable, generationTable;
+	private int size, threshold, shift, mask;
+	private int generation = 1;
+
+	private Object[] readObjects;
+	private int readSize;
+
+	/** Creates a resolver which shrinks its tables when reset if they hold more than 2048 objects. */
+	public GenerationalReferenceResolver () {
+		this(2048);
+	}
+
+	/** @param maximumCapacity When reset, tables larger than needed for this many objects are replaced with smaller ones. */
+	public GenerationalReferenceResolver (int maximumCapacity) {
+		if (maximumCapacity < 1) throw new IllegalArgumentException("maximumCapacity must be > 0: " + maximumCapacity);
+		this.maximumCapacity = maximumCapacity;
+		allocate(tableSize(Math.min(51, maximumCapacity), loadFactor));
+		readObjects = new Object[Math.min(16, maximumCapacity)];
+	}
+
+	public void setKryo (Kryo kryo) {
+		this.kryo = kryo;
+	}
+
+	private void allocate (int tableSize) {
+		keyTable = new Object[tableSize];
+		valueTable = new int[tableSize];
+		generationTable = new int[tableSize];
+		threshold = (int)(tableSize * loadFactor);
+		mask = tableSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+	}
+
+	private int place (Object object) {
+		return (int)(System.identityHashCode(object) * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	public int addWrittenObject (Object object) {
+		int id = size;
+		put(object, id);
+		if (++size >= threshold) resize(keyTable.length << 1);
+		return id;
+	}
+
+	/** Stores the object in the first entry which is empty, ie not stamped with the current generation. Entries are never removed
+	 * within a generation, so lookups can stop at the first empty entry. */
+	private void put (Object object, int id) {
+		int[] generationTable = this.generationTable;
+		int generation = this.generation;
+		int i = place(object);
+		while (generationTable[i] == generation)
+			i = i + 1 & mask;
+		keyTable[i] = object;
+		valueTable[i] = id;
+		generationTable[i] = generation;
+	}
+
+	public int getWrittenId (Object object) {
+		Object[] keyTable = this.keyTable;
+		int[] generationTable = this.generationTable;
+		int generation = this.generation;
+		for (int i = place(object); generationTable[i] == generation; i = i + 1 & mask)
+			if (keyTable[i] == object) return valueTable[i];
+		return -1;
+	}
+
+	private void resize (int newSize) {
+		Object[] oldKeyTable = keyTable;
+		int[] oldValueTable = valueTable, oldGenerationTable = generationTable;
+		allocate(newSize);
+		int generation = this.generation;
+		for (int i = 0, n = oldKeyTable.length; i < n; i++)
+			if (oldGenerationTable[i] == generation) put(oldKeyTable[i], oldValueTable[i]);
+	}
+
+	public int nextReadId (Class type) {
+		int id = readSize;
+		if (id == readObjects.length) readObjects = Arrays.copyOf(readObjects, id << 1);
+		readObjects[id] = null;
+		readSize++;
+		return id;
+	}
+
+	public void setReadObject (int id, Object object) {
+		readObjects[id] = object;
+	}
+
+	public Object getReadObject (Class type, int id) {
+		return readObjects[id];
+	}
+
+	public void reset () {
+		readSize = 0;
+		if (readObjects.length > maximumCapacity) readObjects = new Object[maximumCapacity];
+
+		size = 0;
+		int tableSize = tableSize(maximumCapacity, loadFactor);
+		if (keyTable.length > tableSize)
+			allocate(tableSize);
+		else if (++generation == 0) {
+			// The generation wrapped around, so entries stamped long ago could appear current.
+			Arrays.fill(generationTable, 0);
+			generation = 1;
+		}
+	}
+
+	/** Returns false for all primitive wrappers, enums, and types whose references are elided.
+	 * @see Util#isReferenceElided(Kryo, Class) */
+	public boolean useReferences (Class type) {
+		return !Util.isWrapperClass(type) && !Util.isEnum(type) && !Util.isReferenceElided(kryo, type);
+	}
+}
@@ -0,0 +1,73 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import com.esotericsoftware.kryo.Kryo;
+
+import java.util.Arrays;
+
+/** The {@link ObjectMap} returned by {@link Kryo#getGraphContext()}. It is cleared after each object graph and serializers usually
+ * put only a few keys for each graph, so the keys put since the last clear are remembered and clearing removes just those keys
+ * instead of clearing the entire backing arrays. If more keys were put, clearing falls back to {@link ObjectMap#clear(int)}.
+ * @author Nathan Sweet */
+public class GraphContextMap<K, V> extends ObjectMap<K, V> {
+	static private final int maxKeys = 16;
+
+	private final Object[] keys = new Object[maxKeys];
+	private int keyCount;
+
+	@Null
+	public V put (K key, @Null V value) {
+		int oldSize = size;
+		V oldValue = super.put(key, value);
+		if (size != oldSize) {
+			if (keyCount < maxKeys) keys[keyCount] = key;
+			keyCount++;
+		}
+		return oldValue;
+	}
+
+	public void clear (int maximumCapacity) {
+		if (clearKeys()) return;
+		super.clear(maximumCapacity);
+	}
+
+	public void clear () {
+		if (clearKeys()) return;
+		super.clear();
+	}
+
+	/** Removes the keys put since the last clear.
+	 * @return false if too many keys were put and the map must be cleared instead. */
+	private boolean clearKeys () {
+		Object[] keys = this.keys;
+		if (keyCount > maxKeys) {
+			Arrays.fill(keys, null);
+			keyCount = 0;
+			return false;
+		}
+		for (int i = 0, n = keyCount; i < n; i++) {
+			remove((K)keys[i]);
+			keys[i] = null;
+		}
+		keyCount = 0;
+		return size == 0;
+	}
+}
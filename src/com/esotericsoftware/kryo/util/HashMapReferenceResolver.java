@@ -69,8 +69,9 @@ public class HashMapReferenceResolver implements ReferenceResolver {
 		writtenObjects.clear();
 	}
 
-	/** Returns false for all primitive wrappers and enums. */
+	/** Returns false for all primitive wrappers, enums, and types whose references are elided.
+	 * @see Util#isReferenceElided(Kryo, Class) */
 	public boolean useReferences (Class type) {
-		return !Util.isWrapperClass(type) && !Util.isEnum(type);
+		return !Util.isWrapperClass(type) && !Util.isEnum(type) && !Util.isReferenceElided(kryo, type);
 	}
 }
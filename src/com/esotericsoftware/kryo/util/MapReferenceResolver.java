@@ -67,8 +67,9 @@ public class MapReferenceResolver implements ReferenceResolver {
 		writtenObjects.clear(2048);
 	}
 
-	/** Returns false for all primitive wrappers and enums. */
+	/** Returns false for all primitive wrappers, enums, and types whose references are elided.
+	 * @see Util#isReferenceElided(Kryo, Class) */
 	public boolean useReferences (Class type) {
-		return !Util.isWrapperClass(type) && !Util.isEnum(type);
+		return !Util.isWrapperClass(type) && !Util.isEnum(type) && !Util.isReferenceElided(kryo, type);
 	}
 }
@@ -66,6 +66,11 @@ abstract public class Pool<T> {
 		freeObjects = softReferences ? new SoftReferenceQueue(queue) : queue;
 	}
 
+	/** For subclasses which store the free objects themselves and override all the methods which use them. */
+	Pool () {
+		freeObjects = null;
+	}
+
 	abstract protected T create ();
 
 	/** Returns an object from this pool. The object may be new (from {@link #create()}) or reused (previously {@link #free(Object)
@@ -0,0 +1,111 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static com.esotericsoftware.kryo.util.Util.*;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.util.ObjectMap.Entry;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+
+/** An immutable copy of the registrations of a configured {@link Kryo}, which can be applied to other Kryo instances much faster
+ * than registering the classes again. This is useful when many Kryo instances are created with the same registrations, such as
+ * by a {@link Pool}.
+ * <p>
+ * Registering a class usually finds its default serializer and, for a {@link FieldSerializer}, finds its fields using
+ * reflection. A snapshot keeps the serializers and instantiators so {@link #register(Kryo)} does neither. A FieldSerializer uses
+ * the Kryo instance it was created for, so each Kryo gets a {@link FieldSerializer#copyForKryo(Kryo) copy} which shares the fields
+ * found by reflection. Other serializers and the instantiators are shared by all the Kryo instances, so they must not have state
+ * which changes during serialization, as is the case for the serializers provided by Kryo. Registrations, references, and other
+ * state used during serialization are not shared.
+ * <p>
+ * A snapshot can be used by multiple threads. Serializers shared by the snapshot must not be configured after it is created.
+ * @author Nathan Sweet */
+public final class RegistrationSnapshot {
+	private final Class[] types;
+	private final int[] ids;
+	private final Serializer[] serializers;
+	private final ObjectInstantiator[] instantiators;
+
+	/** Copies the registrations of the specified Kryo, including classes which were registered implicitly because
+	 * {@link Kryo#setRegistrationRequired(boolean) registration is not required}.
+	 * @throws IllegalArgumentException if the Kryo does not use a {@link DefaultClassResolver}. */
+	public RegistrationSnapshot (Kryo kryo) {
+		if (!(kryo.getClassResolver() instanceof DefaultClassResolver)) {
+			throw new IllegalArgumentException(
+				"The class resolver must be a DefaultClassResolver: " + className(kryo.getClassResolver().getClass()));
+		}
+		ObjectMap<Class, Registration> classToRegistration = ((DefaultClassResolver)kryo.getClassResolver()).classToRegistration;
+		int size = 0;
+		Registration[] registrations = new Registration[classToRegistration.size];
+		for (Entry<Class, Registration> entry : classToRegistration.entries())
+			if (entry.key == entry.value.getType()) registrations[size++] = entry.value; // Skip primitive wrappers.
+
+		types = new Class[size];
+		ids = new int[size];
+		serializers = new Serializer[size];
+		instantiators = new ObjectInstantiator[size];
+		IdentityMap<Serializer, Serializer> copies = new IdentityMap();
+		for (int i = 0; i < size; i++) {
+			Registration registration = registrations[i];
+			types[i] = registration.getType();
+			ids[i] = registration.getId();
+			serializers[i] = copy(registration.getSerializer(), null, copies);
+			instantiators[i] = registration.getInstantiator();
+		}
+	}
+
+	/** Registers the classes from this snapshot with the specified Kryo, replacing any registrations which have the same IDs. The
+	 * Kryo should have the same configuration as the Kryo the snapshot was created from, such as the same
+	 * {@link Kryo#setReferences(boolean) references} setting and {@link Kryo#setInstantiatorStrategy(org.objenesis.strategy.InstantiatorStrategy)
+	 * instantiator strategy}. */
+	public void register (Kryo kryo) {
+		IdentityMap<Serializer, Serializer> copies = new IdentityMap();
+		for (int i = 0, n = types.length; i < n; i++) {
+			Registration registration = new Registration(types[i], copy(serializers[i], kryo, copies), ids[i]);
+			if (instantiators[i] != null) registration.setInstantiator(instantiators[i]);
+			if (ids[i] == DefaultClassResolver.NAME)
+				kryo.getClassResolver().register(registration);
+			else
+				kryo.register(registration);
+		}
+	}
+
+	/** Returns the serializer, or a copy for the specified Kryo if it is a FieldSerializer. A serializer registered for multiple
+	 * classes is copied once. */
+	private Serializer copy (Serializer serializer, Kryo kryo, IdentityMap<Serializer, Serializer> copies) {
+		if (!(serializer instanceof FieldSerializer)) return serializer;
+		Serializer copy = copies.get(serializer);
+		if (copy == null) {
+			copy = ((FieldSerializer)serializer).copyForKryo(kryo);
+			copies.put(serializer, copy);
+		}
+		return copy;
+	}
+
+	/** Returns the number of registrations in this snapshot. */
+	public int size () {
+		return types.length;
+	}
+}
@@ -0,0 +1,174 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/** A thread safe {@link Pool} which spreads the free objects across a number of stripes to reduce contention when many threads
+ * obtain and free objects at the same time. {@link Pool} uses a single queue which every thread must update, which becomes a
+ * bottleneck with many cores. A ThreadLocal per thread avoids that, but keeps an object for every thread, which is wasteful with
+ * many short lived or virtual threads.
+ * <p>
+ * Each stripe is a lock-free stack. A thread uses the stripe chosen by a hash of its thread ID, so concurrent threads usually use
+ * different stripes. When that stripe is empty, objects are taken from the other stripes before a new object is created, and
+ * when it is full, objects are freed to the other stripes before being discarded. Soft references are not supported.
+ * @author Nathan Sweet */
+abstract public class StripedPool<T> extends Pool<T> {
+	private final Stripe<T>[] stripes;
+	private final int mask, stripeCapacity;
+
+	/** Creates a pool with no maximum and a stripe for each processor. */
+	public StripedPool () {
+		this(Integer.MAX_VALUE);
+	}
+
+	/** Creates a pool with a stripe for each processor, up to the maximum capacity.
+	 * @param maximumCapacity The maximum number of free objects to store in this pool. */
+	public StripedPool (int maximumCapacity) {
+		this(maximumCapacity, Runtime.getRuntime().availableProcessors());
+	}
+
+	/** @param maximumCapacity The maximum number of free objects to store in this pool. Objects are not created until
+	 *           {@link #obtain()} is called and no free objects are available.
+	 * @param stripeCount The number of stripes, rounded up to the next power of two, but no more than maximumCapacity. */
+	public StripedPool (int maximumCapacity, int stripeCount) {
+		if (maximumCapacity < 1) throw new IllegalArgumentException("maximumCapacity must be > 0: " + maximumCapacity);
+		if (stripeCount < 1) throw new IllegalArgumentException("stripeCount must be > 0: " + stripeCount);
+		stripeCount = Math.min(stripeCount, 1 << 16);
+		int size = Integer.highestOneBit(stripeCount);
+		if (size < stripeCount) size <<= 1;
+		size = Math.min(size, Integer.highestOneBit(maximumCapacity));
+		stripes = new Stripe[size];
+		for (int i = 0; i < size; i++)
+			stripes[i] = new Stripe();
+		mask = size - 1;
+		stripeCapacity = maximumCapacity / size;
+	}
+
+	/** Returns an object from the current thread's stripe, else from another stripe, else from {@link #create()}. */
+	public T obtain () {
+		Stripe<T>[] stripes = this.stripes;
+		int index = index();
+		T object = stripes[index].pop();
+		if (object != null) return object;
+		for (int i = 1, n = stripes.length; i < n; i++) {
+			object = stripes[(index + i) & mask].pop();
+			if (object != null) return object;
+		}
+		return create();
+	}
+
+	/** Puts the specified object in the current thread's stripe, else in another stripe. If every stripe contains the maximum
+	 * number of free objects, the specified object is reset but not added to the pool. */
+	public void free (T object) {
+		if (object == null) throw new IllegalArgumentException("object cannot be null.");
+		reset(object);
+		Stripe<T>[] stripes = this.stripes;
+		int index = index();
+		for (int i = 0, n = stripes.length; i < n; i++)
+			if (stripes[(index + i) & mask].push(object, stripeCapacity)) return;
+	}
+
+	private int index () {
+		long id = Thread.currentThread().getId();
+		int hash = (int)(id ^ id >>> 32) * 0x9E3779B9;
+		return (hash ^ hash >>> 16) & mask;
+	}
+
+	public void clear () {
+		for (Stripe stripe : stripes)
+			stripe.set(null);
+	}
+
+	/** Does nothing, soft references are not supported. */
+	public void clean () {
+	}
+
+	/** The number of objects available to be obtained. This may not be exact while other threads are using the pool. */
+	public int getFree () {
+		int free = 0;
+		for (Stripe stripe : stripes)
+			free += stripe.size();
+		return free;
+	}
+
+	/** The sum of the all-time highest number of free objects in each stripe, which may be more than the highest number of free
+	 * objects in the pool at one time. */
+	public int getPeak () {
+		int peak = 0;
+		for (Stripe stripe : stripes)
+			peak += stripe.peak;
+		return peak;
+	}
+
+	public void resetPeak () {
+		for (Stripe stripe : stripes)
+			stripe.peak = 0;
+	}
+
+	public int getStripeCount () {
+		return stripes.length;
+	}
+
+	/** A lock-free stack of free objects. A new node is used for each push, so a node is never reused while another thread may
+	 * still compare against it. */
+	static private final class Stripe<T> extends AtomicReference<Node<T>> {
+		int peak;
+		// Padding to reduce false sharing between stripes allocated next to each other.
+		long p1, p2, p3, p4, p5, p6, p7;
+
+		T pop () {
+			while (true) {
+				Node<T> node = get();
+				if (node == null) return null;
+				if (compareAndSet(node, node.next)) return node.object;
+			}
+		}
+
+		boolean push (T object, int capacity) {
+			while (true) {
+				Node<T> next = get();
+				int size = next == null ? 1 : next.size + 1;
+				if (size > capacity) return false;
+				if (compareAndSet(next, new Node(object, next, size))) {
+					if (size > peak) peak = size;
+					return true;
+				}
+			}
+		}
+
+		int size () {
+			Node node = get();
+			return node == null ? 0 : node.size;
+		}
+	}
+
+	static private final class Node<T> {
+		final T object;
+		final Node<T> next;
+		final int size;
+
+		Node (T object, Node<T> next, int size) {
+			this.object = object;
+			this.next = next;
+			this.size = size;
+		}
+	}
+}
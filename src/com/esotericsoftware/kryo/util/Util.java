@@ -21,6 +21,8 @@ package com.esotericsoftware.kryo.util;
 
 import static com.esotericsoftware.minlog.Log.*;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.SerializerFactory;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
@@ -101,6 +103,22 @@ public class Util {
 		return Enum.class.isAssignableFrom(type) && type != Enum.class;
 	}
 
+	/** Returns true if the type is registered with an ID and a {@link FieldSerializer} that
+	 * {@link FieldSerializer.FieldSerializerConfig#setElideReferences(boolean) elides references} for its
+	 * {@link FieldSerializer#isAcyclic() acyclic} type. Types registered by name are excluded, since they may be registered at
+	 * different times by the writer and reader. Returns false without looking up the registration unless
+	 * {@link Kryo#getElideReferences()} is true.
+	 * @param kryo May be null. */
+	static public boolean isReferenceElided (Kryo kryo, Class type) {
+		if (kryo == null || !kryo.getElideReferences()) return false;
+		Registration registration = kryo.getClassResolver().getRegistration(type);
+		if (registration == null || registration.getId() == DefaultClassResolver.NAME) return false;
+		Serializer serializer = registration.getSerializer();
+		if (!(serializer instanceof FieldSerializer)) return false;
+		FieldSerializer fieldSerializer = (FieldSerializer)serializer;
+		return fieldSerializer.getFieldSerializerConfig().getElideReferences() && fieldSerializer.isAcyclic();
+	}
+
 	/** Logs a message about an object. The log level and the string format of the object depend on the object type. */
 	static public void log (String message, Object object, int position) {
 		if (object == null) {
@@ -0,0 +1,301 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.serializers;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CachedFields.BooleanField;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
+import com.esotericsoftware.kryo.util.Generics.GenericType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/** Read and write a non-primitive field using a VarHandle, as a supported alternative to {@link UnsafeField}.
+ * <p>
+ * Requires Java 9+. {@link CachedFields} creates these fields reflectively when the system property "kryo.varHandle" is "true".
+ * @author Nathan Sweet */
+class VarHandleField extends ReflectField {
+	final VarHandle handle;
+
+	public VarHandleField (Field field, VarHandle handle, FieldSerializer serializer, GenericType genericType) {
+		super(field, serializer, genericType);
+		this.handle = handle;
+	}
+
+	public Object get (Object object) throws IllegalAccessException {
+		return handle.get(object);
+	}
+
+	public void set (Object object, Object value) throws IllegalAccessException {
+		handle.set(object, value);
+	}
+
+	public void copy (Object original, Object copy) {
+		try {
+			handle.set(copy, fieldSerializer.kryo.copy(handle.get(original)));
+		} catch (KryoException ex) {
+			ex.addTrace(this + " (" + fieldSerializer.type.getName() + ")");
+			throw ex;
+		} catch (Throwable t) {
+			KryoException ex = new KryoException(t);
+			ex.addTrace(this + " (" + fieldSerializer.type.getName() + ")");
+			throw ex;
+		}
+	}
+
+	/** Returns a field that uses a VarHandle, or null if the field is final or a VarHandle cannot be created for it. A VarHandle
+	 * for a final field is read only, so those fields must use Unsafe or reflection.
+	 * @param stringField True if a String field is written without references. */
+	static CachedField newField (Field field, Class fieldClass, FieldSerializer serializer, GenericType genericType,
+		boolean stringField) {
+		if (Modifier.isFinal(field.getModifiers())) return null;
+		VarHandle handle;
+		try {
+			handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectVarHandle(field);
+		} catch (IllegalAccessException ex) {
+			return null;
+		}
+		if (fieldClass.isPrimitive()) {
+			if (fieldClass == int.class) return new IntVarHandleField(field, handle);
+			if (fieldClass == float.class) return new FloatVarHandleField(field, handle);
+			if (fieldClass == boolean.class) return new BooleanVarHandleField(field, handle);
+			if (fieldClass == long.class) return new LongVarHandleField(field, handle);
+			if (fieldClass == double.class) return new DoubleVarHandleField(field, handle);
+			if (fieldClass == short.class) return new ShortVarHandleField(field, handle);
+			if (fieldClass == char.class) return new CharVarHandleField(field, handle);
+			if (fieldClass == byte.class) return new ByteVarHandleField(field, handle);
+		}
+		if (stringField) return new StringVarHandleField(field, handle);
+		return new VarHandleField(field, handle, serializer, genericType);
+	}
+
+	final static class IntVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public IntVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			if (varEncoding)
+				output.writeVarInt((int)handle.get(object), false);
+			else
+				output.writeInt((int)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			if (varEncoding)
+				handle.set(object, input.readVarInt(false));
+			else
+				handle.set(object, input.readInt());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (int)handle.get(original));
+		}
+	}
+
+	final static class FloatVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public FloatVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			output.writeFloat((float)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			handle.set(object, input.readFloat());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (float)handle.get(original));
+		}
+	}
+
+	final static class ShortVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public ShortVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			output.writeShort((short)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			handle.set(object, input.readShort());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (short)handle.get(original));
+		}
+	}
+
+	final static class ByteVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public ByteVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			output.writeByte((byte)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			handle.set(object, input.readByte());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (byte)handle.get(original));
+		}
+	}
+
+	final static class BooleanVarHandleField extends CachedField implements BooleanField {
+		final VarHandle handle;
+
+		public BooleanVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public boolean getBoolean (Object object) {
+			return (boolean)handle.get(object);
+		}
+
+		public void setBoolean (Object object, boolean value) {
+			handle.set(object, value);
+		}
+
+		public void write (Output output, Object object) {
+			output.writeBoolean((boolean)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			handle.set(object, input.readBoolean());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (boolean)handle.get(original));
+		}
+	}
+
+	final static class CharVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public CharVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			output.writeChar((char)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			handle.set(object, input.readChar());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (char)handle.get(original));
+		}
+	}
+
+	final static class LongVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public LongVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			if (varEncoding)
+				output.writeVarLong((long)handle.get(object), false);
+			else
+				output.writeLong((long)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			if (varEncoding)
+				handle.set(object, input.readVarLong(false));
+			else
+				handle.set(object, input.readLong());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (long)handle.get(original));
+		}
+	}
+
+	final static class DoubleVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public DoubleVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			output.writeDouble((double)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			handle.set(object, input.readDouble());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (double)handle.get(original));
+		}
+	}
+
+	final static class StringVarHandleField extends CachedField {
+		final VarHandle handle;
+
+		public StringVarHandleField (Field field, VarHandle handle) {
+			super(field);
+			this.handle = handle;
+		}
+
+		public void write (Output output, Object object) {
+			output.writeString((String)handle.get(object));
+		}
+
+		public void read (Input input, Object object) {
+			handle.set(object, input.readString());
+		}
+
+		public void copy (Object original, Object copy) {
+			handle.set(copy, (String)handle.get(original));
+		}
+	}
+}
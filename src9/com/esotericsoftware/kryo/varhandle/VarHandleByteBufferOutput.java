@@ -0,0 +1,214 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.varhandle;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.ByteBufferOutput;
+import com.esotericsoftware.kryo.unsafe.UnsafeByteBufferOutput;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** A {@link ByteBufferOutput} that writes multi-byte primitive types to a ByteBuffer using VarHandles, as a supported
+ * alternative to {@link UnsafeByteBufferOutput}. Multi-byte primitive types use native byte order, so the data is the same as
+ * written by UnsafeByteBufferOutput and the native byte order on different computers which read and write the data must be the
+ * same. The byte order of the ByteBuffer is not used.
+ * <p>
+ * Requires Java 9+.
+ * <p>
+ * This class may be much faster when {@link #setVariableLengthEncoding(boolean)} is false.
+ * @author Nathan Sweet */
+public class VarHandleByteBufferOutput extends ByteBufferOutput {
+	static final VarHandle intView = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+	static final VarHandle longView = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+	static final VarHandle floatView = MethodHandles.byteBufferViewVarHandle(float[].class, ByteOrder.nativeOrder());
+	static final VarHandle doubleView = MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+	static final VarHandle shortView = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.nativeOrder());
+	static final VarHandle charView = MethodHandles.byteBufferViewVarHandle(char[].class, ByteOrder.nativeOrder());
+
+	/** Creates an uninitialized Output, {@link #setBuffer(ByteBuffer)} must be called before the Output is used. */
+	public VarHandleByteBufferOutput () {
+	}
+
+	/** Creates a new Output for writing to a direct {@link ByteBuffer}.
+	 * @param bufferSize The size of the buffer. An exception is thrown if more bytes than this are written and {@link #flush()}
+	 *           does not empty the buffer. */
+	public VarHandleByteBufferOutput (int bufferSize) {
+		this(bufferSize, bufferSize);
+	}
+
+	/** Creates a new Output for writing to a direct ByteBuffer.
+	 * @param bufferSize The initial size of the buffer.
+	 * @param maxBufferSize If {@link #flush()} does not empty the buffer, the buffer is doubled as needed until it exceeds
+	 *           maxBufferSize and an exception is thrown. Can be -1 for no maximum. */
+	public VarHandleByteBufferOutput (int bufferSize, int maxBufferSize) {
+		super(bufferSize, maxBufferSize);
+	}
+
+	/** Creates a new Output for writing to a ByteBuffer. */
+	public VarHandleByteBufferOutput (ByteBuffer buffer) {
+		super(buffer);
+	}
+
+	/** @see ByteBufferOutput#ByteBufferOutput(OutputStream) */
+	public VarHandleByteBufferOutput (OutputStream outputStream) {
+		super(outputStream);
+	}
+
+	/** @see ByteBufferOutput#ByteBufferOutput(OutputStream, int) */
+	public VarHandleByteBufferOutput (OutputStream outputStream, int bufferSize) {
+		super(outputStream, bufferSize);
+	}
+
+	public void writeInt (int value) throws KryoException {
+		require(4);
+		intView.set(byteBuffer, position, value);
+		position += 4;
+		byteBuffer.position(position);
+	}
+
+	public void writeLong (long value) throws KryoException {
+		require(8);
+		longView.set(byteBuffer, position, value);
+		position += 8;
+		byteBuffer.position(position);
+	}
+
+	public void writeFloat (float value) throws KryoException {
+		require(4);
+		floatView.set(byteBuffer, position, value);
+		position += 4;
+		byteBuffer.position(position);
+	}
+
+	public void writeDouble (double value) throws KryoException {
+		require(8);
+		doubleView.set(byteBuffer, position, value);
+		position += 8;
+		byteBuffer.position(position);
+	}
+
+	public void writeShort (int value) throws KryoException {
+		require(2);
+		shortView.set(byteBuffer, position, (short)value);
+		position += 2;
+		byteBuffer.position(position);
+	}
+
+	public void writeChar (char value) throws KryoException {
+		require(2);
+		charView.set(byteBuffer, position, value);
+		position += 2;
+		byteBuffer.position(position);
+	}
+
+	public void writeInts (int[] array, int offset, int count) throws KryoException {
+		if (capacity >= count << 2) {
+			require(count << 2);
+			ByteBuffer byteBuffer = this.byteBuffer;
+			int p = position;
+			for (int n = offset + count; offset < n; offset++, p += 4)
+				intView.set(byteBuffer, p, array[offset]);
+			position = p;
+			byteBuffer.position(p);
+		} else {
+			for (int n = offset + count; offset < n; offset++)
+				writeInt(array[offset]);
+		}
+	}
+
+	public void writeLongs (long[] array, int offset, int count) throws KryoException {
+		if (capacity >= count << 3) {
+			require(count << 3);
+			ByteBuffer byteBuffer = this.byteBuffer;
+			int p = position;
+			for (int n = offset + count; offset < n; offset++, p += 8)
+				longView.set(byteBuffer, p, array[offset]);
+			position = p;
+			byteBuffer.position(p);
+		} else {
+			for (int n = offset + count; offset < n; offset++)
+				writeLong(array[offset]);
+		}
+	}
+
+	public void writeFloats (float[] array, int offset, int count) throws KryoException {
+		if (capacity >= count << 2) {
+			require(count << 2);
+			ByteBuffer byteBuffer = this.byteBuffer;
+			int p = position;
+			for (int n = offset + count; offset < n; offset++, p += 4)
+				floatView.set(byteBuffer, p, array[offset]);
+			position = p;
+			byteBuffer.position(p);
+		} else {
+			for (int n = offset + count; offset < n; offset++)
+				writeFloat(array[offset]);
+		}
+	}
+
+	public void writeDoubles (double[] array, int offset, int count) throws KryoException {
+		if (capacity >= count << 3) {
+			require(count << 3);
+			ByteBuffer byteBuffer = this.byteBuffer;
+			int p = position;
+			for (int n = offset + count; offset < n; offset++, p += 8)
+				doubleView.set(byteBuffer, p, array[offset]);
+			position = p;
+			byteBuffer.position(p);
+		} else {
+			for (int n = offset + count; offset < n; offset++)
+				writeDouble(array[offset]);
+		}
+	}
+
+	public void writeShorts (short[] array, int offset, int count) throws KryoException {
+		if (capacity >= count << 1) {
+			require(count << 1);
+			ByteBuffer byteBuffer = this.byteBuffer;
+			int p = position;
+			for (int n = offset + count; offset < n; offset++, p += 2)
+				shortView.set(byteBuffer, p, array[offset]);
+			position = p;
+			byteBuffer.position(p);
+		} else {
+			for (int n = offset + count; offset < n; offset++)
+				writeShort(array[offset]);
+		}
+	}
+
+	public void writeChars (char[] array, int offset, int count) throws KryoException {
+		if (capacity >= count << 1) {
+			require(count << 1);
+			ByteBuffer byteBuffer = this.byteBuffer;
+			int p = position;
+			for (int n = offset + count; offset < n; offset++, p += 2)
+				charView.set(byteBuffer, p, array[offset]);
+			position = p;
+			byteBuffer.position(p);
+		} else {
+			for (int n = offset + count; offset < n; offset++)
+				writeChar(array[offset]);
+		}
+	}
+}
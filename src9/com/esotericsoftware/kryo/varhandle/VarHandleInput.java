@@ -0,0 +1,206 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.varhandle;
+
+import static com.esotericsoftware.kryo.varhandle.VarHandleOutput.*;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.unsafe.UnsafeInput;
+
+import java.io.InputStream;
+
+/** An {@link Input} that reads multi-byte primitive types from a byte[] using VarHandles, as a supported alternative to
+ * {@link UnsafeInput}. Multi-byte primitive types use native byte order, so data written by
+ * {@link com.esotericsoftware.kryo.unsafe.UnsafeOutput} can be read and the native byte order on different computers which read
+ * and write the data must be the same.
+ * <p>
+ * Requires Java 9+.
+ * <p>
+ * This class may be much faster when {@link #setVariableLengthEncoding(boolean)} is false.
+ * @author Nathan Sweet */
+public class VarHandleInput extends Input {
+	/** Creates an uninitialized Input, {@link #setBuffer(byte[])} must be called before the Input is used. */
+	public VarHandleInput () {
+	}
+
+	/** Creates a new Input for reading from a byte[] buffer.
+	 * @param bufferSize The size of the buffer. An exception is thrown if more bytes than this are read and
+	 *           {@link #fill(byte[], int, int)} does not supply more bytes. */
+	public VarHandleInput (int bufferSize) {
+		super(bufferSize);
+	}
+
+	/** Creates a new Input for reading from a byte[] buffer.
+	 * @param buffer An exception is thrown if more bytes than this are read and {@link #fill(byte[], int, int)} does not supply
+	 *           more bytes. */
+	public VarHandleInput (byte[] buffer) {
+		super(buffer);
+	}
+
+	/** Creates a new Input for reading from a byte[] buffer.
+	 * @param buffer An exception is thrown if more bytes than this are read and {@link #fill(byte[], int, int)} does not supply
+	 *           more bytes. */
+	public VarHandleInput (byte[] buffer, int offset, int count) {
+		super(buffer, offset, count);
+	}
+
+	/** Creates a new Input for reading from an InputStream with a buffer size of 4096. */
+	public VarHandleInput (InputStream inputStream) {
+		super(inputStream);
+	}
+
+	/** Creates a new Input for reading from an InputStream with the specified buffer size. */
+	public VarHandleInput (InputStream inputStream, int bufferSize) {
+		super(inputStream, bufferSize);
+	}
+
+	public int readInt () throws KryoException {
+		require(4);
+		int result = (int)intView.get(buffer, position);
+		position += 4;
+		return result;
+	}
+
+	public long readLong () throws KryoException {
+		require(8);
+		long result = (long)longView.get(buffer, position);
+		position += 8;
+		return result;
+	}
+
+	public float readFloat () throws KryoException {
+		require(4);
+		float result = (float)floatView.get(buffer, position);
+		position += 4;
+		return result;
+	}
+
+	public double readDouble () throws KryoException {
+		require(8);
+		double result = (double)doubleView.get(buffer, position);
+		position += 8;
+		return result;
+	}
+
+	public short readShort () throws KryoException {
+		require(2);
+		short result = (short)shortView.get(buffer, position);
+		position += 2;
+		return result;
+	}
+
+	public char readChar () throws KryoException {
+		require(2);
+		char result = (char)charView.get(buffer, position);
+		position += 2;
+		return result;
+	}
+
+	public int[] readInts (int length) throws KryoException {
+		int[] array = new int[length];
+		if (optional(length << 2) == length << 2) {
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int i = 0; i < length; i++, p += 4)
+				array[i] = (int)intView.get(buffer, p);
+			position = p;
+		} else {
+			for (int i = 0; i < length; i++)
+				array[i] = readInt();
+		}
+		return array;
+	}
+
+	public long[] readLongs (int length) throws KryoException {
+		long[] array = new long[length];
+		if (optional(length << 3) == length << 3) {
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int i = 0; i < length; i++, p += 8)
+				array[i] = (long)longView.get(buffer, p);
+			position = p;
+		} else {
+			for (int i = 0; i < length; i++)
+				array[i] = readLong();
+		}
+		return array;
+	}
+
+	public float[] readFloats (int length) throws KryoException {
+		float[] array = new float[length];
+		if (optional(length << 2) == length << 2) {
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int i = 0; i < length; i++, p += 4)
+				array[i] = (float)floatView.get(buffer, p);
+			position = p;
+		} else {
+			for (int i = 0; i < length; i++)
+				array[i] = readFloat();
+		}
+		return array;
+	}
+
+	public double[] readDoubles (int length) throws KryoException {
+		double[] array = new double[length];
+		if (optional(length << 3) == length << 3) {
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int i = 0; i < length; i++, p += 8)
+				array[i] = (double)doubleView.get(buffer, p);
+			position = p;
+		} else {
+			for (int i = 0; i < length; i++)
+				array[i] = readDouble();
+		}
+		return array;
+	}
+
+	public short[] readShorts (int length) throws KryoException {
+		short[] array = new short[length];
+		if (optional(length << 1) == length << 1) {
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int i = 0; i < length; i++, p += 2)
+				array[i] = (short)shortView.get(buffer, p);
+			position = p;
+		} else {
+			for (int i = 0; i < length; i++)
+				array[i] = readShort();
+		}
+		return array;
+	}
+
+	public char[] readChars (int length) throws KryoException {
+		char[] array = new char[length];
+		if (optional(length << 1) == length << 1) {
+			byte[] buffer = this.buffer;
+			int p = position;
+			for (int i = 0; i < length; i++, p += 2)
+				array[i] = (char)charView.get(buffer, p);
+			position = p;
+		} else {
+			for (int i = 0; i < length; i++)
+				array[i] = readChar();
+		}
+		return array;
+	}
+}
@@ -0,0 +1,159 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AsyncOutputTest {
+	@Test
+	public void testHandOff () {
+		final ArrayList<Integer> counts = new ArrayList();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream() {
+			public synchronized void write (byte[] bytes, int offset, int count) {
+				counts.add(count);
+				super.write(bytes, offset, count);
+			}
+		};
+		AsyncOutput output = new AsyncOutput(stream, 16, 3, null);
+		// A full buffer is handed off when the next byte is written.
+		for (int i = 0; i < 16; i++)
+			output.writeByte(i);
+		output.writeByte(16);
+		// A value which does not fit in the rest of the buffer is written to the next buffer.
+		output.writeBytes(new byte[10]);
+		output.writeLong(Long.MAX_VALUE);
+		output.flush();
+		assertEquals(stream.size(), output.total());
+		assertEquals(3, counts.size());
+		assertEquals(16, (int)counts.get(0));
+		assertEquals(11, (int)counts.get(1));
+		assertEquals(8, (int)counts.get(2));
+		Input input = new Input(stream.toByteArray());
+		for (int i = 0; i <= 16; i++)
+			assertEquals(i, input.readByte());
+		assertArrayEquals(new byte[10], input.readBytes(10));
+		assertEquals(Long.MAX_VALUE, input.readLong());
+		assertTrue(input.end());
+
+		// Flushing an empty buffer hands off nothing.
+		output.flush();
+		assertEquals(3, counts.size());
+		output.close();
+	}
+
+	@Test
+	public void testBackPressure () throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream() {
+			public synchronized void write (byte[] bytes, int offset, int count) {
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+				}
+				super.write(bytes, offset, count);
+			}
+		};
+		final AsyncOutput output = new AsyncOutput(stream, 16, 2, null);
+		final AtomicInteger written = new AtomicInteger();
+		Thread thread = new Thread() {
+			public void run () {
+				for (int i = 0; i < 64; i++) {
+					output.writeByte(i);
+					written.incrementAndGet();
+				}
+			}
+		};
+		thread.start();
+		thread.join(500);
+		// The first buffer is being written and the second is full, so writing waits for a free buffer.
+		assertTrue(thread.isAlive());
+		assertEquals(32, written.get());
+		release.countDown();
+		thread.join();
+		output.close();
+		byte[] bytes = stream.toByteArray();
+		assertEquals(64, bytes.length);
+		for (int i = 0; i < 64; i++)
+			assertEquals(i, bytes[i]);
+	}
+
+	@Test
+	public void testExecutor () {
+		// The buffers are written in order even when the executor runs the writer on different threads.
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			AsyncOutput output = new AsyncOutput(stream, 16, 2, executor);
+			for (int n = 0; n < 10; n++) {
+				stream.reset();
+				output.setOutputStream(stream);
+				for (int i = 0; i < 1000; i++)
+					output.writeInt(n * 1000 + i);
+				output.flush();
+				Input input = new Input(stream.toByteArray());
+				for (int i = 0; i < 1000; i++)
+					assertEquals(n * 1000 + i, input.readInt());
+				assertTrue(input.end());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testError () {
+		final AtomicInteger writes = new AtomicInteger();
+		OutputStream stream = new OutputStream() {
+			public void write (int b) throws IOException {
+				writes.incrementAndGet();
+				throw new IOException("expected");
+			}
+		};
+		AsyncOutput output = new AsyncOutput(stream, 16, 2, null);
+		try {
+			output.writeBytes(new byte[100]);
+			output.flush();
+			fail();
+		} catch (KryoException expected) {
+			assertEquals("expected", expected.getCause().getMessage());
+		}
+		// The writer discards the buffers after the first failed write.
+		assertEquals(1, writes.get());
+		output.reset();
+		ByteArrayOutputStream stream2 = new ByteArrayOutputStream();
+		output.setOutputStream(stream2);
+		output.writeBytes(new byte[] {1, 2, 3});
+		output.close();
+		assertArrayEquals(new byte[] {1, 2, 3}, stream2.toByteArray());
+	}
+}
@@ -21,7 +21,9 @@ package com.esotericsoftware.kryo.io;
 
 import static org.junit.Assert.*;
 
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.KryoTestCase;
+import com.esotericsoftware.kryo.unsafe.UnsafeByteBufferInput;
 
 import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
@@ -86,4 +88,38 @@ public class ByteBufferInputOutputTest extends KryoTestCase {
 		assertEquals(10, inputBuffer.readInt());
 		assertEquals(9, byteBuffer.position());
 	}
+
+	@Test
+	public void testReadByteBufferSlice () {
+		Output output = new Output(4096);
+		output.writeInt(1234);
+		output.writeVarInt(100, true);
+		for (int i = 0; i < 100; i++)
+			output.writeByte(i);
+		output.writeString("after");
+		byte[] bytes = output.toBytes();
+
+		for (ByteBufferInput input : new ByteBufferInput[] {new ByteBufferInput(bytes), new UnsafeByteBufferInput(bytes),
+			new ByteBufferInput(new ByteArrayInputStream(bytes), 128)}) {
+			assertEquals(1234, input.readInt());
+			int length = input.readVarInt(true);
+			ByteBuffer slice = input.readByteBufferSlice(length);
+			assertTrue(slice.isReadOnly());
+			assertEquals(0, slice.position());
+			assertEquals(100, slice.remaining());
+			for (int i = 0; i < 100; i++)
+				assertEquals(i, slice.get(i));
+			assertEquals(input.position(), input.getByteBuffer().position());
+			assertEquals("after", input.readString());
+			assertTrue(input.end());
+		}
+
+		ByteBufferInput input = new ByteBufferInput(new ByteArrayInputStream(bytes), 64);
+		input.readInt();
+		try {
+			input.readByteBufferSlice(input.readVarInt(true)); // Larger than the buffer.
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
 }
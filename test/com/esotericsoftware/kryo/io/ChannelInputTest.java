@@ -0,0 +1,146 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class ChannelInputTest {
+	@Test
+	public void testPartialFrames () throws IOException {
+		Kryo kryo = new Kryo();
+		kryo.register(ArrayList.class);
+
+		ArrayList<Object> messages = new ArrayList();
+		messages.add("hello");
+		messages.add(1234);
+		ArrayList<Object> list = new ArrayList();
+		for (int i = 0; i < 500; i++)
+			list.add("item " + i);
+		messages.add(list); // Larger than the initial buffer.
+		messages.add(5678L);
+
+		Output output = new Output(1024, -1);
+		Output frame = new Output(1024, -1);
+		for (Object message : messages) {
+			frame.reset();
+			kryo.writeClassAndObject(frame, message);
+			output.writeVarInt(frame.position(), true);
+			output.writeBytes(frame.getBuffer(), 0, frame.position());
+		}
+		byte[] bytes = output.toBytes();
+
+		Pipe pipe = Pipe.open();
+		pipe.source().configureBlocking(false);
+		ChannelInput input = new ChannelInput(pipe.source(), 16, -1);
+		ArrayList<Object> received = new ArrayList();
+		// Deliver the bytes a few at a time, decoding whatever frames are complete.
+		for (int i = 0; i < bytes.length; i += 7) {
+			assertFalse(input.isInFrame());
+			pipe.sink().write(ByteBuffer.wrap(bytes, i, Math.min(7, bytes.length - i)));
+			while (input.readFrame()) {
+				received.add(kryo.readClassAndObject(input));
+				input.endFrame();
+			}
+		}
+		assertEquals(messages, received);
+		assertFalse(input.readFrame());
+		assertFalse(input.isEndOfStream());
+		pipe.sink().close();
+		assertFalse(input.readFrame());
+		assertTrue(input.isEndOfStream());
+		input.close();
+	}
+
+	@Test
+	public void testFrameLimit () throws IOException {
+		Output output = new Output(64);
+		output.writeVarInt(4, true);
+		output.writeInt(1);
+		output.writeVarInt(4, true);
+		output.writeInt(2);
+		ChannelInput input = new ChannelInput(Channels.newChannel(new ByteArrayInputStream(output.toBytes())));
+		assertTrue(input.readFrame());
+		assertEquals(1, input.total());
+		assertEquals(1, input.readInt());
+		try {
+			input.readInt(); // Reading past the end of the frame fails.
+			fail();
+		} catch (KryoException expected) {
+		}
+		assertEquals(5, input.total());
+		input.endFrame();
+		assertEquals(5, input.total());
+		assertTrue(input.readFrame());
+		assertEquals(6, input.total());
+		input.endFrame(); // Unread bytes are skipped.
+		assertEquals(10, input.total());
+		assertFalse(input.readFrame());
+		assertTrue(input.isEndOfStream());
+	}
+
+	@Test
+	public void testSetBufferInFrame () throws IOException {
+		Output output = new Output(64);
+		output.writeVarInt(4, true);
+		output.writeInt(1);
+		ChannelInput input = new ChannelInput(Channels.newChannel(new ByteArrayInputStream(output.toBytes())));
+		assertTrue(input.readFrame());
+		input.setBuffer(new byte[] {1, 0, 0, 0, 2, 0, 0, 0});
+		assertFalse(input.isInFrame());
+		assertEquals(8, input.limit());
+		assertEquals(1, input.readInt());
+		assertEquals(2, input.readInt());
+	}
+
+	@Test
+	public void testMaxBufferSize () throws IOException {
+		Output output = new Output(64);
+		output.writeVarInt(1000, true);
+		ChannelInput input = new ChannelInput(Channels.newChannel(new ByteArrayInputStream(output.toBytes())), 16, 512);
+		try {
+			input.readFrame();
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	@Test
+	public void testBlockingReads () {
+		Output output = new Output(4096);
+		for (int i = 0; i < 1000; i++)
+			output.writeVarInt(i, true);
+		ChannelInput input = new ChannelInput(Channels.newChannel(new ByteArrayInputStream(output.toBytes())), 16, 16);
+		for (int i = 0; i < 1000; i++)
+			assertEquals(i, input.readVarInt(true));
+		assertTrue(input.end());
+	}
+}
@@ -21,6 +21,13 @@ package com.esotericsoftware.kryo.io;
 
 import static org.junit.Assert.*;
 
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
 import org.junit.Test;
 
 /** @author Nathan Sweet */
@@ -56,4 +63,102 @@ public class ChunkedTest {
 		assertEquals(5678, input.readInt());
 		input.close();
 	}
+
+	@Test
+	public void testCheckedChunks () {
+		byte[] bytes = writeCheckedChunks();
+		CheckedInputChunked input = new CheckedInputChunked(new ByteArrayInputStream(bytes), 16);
+		assertEquals("first", input.readString());
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, input.readInt());
+		input.nextChunk();
+		input.nextChunk(); // Skip the second chunk, which is still verified.
+		assertEquals("third", input.readString());
+		input.nextChunk();
+		assertEquals(bytes.length, input.getStreamOffset());
+
+		// Chunks can be read with a buffer smaller than the bytes written by each flush.
+		input = new CheckedInputChunked(new ByteArrayInputStream(bytes), 4);
+		assertEquals("first", input.readString());
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, input.readInt());
+		input.nextChunk();
+		for (int i = 0; i < 100; i++)
+			assertEquals(-i, input.readVarInt(false));
+	}
+
+	@Test
+	public void testCheckedChunksCorrupted () {
+		byte[] bytes = writeCheckedChunks();
+		for (int i = 0; i < bytes.length; i++) {
+			byte[] corrupted = bytes.clone();
+			corrupted[i] ^= 0x10;
+			try {
+				readCheckedChunks(corrupted);
+				fail("Corruption not detected at: " + i);
+			} catch (KryoException expected) {
+			}
+		}
+
+		try {
+			readCheckedChunks(Arrays.copyOf(bytes, 50));
+			fail();
+		} catch (KryoException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().startsWith("Chunk is truncated at offset: "));
+		}
+
+		byte[] corrupted = bytes.clone();
+		corrupted[40] ^= 1;
+		try {
+			readCheckedChunks(corrupted);
+			fail();
+		} catch (KryoException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().startsWith("Chunk checksum mismatch at offset 34: "));
+		}
+	}
+
+	@Test
+	public void testCrc32c () {
+		byte[] bytes = "123456789".getBytes();
+		Checksum checksum = new Crc32c();
+		checksum.update(bytes, 0, bytes.length);
+		assertEquals(0xE3069283L, checksum.getValue());
+		checksum.reset();
+		for (byte b : bytes)
+			checksum.update(b);
+		assertEquals(0xE3069283L, checksum.getValue());
+
+		checksum = Crc32c.newChecksum();
+		checksum.update(bytes, 0, bytes.length);
+		assertEquals(0xE3069283L, checksum.getValue());
+	}
+
+	private byte[] writeCheckedChunks () {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		CheckedOutputChunked output = new CheckedOutputChunked(buffer, 32);
+		output.writeString("first");
+		for (int i = 0; i < 100; i++)
+			output.writeInt(i);
+		output.endChunk();
+		for (int i = 0; i < 100; i++)
+			output.writeVarInt(-i, false);
+		output.endChunk();
+		output.writeString("third");
+		output.endChunk();
+		output.close();
+		return buffer.toByteArray();
+	}
+
+	private void readCheckedChunks (byte[] bytes) {
+		CheckedInputChunked input = new CheckedInputChunked(new ByteArrayInputStream(bytes), 64);
+		assertEquals("first", input.readString());
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, input.readInt());
+		input.nextChunk();
+		for (int i = 0; i < 100; i++)
+			assertEquals(-i, input.readVarInt(false));
+		input.nextChunk();
+		assertEquals("third", input.readString());
+		input.nextChunk();
+	}
 }
@@ -0,0 +1,138 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+public class DirectBufferArenaTest {
+	@Test
+	public void testAllocate () {
+		DirectBufferArena arena = new DirectBufferArena(1024, 4096);
+		ByteBuffer a = arena.allocate(100);
+		assertTrue(a.isDirect());
+		assertEquals(128, a.capacity());
+		assertEquals(1024, arena.getReserved());
+		assertEquals(128, arena.getInUse());
+
+		ByteBuffer b = arena.allocate(1000);
+		assertEquals(1024, b.capacity());
+		assertEquals(2048, arena.getReserved());
+		assertEquals(128 + 1024, arena.getInUse());
+
+		// Freed buffers are reused, including the rest of a slab.
+		arena.free(b);
+		assertSame(b, arena.allocate(600));
+		ByteBuffer c = arena.allocate(512);
+		assertEquals(2048, arena.getReserved());
+
+		// Large buffers are allocated separately and count toward the maximum.
+		try {
+			arena.allocate(4096);
+			fail();
+		} catch (KryoException expected) {
+		}
+		ByteBuffer large = arena.allocate(2000);
+		assertEquals(2000, large.capacity());
+		assertEquals(4048, arena.getReserved());
+		arena.free(large);
+		assertEquals(2048, arena.getReserved());
+
+		arena.free(a);
+		arena.free(b);
+		arena.free(c);
+		assertEquals(0, arena.getInUse());
+		assertEquals(128 + 1024 + 512 + 2000, arena.getPeakInUse());
+		try {
+			arena.free(a);
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+
+		arena.close();
+		assertEquals(0, arena.getReserved());
+		try {
+			arena.allocate(10);
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	@Test
+	public void testCloseBeforeFree () {
+		DirectBufferArena arena = new DirectBufferArena(1024, -1);
+		ByteBuffer small = arena.allocate(100);
+		ByteBuffer large = arena.allocate(2000);
+		ByteBufferOutput output = new ByteBufferOutput(64, -1, arena);
+		output.writeInt(1234);
+
+		// The arena is closed before the buffers and outputs using it, freeing afterward does nothing.
+		arena.close();
+		assertEquals(0, arena.getReserved());
+		arena.free(small);
+		arena.free(large);
+		output.close();
+		output.release();
+		assertEquals(0, arena.getInUse());
+		assertEquals(0, arena.getReserved());
+		try {
+			output.reset();
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	@Test
+	public void testOutput () {
+		DirectBufferArena arena = new DirectBufferArena(1024, -1);
+		ByteBufferOutput output = new ByteBufferOutput(64, -1, arena);
+		output.getByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < 100; i++)
+			output.writeInt(i);
+		assertEquals(512, output.getByteBuffer().capacity());
+		assertEquals(512, arena.getInUse()); // Growing returned the previous buffers.
+		byte[] bytes = output.toBytes();
+		Input input = new ByteBufferInput(bytes);
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, input.readInt());
+
+		output.reset();
+		assertEquals(64, arena.getInUse());
+		assertEquals(ByteOrder.LITTLE_ENDIAN, output.getByteBuffer().order());
+		for (int i = 0; i < 100; i++)
+			output.writeInt(i);
+		assertArrayEquals(bytes, output.toBytes());
+
+		output.close();
+		assertEquals(0, arena.getInUse());
+		output.reset();
+		output.writeInt(1234);
+		assertEquals(1234, new ByteBufferInput(output.toBytes()).readInt());
+		output.release();
+		assertEquals(0, arena.getInUse());
+		assertEquals(1024, arena.getReserved());
+	}
+}
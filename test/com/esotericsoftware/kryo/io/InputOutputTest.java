@@ -23,6 +23,7 @@ import static com.esotericsoftware.kryo.KryoAssert.*;
 import static org.junit.Assert.*;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.KryoTestCase;
 import com.esotericsoftware.kryo.Registration;
 
@@ -32,6 +33,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.Test;
@@ -139,6 +141,89 @@ public class InputOutputTest extends KryoTestCase {
 		runStringTest(1024 * 1024 * 2);
 	}
 
+	@Test
+	public void testLatin1Strings () throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 300; i++)
+			builder.append((char)(i % 2 == 0 ? 'a' + i % 26 : i));
+		String[] values = {"abcdefghijklmnopqrstuvwxyz0123456789", "\u00E1\u00E9\u00ED\u00F3\u00FAabcdefghijklmnopqrstuvwxyz0123456789",
+			"abcdefghijklmnopqrstuvwxyz0123456789\u00FF", "abcdefghijklmnopqrstuvwxyz\u00E1\u00E9\u00ED\u00F3\u00FA0123456789\u1234",
+			builder.toString(), builder.substring(0, 255)};
+
+		// Strings written char by char are the reference for strings written from Latin-1 bytes.
+		Output expected = new Output(16, -1);
+		for (String value : values) {
+			expected.writeVarIntFlag(true, value.length() + 1, true);
+			for (int i = 0, n = value.length(); i < n; i++) {
+				int c = value.charAt(i);
+				if (c <= 127)
+					expected.writeByte(c);
+				else if (c <= 0x7FF) {
+					expected.writeByte(0xC0 | c >> 6);
+					expected.writeByte(0x80 | c & 0x3F);
+				} else {
+					expected.writeByte(0xE0 | c >> 12);
+					expected.writeByte(0x80 | c >> 6 & 0x3F);
+					expected.writeByte(0x80 | c & 0x3F);
+				}
+			}
+		}
+		byte[] bytes = expected.toBytes();
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		Output[] outputs = {new Output(16, -1), new Output(stream, 7), new ByteBufferOutput(16, -1)};
+		for (Output output : outputs) {
+			for (String value : values)
+				output.writeString(value);
+			output.flush();
+		}
+		assertArrayEquals(bytes, outputs[0].toBytes());
+		assertArrayEquals(bytes, stream.toByteArray());
+		assertArrayEquals(bytes, outputs[2].toBytes());
+
+		for (Input input : new Input[] {new Input(bytes), new Input(new ByteArrayInputStream(bytes), 16),
+			new ByteBufferInput(bytes)}) {
+			for (String value : values)
+				assertEquals(value, input.readString());
+			assertTrue(input.end());
+		}
+	}
+
+	@Test
+	public void testStringCache () throws IOException {
+		String[] values = {"abc", "áéí", "abcሴ", "", null, "a", "abc", "áéí", "abcሴ",
+			"abcdefghijklmnopqrstuvwxyz0123456789", "abcdefghijklmnopqrstuvwxyz0123456789"};
+		Output output = new Output(64, -1);
+		for (String value : values)
+			output.writeString(value);
+		output.writeAscii("abc");
+		output.writeAscii("abc");
+		byte[] bytes = output.toBytes();
+
+		for (Input input : new Input[] {new Input(bytes), new Input(new ByteArrayInputStream(bytes), 16),
+			new ByteBufferInput(bytes)}) {
+			StringCache cache = new StringCache(1024, 8);
+			input.setStringCache(cache);
+			String[] read = new String[values.length];
+			for (int i = 0; i < values.length; i++) {
+				read[i] = input.readString();
+				assertEquals(values[i], read[i]);
+			}
+			assertEquals("abc", input.readString());
+			assertEquals("abc", input.readString());
+			assertTrue(input.end());
+			if (input.getInputStream() == null) {
+				// Repeated strings are the same instance, strings longer than the max length are not cached.
+				assertSame(read[0], read[6]);
+				assertSame(read[1], read[7]);
+				assertSame(read[2], read[8]);
+				assertNotSame(read[9], read[10]);
+				assertEquals(5, cache.getHits());
+				assertEquals(4, cache.getMisses());
+			}
+		}
+	}
+
 	@Test
 	public void testGrowingBufferForAscii () {
 		// Initial size of 0.
@@ -879,6 +964,50 @@ public class InputOutputTest extends KryoTestCase {
 		assertEquals(65535, read.readChar());
 	}
 
+	@Test
+	public void testVarIntArrays () throws IOException {
+		Random random = new Random(42);
+		int[] ints = new int[1000];
+		long[] longs = new long[1000];
+		for (int i = 0; i < ints.length; i++) {
+			// Mix value sizes so every encoded length is used.
+			ints[i] = random.nextInt() >> random.nextInt(32);
+			longs[i] = random.nextLong() >> random.nextInt(64);
+		}
+
+		Output expected = new Output(16, -1);
+		for (boolean optimizePositive : new boolean[] {true, false}) {
+			for (int value : ints)
+				expected.writeVarInt(value, optimizePositive);
+			for (long value : longs)
+				expected.writeVarLong(value, optimizePositive);
+		}
+		byte[] bytes = expected.toBytes();
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		Output[] outputs = {new Output(16, -1), new Output(stream, 13), new ByteBufferOutput(16, -1)};
+		for (Output output : outputs) {
+			for (boolean optimizePositive : new boolean[] {true, false}) {
+				output.writeInts(ints, 0, ints.length, optimizePositive);
+				output.writeLongs(longs, 0, longs.length, optimizePositive);
+			}
+			output.flush();
+		}
+		assertArrayEquals(bytes, outputs[0].toBytes());
+		assertArrayEquals(bytes, stream.toByteArray());
+		assertArrayEquals(bytes, outputs[2].toBytes());
+
+		Input[] inputs = {new Input(bytes), new Input(new ByteArrayInputStream(bytes), 11), new ByteBufferInput(bytes),
+			new ByteBufferInput(new ByteArrayInputStream(bytes), 11)};
+		for (Input input : inputs) {
+			for (boolean optimizePositive : new boolean[] {true, false}) {
+				assertArrayEquals(ints, input.readInts(ints.length, optimizePositive));
+				assertArrayEquals(longs, input.readLongs(longs.length, optimizePositive));
+			}
+			assertTrue(input.end());
+		}
+	}
+
 	@Test
 	public void testInputWithOffset () throws Exception {
 		final byte[] buf = new byte[30];
@@ -979,6 +1108,238 @@ public class InputOutputTest extends KryoTestCase {
 		output.setBuffer(new byte[bufferSize], maxBufferSize);
 	}
 
+	@Test
+	public void testDeltaInts () {
+		int[] ints = {1000000, 1000001, 1000003, 1000003, 999990, Integer.MAX_VALUE, Integer.MIN_VALUE, -1, 0};
+		long[] longs = {1500000000000L, 1500000000005L, 1500000000004L, Long.MAX_VALUE, Long.MIN_VALUE, 0, -1};
+
+		Output output = new Output(32, -1);
+		output.writeDeltaInts(ints, 0, ints.length);
+		output.writeDeltaLongs(longs, 0, longs.length);
+		Input input = new Input(output.toBytes());
+		assertArrayEquals(ints, input.readDeltaInts(ints.length));
+		assertArrayEquals(longs, input.readDeltaLongs(longs.length));
+		assertTrue(input.end());
+
+		// Sorted values are smaller than with variable length encoding.
+		int[] sorted = new int[100];
+		for (int i = 0; i < sorted.length; i++)
+			sorted[i] = 1000000 + i * 3;
+		output.reset();
+		output.writeDeltaInts(sorted, 0, sorted.length);
+		assertEquals(3 + 99, output.position());
+		output.reset();
+		output.writeInts(sorted, 0, sorted.length, true);
+		assertEquals(300, output.position());
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		output = new Output(buffer, 10);
+		output.writeDeltaInts(ints, 0, ints.length);
+		output.writeDeltaLongs(longs, 0, longs.length);
+		output.flush();
+		input = new Input(new ByteArrayInputStream(buffer.toByteArray()), 2);
+		assertArrayEquals(ints, input.readDeltaInts(ints.length));
+		assertArrayEquals(longs, input.readDeltaLongs(longs.length));
+
+		output = new ByteBufferOutput(32, -1);
+		output.writeDeltaInts(ints, 1, ints.length - 1);
+		output.writeDeltaLongs(longs, 1, longs.length - 1);
+		input = new ByteBufferInput(output.toBytes());
+		assertArrayEquals(Arrays.copyOfRange(ints, 1, ints.length), input.readDeltaInts(ints.length - 1));
+		assertArrayEquals(Arrays.copyOfRange(longs, 1, longs.length), input.readDeltaLongs(longs.length - 1));
+	}
+
+	@Test
+	public void testAdaptiveInts () {
+		Random random = new Random(42);
+		int[] small = new int[100], large = new int[100], negative = new int[100], sorted = new int[100];
+		long[] smallLongs = new long[100], largeLongs = new long[100], negativeLongs = new long[100], sortedLongs = new long[100];
+		for (int i = 0; i < 100; i++) {
+			small[i] = random.nextInt(100);
+			large[i] = random.nextInt();
+			negative[i] = -1 - random.nextInt(60);
+			sorted[i] = 1000000000 + i * 10;
+			smallLongs[i] = small[i];
+			largeLongs[i] = random.nextLong();
+			negativeLongs[i] = negative[i];
+			sortedLongs[i] = 1500000000000L + i * 1000;
+		}
+		large[0] = 1; // Not sampled by the delta estimate.
+
+		assertAdaptive(small, 1, 1 + 100);
+		assertAdaptive(large, 0, 1 + 400);
+		assertAdaptive(negative, 2, -1);
+		assertAdaptive(sorted, 3, -1);
+		assertAdaptive(new int[0], 0, 1);
+		assertAdaptive(smallLongs, 1, 1 + 100);
+		assertAdaptive(largeLongs, 0, 1 + 800);
+		assertAdaptive(negativeLongs, 2, -1);
+		assertAdaptive(sortedLongs, 3, -1);
+
+		// Large arrays are sampled.
+		int[] ints = new int[100000];
+		for (int i = 0; i < ints.length; i++)
+			ints[i] = i;
+		assertAdaptive(ints, 3, -1);
+
+		Input input = new Input(new byte[] {9});
+		try {
+			input.readAdaptiveInts(1);
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	private void assertAdaptive (Object array, int encoding, int size) {
+		boolean isInt = array instanceof int[];
+		int length = isInt ? ((int[])array).length : ((long[])array).length;
+		for (Output output : new Output[] {new Output(16, -1), new ByteBufferOutput(16, -1)}) {
+			output.setVariableLengthEncoding(false); // Must not affect the encoding.
+			if (isInt)
+				output.writeAdaptiveInts((int[])array, 0, length);
+			else
+				output.writeAdaptiveLongs((long[])array, 0, length);
+			byte[] bytes = output.toBytes();
+			assertEquals(encoding, bytes[0]);
+			if (size != -1) assertEquals(size, bytes.length);
+
+			Input[] inputs = {new Input(bytes), new Input(new ByteArrayInputStream(bytes), 10), new ByteBufferInput(bytes)};
+			for (Input input : inputs) {
+				if (isInt)
+					assertArrayEquals((int[])array, input.readAdaptiveInts(length));
+				else
+					assertArrayEquals((long[])array, input.readAdaptiveLongs(length));
+				assertTrue(input.end());
+			}
+		}
+	}
+
+	@Test
+	public void testBits () {
+		Output output = new Output(16, -1);
+		output.writeBits(1, 1);
+		output.writeBits(0x5, 3);
+		output.writeBits(0x123456789abcdefL, 60);
+		output.writeBits(-1, 64);
+		output.writeBits(0, 0);
+		output.writeBits(0x3, 2);
+		output.flushBits();
+		output.writeByte(7);
+		assertEquals(18, output.position());
+
+		Input input = new Input(output.toBytes());
+		assertEquals(1, input.readBits(1));
+		assertEquals(0x5, input.readBits(3));
+		assertEquals(0x123456789abcdefL, input.readBits(60));
+		assertEquals(-1, input.readBits(64));
+		assertEquals(0, input.readBits(0));
+		assertEquals(0x3, input.readBits(2));
+		input.clearBits();
+		assertEquals(7, input.readByte());
+		assertTrue(input.end());
+	}
+
+	@Test
+	public void testXorDoubles () {
+		Random random = new Random(42);
+		double[] series = new double[1000], randoms = new double[100];
+		float[] floatSeries = new float[1000];
+		for (int i = 0; i < series.length; i++) {
+			series[i] = 20 + Math.round(Math.sin(i / 50d) * 64) / 16d;
+			floatSeries[i] = (float)series[i];
+		}
+		for (int i = 0; i < randoms.length; i++)
+			randoms[i] = random.nextDouble();
+		double[] special = {0, -0d, Double.NaN, Double.longBitsToDouble(0x7ff8000000000123L), Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, 1, 1};
+		float[] specialFloats = {0, -0f, Float.NaN, Float.intBitsToFloat(0x7fc00123), Float.POSITIVE_INFINITY,
+			Float.NEGATIVE_INFINITY, Float.MIN_VALUE, Float.MAX_VALUE, 1, 1};
+
+		for (Output output : new Output[] {new Output(16, -1), new ByteBufferOutput(16, -1)}) {
+			output.writeXorDoubles(series, 0, series.length);
+			int seriesSize = output.position();
+			assertTrue(seriesSize < series.length); // Less than 1 byte per value.
+			output.writeXorFloats(floatSeries, 0, floatSeries.length);
+			output.writeXorDoubles(randoms, 1, randoms.length - 1);
+			output.writeXorDoubles(special, 0, special.length);
+			output.writeXorFloats(specialFloats, 0, specialFloats.length);
+			output.writeXorDoubles(new double[0], 0, 0);
+			output.writeByte(7);
+			byte[] bytes = output.toBytes();
+
+			Input[] inputs = {new Input(bytes), new Input(new ByteArrayInputStream(bytes), 10), new ByteBufferInput(bytes)};
+			for (Input input : inputs) {
+				assertArrayEquals(series, input.readXorDoubles(series.length), 0);
+				assertArrayEquals(floatSeries, input.readXorFloats(floatSeries.length), 0);
+				assertArrayEquals(Arrays.copyOfRange(randoms, 1, randoms.length), input.readXorDoubles(randoms.length - 1), 0);
+				double[] doubles = input.readXorDoubles(special.length);
+				for (int i = 0; i < special.length; i++)
+					assertEquals(Double.doubleToRawLongBits(special[i]), Double.doubleToRawLongBits(doubles[i]));
+				float[] floats = input.readXorFloats(specialFloats.length);
+				for (int i = 0; i < specialFloats.length; i++)
+					assertEquals(Float.floatToRawIntBits(specialFloats[i]), Float.floatToRawIntBits(floats[i]));
+				assertEquals(0, input.readXorDoubles(0).length);
+				assertEquals(7, input.readByte());
+				assertTrue(input.end());
+			}
+		}
+	}
+
+	@Test
+	public void testPackedBooleans () {
+		Random random = new Random(42);
+		for (int length : new int[] {0, 1, 7, 8, 9, 63, 64, 65, 1000}) {
+			boolean[] array = new boolean[length];
+			for (int i = 0; i < length; i++)
+				array[i] = random.nextBoolean();
+
+			Output output = new Output(16, -1);
+			output.writePackedBooleans(array, 0, length);
+			assertEquals((length + 7) / 8, output.position());
+			assertEquals(output.position(), Output.packedBytes(length));
+			assertArrayEquals(array, new Input(output.toBytes()).readPackedBooleans(length));
+			assertArrayEquals(array, new Input(new ByteArrayInputStream(output.toBytes()), 2).readPackedBooleans(length));
+
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			output = new Output(buffer, 2);
+			output.writePackedBooleans(array, 0, length);
+			output.flush();
+			assertArrayEquals(array, new Input(buffer.toByteArray()).readPackedBooleans(length));
+
+			output = new ByteBufferOutput(16, -1);
+			output.writePackedBooleans(array, 0, length);
+			assertArrayEquals(array, new ByteBufferInput(output.toBytes()).readPackedBooleans(length));
+		}
+
+		Output output = new Output(16);
+		output.writePackedBooleans(new boolean[] {true, false, false, true, true, false, false, false, false, true}, 0, 10);
+		assertArrayEquals(new byte[] {0x19, 0x02}, output.toBytes());
+	}
+
+	@Test
+	public void testGrowthPolicy () {
+		assertEquals(32, GrowthPolicy.doubling.grow(0, 1));
+		assertEquals(400, GrowthPolicy.doubling.grow(100, 300));
+		assertEquals(337, GrowthPolicy.factor(1.5f).grow(100, 300));
+		assertEquals(400, GrowthPolicy.increment(100).grow(100, 301));
+		assertEquals(4096 + 1024, GrowthPolicy.capped(1024).grow(4096, 4097));
+		assertEquals(Integer.MAX_VALUE, GrowthPolicy.doubling.grow(1 << 30, Integer.MAX_VALUE));
+
+		Output output = new Output(10, 1000);
+		output.setGrowthPolicy(GrowthPolicy.increment(10));
+		output.writeBytes(new byte[25]);
+		assertEquals(30, output.getBuffer().length);
+		output.writeBytes(new byte[960]);
+		assertEquals(990, output.getBuffer().length);
+		output.writeBytes(new byte[15]);
+		assertEquals(1000, output.getBuffer().length); // Limited by the max buffer size.
+
+		output = new ByteBufferOutput(10, 1000);
+		output.setGrowthPolicy(GrowthPolicy.increment(10));
+		output.writeBytes(new byte[25]);
+		assertEquals(30, ((ByteBufferOutput)output).getByteBuffer().capacity());
+	}
+
 	@Test
 	public void testNewOutputMaxBufferSizeIsMinusOne () {
 		int bufferSize = 2;
@@ -0,0 +1,174 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedFileInputOutputTest {
+	private File file;
+
+	@Before
+	public void setUp () throws IOException {
+		file = File.createTempFile("kryo", ".bin");
+	}
+
+	@After
+	public void tearDown () {
+		file.delete();
+	}
+
+	@Test
+	public void testWindows () {
+		// A small window forces values and strings to cross window boundaries.
+		MappedFileOutput output = new MappedFileOutput(file, 13);
+		for (int i = 0; i < 1000; i++) {
+			output.writeInt(i);
+			output.writeVarLong(i * 1234567891L, false);
+			output.writeString("abc" + i);
+			output.writeString("été " + i);
+			output.writeDouble(i / 3d);
+		}
+		long total = output.total();
+		output.close();
+		assertEquals(total, file.length());
+
+		MappedFileInput input = new MappedFileInput(file, 17);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, input.readInt());
+			assertEquals(i * 1234567891L, input.readVarLong(false));
+			assertEquals("abc" + i, input.readString());
+			assertEquals("été " + i, input.readString());
+			assertEquals(i / 3d, input.readDouble(), 0);
+		}
+		assertEquals(total, input.filePosition());
+		assertTrue(input.end());
+		input.close();
+	}
+
+	@Test
+	public void testBytes () {
+		byte[] bytes = new byte[1000];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = (byte)i;
+		MappedFileOutput output = new MappedFileOutput(file, 64);
+		output.writeBytes(bytes);
+		output.writeInts(new int[] {1, 2, 3}, 0, 3);
+		output.close();
+		assertEquals(1012, file.length());
+
+		MappedFileInput input = new MappedFileInput(file, 64);
+		byte[] read = new byte[1000];
+		assertEquals(1000, input.read(read));
+		assertArrayEquals(bytes, read);
+		assertArrayEquals(new int[] {1, 2, 3}, input.readInts(3));
+		assertEquals(-1, input.read());
+		input.close();
+	}
+
+	@Test
+	public void testByteBufferSlice () {
+		MappedFileOutput output = new MappedFileOutput(file, 16);
+		for (int i = 0; i < 100; i++)
+			output.writeInt(i);
+		output.close();
+
+		MappedFileInput input = new MappedFileInput(file, 16);
+		input.skip(4);
+		ByteBuffer slice = input.readByteBufferSlice(8);
+		// Reading maps later windows, the window that was sliced must stay mapped.
+		for (int i = 3; i < 100; i++)
+			assertEquals(i, input.readInt());
+		input.close();
+		assertEquals(8, slice.remaining());
+		ByteBufferInput sliceInput = new ByteBufferInput(slice);
+		assertEquals(1, sliceInput.readInt());
+		assertEquals(2, sliceInput.readInt());
+	}
+
+	@Test
+	public void testFilePosition () {
+		MappedFileOutput output = new MappedFileOutput(file, 16);
+		output.writeLong(0);
+		for (int i = 0; i < 100; i++)
+			output.writeInt(i);
+		long end = output.filePosition();
+		output.setFilePosition(0); // Backpatch a header, the file keeps its length.
+		output.writeLong(end);
+		output.close();
+		assertEquals(end, file.length());
+
+		MappedFileInput input = new MappedFileInput(file, 16);
+		assertEquals(end, input.readLong());
+		input.skip(50 * 4);
+		assertEquals(50, input.readInt());
+		input.setFilePosition(8 + 10 * 4);
+		assertEquals(10, input.readInt());
+		input.setFilePosition(8 + 99 * 4);
+		assertEquals(99, input.readInt());
+		try {
+			input.readInt();
+			fail();
+		} catch (KryoException expected) {
+		}
+		input.reset();
+		assertEquals(end, input.readLong());
+		input.close();
+	}
+
+	@Test
+	public void testClosed () {
+		MappedFileOutput output = new MappedFileOutput(file, 16);
+		for (int i = 0; i < 10; i++)
+			output.writeInt(i);
+		output.close();
+		try {
+			output.writeInt(10);
+			fail();
+		} catch (KryoException expected) {
+		}
+		try {
+			output.reset();
+			fail();
+		} catch (KryoException expected) {
+		}
+		try {
+			output.setFilePosition(0);
+			fail();
+		} catch (KryoException expected) {
+		}
+		try {
+			output.force();
+			fail();
+		} catch (KryoException expected) {
+		}
+		output.close();
+		assertEquals(40, file.length());
+	}
+}
@@ -0,0 +1,104 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+public class PooledBufferAllocatorTest {
+	@Test
+	public void testSizes () {
+		PooledBufferAllocator allocator = new PooledBufferAllocator(100, 1000, 2);
+		assertEquals(128, allocator.allocate(1).length);
+		assertEquals(128, allocator.allocate(128).length);
+		assertEquals(256, allocator.allocate(129).length);
+		assertEquals(1024, allocator.allocate(1000).length);
+		assertEquals(2000, allocator.allocate(2000).length);
+
+		byte[] buffer = allocator.allocate(200);
+		allocator.free(buffer);
+		assertEquals(1, allocator.getFree(200));
+		assertSame(buffer, allocator.allocate(150));
+		assertEquals(0, allocator.getFree(200));
+
+		// Only pooled sizes are kept, up to the maximum.
+		allocator.free(new byte[200]);
+		allocator.free(new byte[2048]);
+		assertEquals(0, allocator.getFree(200));
+		for (int i = 0; i < 3; i++)
+			allocator.free(new byte[256]);
+		assertEquals(2, allocator.getFree(256));
+		allocator.clear();
+		assertEquals(0, allocator.getFree(256));
+	}
+
+	@Test
+	public void testOutput () {
+		PooledBufferAllocator allocator = new PooledBufferAllocator(16, 1024, 4);
+		Output output = new Output(32, -1, allocator);
+		byte[] initial = output.getBuffer();
+		output.writeBytes(new byte[100]);
+		assertEquals(128, output.getBuffer().length);
+		assertEquals(1, allocator.getFree(32)); // Growing returned the initial buffer.
+		byte[] bytes = output.toBytes();
+
+		output.reset(); // Replaces the grown buffer with one of the initial size.
+		assertSame(initial, output.getBuffer());
+		assertEquals(1, allocator.getFree(128));
+		output.writeBytes(new byte[100]);
+		assertArrayEquals(bytes, output.toBytes());
+
+		output.close();
+		assertEquals(1, allocator.getFree(128));
+		output.reset();
+		output.writeInt(1234);
+		assertEquals(1234, new Input(output.toBytes()).readInt());
+
+		// A buffer set by the user is never returned to the allocator.
+		byte[] buffer = new byte[16];
+		output.setBuffer(buffer, -1);
+		output.writeBytes(new byte[100]);
+		output.close();
+		assertEquals(0, allocator.getFree(16));
+	}
+
+	@Test
+	public void testInput () {
+		PooledBufferAllocator allocator = new PooledBufferAllocator(16, 1024, 4);
+		Output output = new Output(64);
+		output.writeString("abc");
+		output.writeInt(1234);
+		byte[] bytes = output.toBytes();
+
+		Input input = new Input(new ByteArrayInputStream(bytes), 64, allocator);
+		assertEquals("abc", input.readString());
+		assertEquals(1234, input.readInt());
+		input.close();
+		assertEquals(1, allocator.getFree(64));
+		input.setInputStream(new ByteArrayInputStream(bytes));
+		assertEquals(0, allocator.getFree(64));
+		assertEquals("abc", input.readString());
+		assertEquals(1234, input.readInt());
+		assertTrue(input.end());
+	}
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.KryoException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class ReadAheadInputTest {
+	@Test
+	public void testPartialBlocks () {
+		// The last block is partial.
+		byte[] bytes = bytes(100);
+		ReadAheadInput input = new ReadAheadInput(new ByteArrayInputStream(bytes), 16, 2, null);
+		assertBytes(bytes, input);
+		assertEquals(100, input.total());
+
+		// The stream ends exactly at the end of a block, so the reader's last block is empty.
+		bytes = bytes(64);
+		input.setInputStream(new ByteArrayInputStream(bytes));
+		assertBytes(bytes, input);
+
+		// Short reads from the stream still fill each block.
+		input.setInputStream(new ByteArrayInputStream(bytes) {
+			public synchronized int read (byte[] bytes, int offset, int count) {
+				return super.read(bytes, offset, Math.min(count, 7));
+			}
+		});
+		assertBytes(bytes, input);
+
+		input.setInputStream(new ByteArrayInputStream(new byte[0]));
+		assertTrue(input.end());
+		input.close();
+	}
+
+	@Test
+	public void testExecutor () {
+		byte[] bytes = bytes(1000);
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			ReadAheadInput input = new ReadAheadInput(new ByteArrayInputStream(bytes), 128, 3, executor);
+			for (int i = 0; i < 10; i++) {
+				input.setInputStream(new ByteArrayInputStream(bytes));
+				assertBytes(bytes, input);
+			}
+
+			// Stop reading part way through, the reader for the previous stream is stopped.
+			input.setInputStream(new ByteArrayInputStream(bytes));
+			assertEquals(0, input.readByte());
+			input.setBuffer(bytes);
+			assertBytes(bytes, input);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testError () {
+		// The blocks filled before the exception can be read, the partial block is lost.
+		ReadAheadInput input = new ReadAheadInput(failingStream(40, new IOException("expected")), 16, 4, null);
+		assertArrayEquals(bytes(32), input.readBytes(32));
+		try {
+			input.readByte();
+			fail();
+		} catch (KryoException expected) {
+			assertEquals("expected", expected.getCause().getMessage());
+		}
+		input.close();
+	}
+
+	@Test(timeout = 10000)
+	public void testRuntimeError () {
+		RuntimeException error = new IllegalStateException("expected");
+		ReadAheadInput input = new ReadAheadInput(failingStream(40, error), 16, 4, null);
+		try {
+			input.readBytes(33);
+			fail();
+		} catch (KryoException expected) {
+			assertSame(error, expected.getCause());
+		}
+		input.close();
+	}
+
+	private byte[] bytes (int count) {
+		byte[] bytes = new byte[count];
+		for (int i = 0; i < count; i++)
+			bytes[i] = (byte)i;
+		return bytes;
+	}
+
+	/** Reads in chunks of varying sizes, so reads cross block boundaries at different offsets. */
+	private void assertBytes (byte[] bytes, Input input) {
+		int position = 0;
+		for (int size = 1; position < bytes.length; size = size % 20 + 1) {
+			int count = Math.min(size, bytes.length - position);
+			byte[] read = input.readBytes(count);
+			for (int i = 0; i < count; i++)
+				assertEquals(bytes[position + i], read[i]);
+			position += count;
+		}
+		assertTrue(input.end());
+	}
+
+	/** Returns a stream of {@link #bytes(int)} which throws after the specified number of bytes. */
+	private InputStream failingStream (final int failAt, final Throwable error) {
+		return new InputStream() {
+			int count;
+
+			public int read () throws IOException {
+				if (count == failAt) {
+					if (error instanceof IOException) throw (IOException)error;
+					throw (RuntimeException)error;
+				}
+				return count++ & 0xFF;
+			}
+		};
+	}
+}
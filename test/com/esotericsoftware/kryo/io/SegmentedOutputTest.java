@@ -0,0 +1,178 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.SegmentedOutput.SegmentPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+public class SegmentedOutputTest {
+	@Test
+	public void testSegmentBoundaries () {
+		SegmentedOutput output = new SegmentedOutput(16);
+		// An int does not fit in the last 2 bytes, which are left unused.
+		output.writeBytes(bytes(14));
+		output.writeInt(123);
+		// A long fits exactly in the rest of the segment.
+		output.writeInt(456);
+		output.writeLong(789);
+		output.writeByte(1);
+		assertEquals(3, output.getSegmentCount());
+		assertEquals(14, output.getSegmentLength(0));
+		assertEquals(16, output.getSegmentLength(1));
+		assertEquals(1, output.getSegmentLength(2));
+		assertEquals(16, output.getSegment(2).length);
+		// Bytes are split across segments.
+		output.writeBytes(bytes(40));
+		assertEquals(5, output.getSegmentCount());
+		assertEquals(16, output.getSegmentLength(2));
+		assertEquals(16, output.getSegmentLength(3));
+		assertEquals(9, output.getSegmentLength(4));
+		assertEquals(71, output.total());
+		assertEquals(9, output.position());
+
+		byte[] bytes = output.toBytes();
+		assertEquals(71, bytes.length);
+		Input input = new Input(bytes);
+		assertArrayEquals(bytes(14), input.readBytes(14));
+		assertEquals(123, input.readInt());
+		assertEquals(456, input.readInt());
+		assertEquals(789, input.readLong());
+		assertEquals(1, input.readByte());
+		assertArrayEquals(bytes(40), input.readBytes(40));
+		assertTrue(input.end());
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		output.writeTo(stream);
+		assertArrayEquals(bytes, stream.toByteArray());
+		int length = 0;
+		for (ByteBuffer buffer : output.toByteBuffers())
+			length += buffer.remaining();
+		assertEquals(71, length);
+	}
+
+	@Test
+	public void testSegmentTooSmall () {
+		SegmentedOutput output = new SegmentedOutput(8);
+		output.writeVarLong(Long.MAX_VALUE >>> 8, true); // 8 bytes.
+		try {
+			output.writeVarLong(Long.MAX_VALUE, true); // 9 bytes.
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	@Test
+	public void testGatheringWrite () throws IOException {
+		SegmentedOutput output = new SegmentedOutput(32);
+		for (int i = 0; i < 100; i++) {
+			output.writeBytes(bytes(i % 7));
+			output.writeLong(i);
+		}
+		byte[] bytes = output.toBytes();
+		File file = File.createTempFile("kryo", ".bin");
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+			assertEquals(bytes.length, output.writeTo(channel));
+			channel.close();
+			assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testRecycle () {
+		SegmentPool pool = new SegmentPool(64, false);
+		SegmentedOutput output = new SegmentedOutput(pool);
+		output.writeBytes(bytes(200));
+		assertEquals(4, output.getSegmentCount());
+		output.reset();
+		assertEquals(0, output.total());
+		assertEquals(3, pool.getFree());
+		// The current segment is kept and the freed segments are used again.
+		output.writeBytes(bytes(200));
+		assertEquals(0, pool.getFree());
+		assertArrayEquals(bytes(200), output.toBytes());
+		output.release();
+		assertEquals(4, pool.getFree());
+		output.writeBytes(bytes(10));
+		assertEquals(3, pool.getFree());
+		assertArrayEquals(bytes(10), output.toBytes());
+	}
+
+	@Test
+	public void testFlush () {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		SegmentPool pool = new SegmentPool(16, false);
+		SegmentedOutput output = new SegmentedOutput(pool);
+		output.setOutputStream(stream);
+		output.writeBytes(bytes(14));
+		output.writeInt(123); // Leaves 2 unused bytes, which are not written to the stream.
+		output.flush();
+		assertEquals(0, output.getSegmentCount());
+		assertEquals(1, pool.getFree());
+		assertEquals(18, stream.size());
+		assertEquals(18, output.total());
+
+		// Writing continues in the current segment.
+		output.writeInt(456);
+		output.flush();
+		assertEquals(22, stream.size());
+		assertEquals(22, output.total());
+		Input input = new Input(stream.toByteArray());
+		assertArrayEquals(bytes(14), input.readBytes(14));
+		assertEquals(123, input.readInt());
+		assertEquals(456, input.readInt());
+		assertTrue(input.end());
+	}
+
+	@Test
+	public void testFlushThenToBytes () {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		SegmentedOutput output = new SegmentedOutput(16);
+		output.setOutputStream(stream);
+		output.writeBytes(new byte[40]);
+		output.flush();
+		output.writeInt(123);
+		assertEquals(44, output.total());
+		Input input = new Input(output.toBytes());
+		assertEquals(4, input.limit());
+		assertEquals(123, input.readInt());
+	}
+
+	private byte[] bytes (int count) {
+		byte[] bytes = new byte[count];
+		for (int i = 0; i < count; i++)
+			bytes[i] = (byte)i;
+		return bytes;
+	}
+}
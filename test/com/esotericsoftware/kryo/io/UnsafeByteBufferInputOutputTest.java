@@ -128,6 +128,29 @@ public class UnsafeByteBufferInputOutputTest {
 			61, 62, 63, 64, 65}, buffer.toBytes());
 	}
 
+	/** The bulk array writes must write count elements starting at offset, not the whole array. */
+	@Test
+	public void testArrayOffsetAndCount () {
+		UnsafeByteBufferOutput output = new UnsafeByteBufferOutput(1024);
+		output.writeInts(new int[] {1, 2, 3, 4}, 1, 2);
+		output.writeLongs(new long[] {1, 2, 3, 4}, 1, 2);
+		output.writeFloats(new float[] {1, 2, 3, 4}, 1, 2);
+		output.writeDoubles(new double[] {1, 2, 3, 4}, 1, 2);
+		output.writeShorts(new short[] {1, 2, 3, 4}, 1, 2);
+		output.writeChars(new char[] {1, 2, 3, 4}, 1, 2);
+		output.writeBooleans(new boolean[] {false, true, false, false}, 1, 2);
+		assertEquals(8 + 16 + 8 + 16 + 4 + 4 + 2, output.position());
+
+		Input input = new UnsafeByteBufferInput(output.toBytes());
+		assertArrayEquals(new int[] {2, 3}, input.readInts(2));
+		assertArrayEquals(new long[] {2, 3}, input.readLongs(2));
+		assertArrayEquals(new float[] {2, 3}, input.readFloats(2), 0);
+		assertArrayEquals(new double[] {2, 3}, input.readDoubles(2), 0);
+		assertArrayEquals(new short[] {2, 3}, input.readShorts(2));
+		assertArrayEquals(new char[] {2, 3}, input.readChars(2));
+		assertArrayEquals(new boolean[] {true, false}, input.readBooleans(2));
+	}
+
 	@Test
 	public void testStrings () {
 		runStringTest(new UnsafeByteBufferOutput(4096));
@@ -0,0 +1,156 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import com.esotericsoftware.kryo.unsafe.UnsafeByteBufferInput;
+import com.esotericsoftware.kryo.unsafe.UnsafeByteBufferOutput;
+import com.esotericsoftware.kryo.unsafe.UnsafeInput;
+import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/** The VarHandle classes are only available on Java 9+, so they are created reflectively.
+ * @author Nathan Sweet */
+public class VarHandleInputOutputTest {
+	@Test
+	public void testArray () throws Exception {
+		for (int bufferSize : new int[] {9, 4096}) {
+			byte[] expected = write(new UnsafeOutput(new ByteArrayOutputStream(), bufferSize));
+			byte[] bytes = write(newOutput("VarHandleOutput", bufferSize));
+			assertArrayEquals(expected, bytes);
+			read(newInput("VarHandleInput", new ByteArrayInputStream(bytes), bufferSize));
+			read(new UnsafeInput(new ByteArrayInputStream(bytes), bufferSize));
+		}
+	}
+
+	@Test
+	public void testByteBuffer () throws Exception {
+		for (int bufferSize : new int[] {9, 4096}) {
+			byte[] expected = write(new UnsafeByteBufferOutput(new ByteArrayOutputStream(), bufferSize));
+			byte[] bytes = write(newOutput("VarHandleByteBufferOutput", bufferSize));
+			assertArrayEquals(expected, bytes);
+			read(newInput("VarHandleByteBufferInput", new ByteArrayInputStream(bytes), bufferSize));
+			read(new UnsafeByteBufferInput(new ByteArrayInputStream(bytes), bufferSize));
+		}
+	}
+
+	private Output newOutput (String name, int bufferSize) throws Exception {
+		return (Output)varHandleClass(name).getConstructor(OutputStream.class, int.class)
+			.newInstance(new ByteArrayOutputStream(), bufferSize);
+	}
+
+	private Input newInput (String name, InputStream inputStream, int bufferSize) throws Exception {
+		return (Input)varHandleClass(name).getConstructor(InputStream.class, int.class).newInstance(inputStream, bufferSize);
+	}
+
+	private Class varHandleClass (String name) {
+		try {
+			return Class.forName("com.esotericsoftware.kryo.varhandle." + name);
+		} catch (ClassNotFoundException ex) {
+			assumeNoException("VarHandle classes require Java 9+.", ex);
+			return null;
+		}
+	}
+
+	private byte[] write (Output output) {
+		output.setVariableLengthEncoding(false);
+		output.writeInt(-123456789);
+		output.writeByte(1); // Misaligns the following values.
+		output.writeLong(0x123456789abcdefL);
+		output.writeFloat(-1.5f);
+		output.writeDouble(Math.PI);
+		output.writeShort(-2);
+		output.writeChar('ሴ');
+		output.writeVarInt(300, true);
+		Random random = new Random(7);
+		int[] ints = new int[33];
+		long[] longs = new long[33];
+		float[] floats = new float[33];
+		double[] doubles = new double[33];
+		short[] shorts = new short[33];
+		char[] chars = new char[33];
+		for (int i = 0; i < 33; i++) {
+			ints[i] = random.nextInt();
+			longs[i] = random.nextLong();
+			floats[i] = random.nextFloat();
+			doubles[i] = random.nextDouble();
+			shorts[i] = (short)random.nextInt();
+			chars[i] = (char)random.nextInt();
+		}
+		output.writeInts(ints, 1, 32);
+		output.writeLongs(longs, 1, 32);
+		output.writeFloats(floats, 1, 32);
+		output.writeDoubles(doubles, 1, 32);
+		output.writeShorts(shorts, 1, 32);
+		output.writeChars(chars, 1, 32);
+		output.flush();
+		return ((ByteArrayOutputStream)output.getOutputStream()).toByteArray();
+	}
+
+	private void read (Input input) {
+		input.setVariableLengthEncoding(false);
+		assertEquals(-123456789, input.readInt());
+		assertEquals(1, input.readByte());
+		assertEquals(0x123456789abcdefL, input.readLong());
+		assertEquals(-1.5f, input.readFloat(), 0);
+		assertEquals(Math.PI, input.readDouble(), 0);
+		assertEquals(-2, input.readShort());
+		assertEquals('ሴ', input.readChar());
+		assertEquals(300, input.readVarInt(true));
+		Random random = new Random(7);
+		int[] ints = new int[32];
+		long[] longs = new long[32];
+		float[] floats = new float[32];
+		double[] doubles = new double[32];
+		short[] shorts = new short[32];
+		char[] chars = new char[32];
+		for (int i = -1; i < 32; i++) {
+			int intValue = random.nextInt();
+			long longValue = random.nextLong();
+			float floatValue = random.nextFloat();
+			double doubleValue = random.nextDouble();
+			short shortValue = (short)random.nextInt();
+			char charValue = (char)random.nextInt();
+			if (i == -1) continue;
+			ints[i] = intValue;
+			longs[i] = longValue;
+			floats[i] = floatValue;
+			doubles[i] = doubleValue;
+			shorts[i] = shortValue;
+			chars[i] = charValue;
+		}
+		assertArrayEquals(ints, input.readInts(32));
+		assertArrayEquals(longs, input.readLongs(32));
+		assertArrayEquals(floats, input.readFloats(32), 0);
+		assertArrayEquals(doubles, input.readDoubles(32), 0);
+		assertArrayEquals(shorts, input.readShorts(32));
+		assertArrayEquals(chars, input.readChars(32));
+		assertTrue(input.end());
+	}
+}
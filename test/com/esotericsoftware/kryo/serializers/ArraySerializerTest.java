@@ -22,7 +22,14 @@ package com.esotericsoftware.kryo.serializers;
 import static org.junit.Assert.*;
 
 import com.esotericsoftware.kryo.KryoTestCase;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.AdaptiveIntArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.AdaptiveLongArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.BooleanArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.DeltaIntArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.DeltaLongArraySerializer;
 import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.ObjectArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorDoubleArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorFloatArraySerializer;
 
 import java.util.BitSet;
 
@@ -78,6 +85,54 @@ public class ArraySerializerTest extends KryoTestCase {
 		roundTrip(31, array);
 	}
 
+	@Test
+	public void testDeltaArrays () {
+		kryo.register(int[].class, new DeltaIntArraySerializer());
+		kryo.register(long[].class, new DeltaLongArraySerializer());
+		roundTrip(2, new int[0]);
+		roundTrip(9, new int[] {1000000, 1000001, 1000002, 1000010, 1000005});
+		roundTrip(14, new int[] {Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 0});
+		roundTrip(12, new long[] {1500000000000L, 1500000000100L, 1500000000200L});
+		roundTrip(22, new long[] {Long.MIN_VALUE, Long.MAX_VALUE, -1, 0});
+	}
+
+	@Test
+	public void testAdaptiveArrays () {
+		kryo.register(int[].class, new AdaptiveIntArraySerializer());
+		kryo.register(long[].class, new AdaptiveLongArraySerializer());
+		roundTrip(3, new int[0]);
+		roundTrip(7, new int[] {1, 2, 3, 4});
+		roundTrip(19, new int[] {0x12345678, -0x12345678, 0x7edcba98, 0x10000000});
+		roundTrip(9, new int[] {1000000, 1000001, 1000002, 1000010});
+		roundTrip(7, new long[] {1, 2, 3, 4});
+		roundTrip(31, new long[] {Long.MIN_VALUE, Long.MAX_VALUE, -1, 0x123456789abcdefL});
+	}
+
+	@Test
+	public void testXorArrays () {
+		kryo.register(double[].class, new XorDoubleArraySerializer());
+		kryo.register(float[].class, new XorFloatArraySerializer());
+		roundTrip(2, new double[0]);
+		roundTrip(6, new double[] {1, 1, 1, 1});
+		roundTrip(9, new double[] {20.5, 20.5, 20.75, 20.5});
+		roundTrip(11, new double[] {Double.NaN, Double.NEGATIVE_INFINITY, -0d});
+		roundTrip(5, new float[] {1, 1, 1, 1});
+		roundTrip(8, new float[] {20.5f, 20.5f, 20.75f, 20.5f});
+	}
+
+	@Test
+	public void testPackedBooleanArray () {
+		kryo.register(boolean[].class, new BooleanArraySerializer(true));
+		roundTrip(2, new boolean[0]);
+		roundTrip(3, new boolean[] {true});
+		roundTrip(3, new boolean[] {true, false, true, true, false, false, true, false});
+		roundTrip(4, new boolean[] {true, false, true, true, false, false, true, false, true});
+		boolean[] array = new boolean[1000];
+		for (int i = 0; i < array.length; i += 3)
+			array[i] = true;
+		roundTrip(128, array);
+	}
+
 	@Test
 	public void testRecursiveArray () {
 		Object[] array = new Object[1];
@@ -205,6 +205,41 @@ public class CompatibleFieldSerializerTest extends KryoTestCase {
 		assertEquals(object1, object2);
 	}
 
+	@Test
+	public void testFramedEncoding () {
+		testFramedEncoding(144, false);
+		testFramedEncoding(139, true);
+	}
+
+	private void testFramedEncoding (int length, boolean references) {
+		kryo.setReferences(references);
+
+		CompatibleFieldSerializer serializer = new CompatibleFieldSerializer(kryo, AnotherClass.class);
+		serializer.getCompatibleFieldSerializerConfig().setFramedEncoding(true);
+		kryo.register(AnotherClass.class, serializer);
+
+		serializer = new CompatibleFieldSerializer(kryo, TestClass.class);
+		serializer.getCompatibleFieldSerializerConfig().setFramedEncoding(true);
+		kryo.register(TestClass.class, serializer);
+
+		TestClass object1 = new TestClass();
+		object1.text = "so much fun";
+		object1.child = new TestClass();
+		object1.other = new AnotherClass();
+		object1.other.value = object1.text;
+
+		// Writing to a byte[] backpatches the lengths, writing to a stream copies the fields. The bytes must be the same.
+		TestClass object2 = roundTrip(length, object1);
+		assertEquals(object1, object2);
+
+		serializer.removeField("child");
+		kryo.register(TestClass.class, serializer);
+		object2 = (TestClass)kryo.readClassAndObject(input);
+		assertNull(object2.child);
+		object2.child = object1.child;
+		assertEquals(object1, object2);
+	}
+
 	@Test
 	public void testRemovedFieldFromClassWithManyFields () {
 		testRemovedFieldFromClassWithManyFields(198, false, false, true);
@@ -341,6 +341,30 @@ public class FieldSerializerTest extends KryoTestCase {
 		roundTrip(35, object2);
 	}
 
+	@Test
+	public void testPackBooleans () {
+		kryo.register(HasBooleans.class);
+		HasBooleans test = new HasBooleans();
+		test.a = true;
+		test.c = true;
+		test.h = true;
+		test.i = true;
+		test.j = 12;
+		test.l = true;
+		roundTrip(13, test);
+
+		FieldSerializer serializer = (FieldSerializer)kryo.getSerializer(HasBooleans.class);
+		serializer.getFieldSerializerConfig().setPackBooleans(true);
+		serializer.updateFields();
+		roundTrip(5, test);
+
+		serializer.removeField("j");
+		test.j = 0;
+		roundTrip(3, test);
+		serializer.removeField("b");
+		roundTrip(3, test);
+	}
+
 	@Test
 	public void testNonNull () {
 		kryo.register(HasNonNull.class);
@@ -699,6 +723,66 @@ public class FieldSerializerTest extends KryoTestCase {
 		roundTrip(1440, root);
 	}
 
+	@Test
+	public void testAcyclic () {
+		kryo.setReferences(true);
+		FieldSerializer pointSerializer = new FieldSerializer(kryo, Point.class);
+		pointSerializer.getFieldSerializerConfig().setElideReferences(true);
+		assertFalse(kryo.getElideReferences());
+		pointSerializer.updateFields();
+		assertTrue(kryo.getElideReferences());
+		kryo.register(Point.class, pointSerializer);
+		kryo.register(Line.class);
+		kryo.register(MutablePoint.class);
+		kryo.register(Cyclic.class);
+		kryo.register(NonFinal.class);
+
+		assertTrue(pointSerializer.isAcyclic());
+		assertTrue(((FieldSerializer)kryo.getSerializer(Line.class)).isAcyclic());
+		assertFalse(((FieldSerializer)kryo.getSerializer(MutablePoint.class)).isAcyclic());
+		assertFalse(((FieldSerializer)kryo.getSerializer(Cyclic.class)).isAcyclic());
+		assertFalse(((FieldSerializer)kryo.getSerializer(NonFinal.class)).isAcyclic());
+
+		// Lines are not elided because their serializer does not enable it, points are written each time they appear.
+		assertTrue(kryo.getReferenceResolver().useReferences(Line.class));
+		assertFalse(kryo.getReferenceResolver().useReferences(Point.class));
+		Point point = new Point(1, 2);
+		Line line = new Line(point, point, "line");
+		Line line2 = roundTrip(13, line);
+		assertEquals(line2.a, line2.b);
+		assertNotSame(line2.a, line2.b);
+
+		pointSerializer.getFieldSerializerConfig().setElideReferences(false);
+		pointSerializer.updateFields();
+		assertTrue(kryo.getReferenceResolver().useReferences(Point.class));
+		line2 = roundTrip(11, line);
+		assertSame(line2.a, line2.b);
+	}
+
+	@Test
+	public void testAcyclicRegistrationChanged () {
+		kryo.register(Point.class);
+		kryo.register(Line.class);
+		FieldSerializer lineSerializer = (FieldSerializer)kryo.getSerializer(Line.class);
+		assertTrue(lineSerializer.isAcyclic());
+
+		// A serializer that is not immutable may return a shared object, so a line with a point using it is not acyclic.
+		kryo.register(Point.class, new Serializer<Point>() {
+			public void write (Kryo kryo, Output output, Point object) {
+				output.writeInt(object.x);
+				output.writeInt(object.y);
+			}
+
+			public Point read (Kryo kryo, Input input, Class<? extends Point> type) {
+				return new Point(input.readInt(), input.readInt());
+			}
+		});
+		assertFalse(lineSerializer.isAcyclic());
+
+		kryo.register(Point.class, new FieldSerializer(kryo, Point.class), 100);
+		assertTrue(lineSerializer.isAcyclic());
+	}
+
 	static public class DefaultTypes {
 		// Primitives.
 		public boolean booleanField;
@@ -1072,6 +1156,20 @@ public class FieldSerializerTest extends KryoTestCase {
 		}
 	}
 
+	static public class HasBooleans {
+		public boolean a, b, c, d, e, f, g, h, i;
+		public int j;
+		private boolean k, l;
+
+		public boolean equals (Object obj) {
+			if (this == obj) return true;
+			if (obj == null || getClass() != obj.getClass()) return false;
+			HasBooleans other = (HasBooleans)obj;
+			return a == other.a && b == other.b && c == other.c && d == other.d && e == other.e && f == other.f && g == other.g
+				&& h == other.h && i == other.i && j == other.j && k == other.k && l == other.l;
+		}
+	}
+
 	static public class HasPrivateConstructor extends HasArgumentConstructor {
 		static int invocations;
 
@@ -1270,4 +1368,56 @@ public class FieldSerializerTest extends KryoTestCase {
 			return true;
 		}
 	}
+
+	static public final class Point {
+		public final int x, y;
+
+		public Point () {
+			this(0, 0);
+		}
+
+		public Point (int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public boolean equals (Object obj) {
+			if (!(obj instanceof Point)) return false;
+			Point other = (Point)obj;
+			return x == other.x && y == other.y;
+		}
+	}
+
+	static public final class Line {
+		public final Point a, b;
+		public final String name;
+
+		public Line () {
+			this(null, null, null);
+		}
+
+		public Line (Point a, Point b, String name) {
+			this.a = a;
+			this.b = b;
+			this.name = name;
+		}
+
+		public boolean equals (Object obj) {
+			if (!(obj instanceof Line)) return false;
+			Line other = (Line)obj;
+			return Objects.equals(a, other.a) && Objects.equals(b, other.b) && Objects.equals(name, other.name);
+		}
+	}
+
+	static public final class MutablePoint {
+		public int x, y;
+	}
+
+	static public final class Cyclic {
+		public final Cyclic next = null;
+	}
+
+	static public class NonFinal {
+		public final int x = 0;
+	}
 }
@@ -136,6 +136,72 @@ public class TaggedFieldSerializerTest extends KryoTestCase {
 		assertEquals(futureArray[1], presentArray[1]);
 	}
 
+	/** Like {@link #testForwardCompatibility()}, but with framed encoding. */
+	@Test
+	public void testForwardCompatibilityFramed () {
+		FutureClass futureObject = new FutureClass();
+		futureObject.value = 3;
+		futureObject.futureString = "future";
+		futureObject.futureClass2 = new FutureClass2();
+		futureObject.futureClass2.text = "futureText";
+		futureObject.futureClass2.moo = 13;
+		futureObject.futureClass2.moo2 = 9000L;
+		futureObject.futureClass2.zzz = 15;
+		futureObject.futureClass2.fc2 = new FutureClass2();
+		futureObject.futureClass2.fc2.text = "inner futureText";
+		futureObject.futureClass2.fc2.moo = 254;
+		futureObject.futureClass2.fc2.moo2 = 1L;
+		futureObject.futureClass2.fc2.zzz = 503;
+		Object[] futureArray = new Object[2];
+		futureArray[0] = futureObject;
+		futureArray[1] = new TestClass();
+
+		TaggedFieldSerializerFactory factory = new TaggedFieldSerializerFactory();
+		factory.getConfig().setChunkedEncoding(true);
+		factory.getConfig().setFramedEncoding(true);
+		kryo.setDefaultSerializer(factory);
+		kryo.register(TestClass.class);
+		kryo.register(Object[].class);
+		TaggedFieldSerializer<FutureClass> futureSerializer = new TaggedFieldSerializer(kryo, FutureClass.class);
+		futureSerializer.getTaggedFieldSerializerConfig().setChunkedEncoding(true);
+		futureSerializer.getTaggedFieldSerializerConfig().setFramedEncoding(true);
+		futureSerializer.updateFields();
+		kryo.register(FutureClass.class, futureSerializer);
+		TaggedFieldSerializer<FutureClass2> futureSerializer2 = new TaggedFieldSerializer(kryo, FutureClass2.class);
+		futureSerializer2.getTaggedFieldSerializerConfig().setChunkedEncoding(true);
+		futureSerializer2.getTaggedFieldSerializerConfig().setFramedEncoding(true);
+		futureSerializer2.updateFields();
+		kryo.register(FutureClass2.class, futureSerializer2);
+
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+		output = new Output(outStream);
+		kryo.writeClassAndObject(output, futureArray);
+		output.flush();
+		byte[] futureArrayData = outStream.toByteArray();
+
+		TaggedFieldSerializer<FutureClass> presentSerializer = new TaggedFieldSerializer(kryo, FutureClass.class);
+		presentSerializer.getTaggedFieldSerializerConfig().setChunkedEncoding(true);
+		presentSerializer.getTaggedFieldSerializerConfig().setFramedEncoding(true);
+		presentSerializer.updateFields();
+		presentSerializer.removeField("futureString"); // simulate past version of application
+		kryo.register(FutureClass.class, presentSerializer);
+		TaggedFieldSerializer<FutureClass2> presentSerializer2 = new TaggedFieldSerializer(kryo, FutureClass2.class);
+		presentSerializer2.getTaggedFieldSerializerConfig().setChunkedEncoding(true);
+		presentSerializer2.getTaggedFieldSerializerConfig().setFramedEncoding(true);
+		presentSerializer2.updateFields();
+		presentSerializer2.removeField("zzz"); // simulate past version of application
+		presentSerializer2.removeField("fc2"); // simulate past version of application
+		kryo.register(FutureClass2.class, presentSerializer2);
+
+		ByteArrayInputStream inStream = new ByteArrayInputStream(futureArrayData);
+		input = new Input(inStream);
+		Object[] presentArray = (Object[])kryo.readClassAndObject(input);
+		FutureClass presentObject = (FutureClass)presentArray[0];
+		assertNotEquals(futureObject, presentObject);
+		assertTrue(presentObject.pastEquals(futureObject));
+		assertEquals(futureArray[1], presentArray[1]);
+	}
+
 	/** Attempts to register a class with a field tagged with a value already used in its superclass. Should receive
 	 * IllegalArgumentException. */
 	@Test
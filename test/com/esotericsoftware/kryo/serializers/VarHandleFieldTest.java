@@ -0,0 +1,131 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.serializers;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import com.esotericsoftware.kryo.KryoTestCase;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
+import com.esotericsoftware.kryo.util.Generics.GenericType;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+import org.junit.Test;
+
+/** VarHandleField is only available on Java 9+, so it is created reflectively. The "kryo.varHandle" system property is read once,
+ * so the fields are created directly instead of through {@link CachedFields}.
+ * @author Nathan Sweet */
+public class VarHandleFieldTest extends KryoTestCase {
+	@Test
+	public void testFields () throws Exception {
+		FieldSerializer serializer = new FieldSerializer(kryo, HasFields.class);
+		CachedField[] fields = varHandleFields(serializer);
+
+		HasFields object = new HasFields(7);
+		object.intField = -123456;
+		object.floatField = 1.5f;
+		object.booleanField = true;
+		object.longField = Long.MIN_VALUE + 3;
+		object.doubleField = -2.25;
+		object.shortField = (short)-3000;
+		object.charField = 'x';
+		object.byteField = (byte)-7;
+		object.stringField = "abc";
+		object.objectField = "def";
+
+		Output output = new Output(512);
+		for (CachedField field : fields)
+			field.write(output, object);
+		HasFields read = new HasFields(7);
+		Input input = new Input(output.getBuffer(), 0, output.position());
+		for (CachedField field : fields)
+			field.read(input, read);
+		assertEquals(output.position(), input.position());
+		assertEquals(object, read);
+
+		HasFields copy = new HasFields(7);
+		for (CachedField field : fields)
+			field.copy(object, copy);
+		assertEquals(object, copy);
+	}
+
+	private CachedField[] varHandleFields (FieldSerializer serializer) throws Exception {
+		Method newField;
+		try {
+			newField = Class.forName("com.esotericsoftware.kryo.serializers.VarHandleField").getDeclaredMethod("newField", Field.class,
+				Class.class, FieldSerializer.class, GenericType.class, boolean.class);
+		} catch (ClassNotFoundException ex) {
+			assumeNoException("VarHandle fields require Java 9+.", ex);
+			return null;
+		}
+		CachedField[] original = serializer.getFields();
+		CachedField[] fields = new CachedField[original.length];
+		for (int i = 0; i < original.length; i++) {
+			Field field = original[i].getField();
+			GenericType genericType = new GenericType(HasFields.class, HasFields.class, field.getGenericType());
+			CachedField varHandleField = (CachedField)newField.invoke(null, field, field.getType(), serializer, genericType,
+				field.getType() == String.class);
+			if (varHandleField == null) {
+				// A VarHandle for a final field is read only.
+				assertEquals("finalField", field.getName());
+				fields[i] = original[i];
+				continue;
+			}
+			assertTrue(varHandleField.getClass().getName().endsWith("VarHandleField"));
+			varHandleField.setValueClass(original[i].getValueClass(), original[i].getSerializer());
+			varHandleField.setCanBeNull(original[i].getCanBeNull());
+			fields[i] = varHandleField;
+		}
+		return fields;
+	}
+
+	static public class HasFields {
+		int intField;
+		float floatField;
+		boolean booleanField;
+		long longField;
+		double doubleField;
+		short shortField;
+		char charField;
+		byte byteField;
+		String stringField;
+		Object objectField;
+		final int finalField;
+
+		public HasFields (int finalField) {
+			this.finalField = finalField;
+		}
+
+		public boolean equals (Object obj) {
+			if (this == obj) return true;
+			if (obj == null || getClass() != obj.getClass()) return false;
+			HasFields other = (HasFields)obj;
+			return intField == other.intField && floatField == other.floatField && booleanField == other.booleanField
+				&& longField == other.longField && doubleField == other.doubleField && shortField == other.shortField
+				&& charField == other.charField && byteField == other.byteField && finalField == other.finalField
+				&& Objects.equals(stringField, other.stringField) && Objects.equals(objectField, other.objectField);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+/** @author Nathan Sweet */
+public class ClassValueClassResolverTest {
+	@Test
+	public void testRoundTrip () {
+		Kryo kryo = new Kryo(new ClassValueClassResolver(), new MapReferenceResolver());
+		kryo.register(ArrayList.class);
+		kryo.register(HashMap.class);
+		ArrayList list = new ArrayList();
+		list.add(1);
+		list.add("abc");
+		list.add(new HashMap());
+		list.add(5L);
+		assertEquals(list, roundTrip(kryo, list));
+	}
+
+	@Test
+	public void testPrimitives () {
+		Kryo kryo = new Kryo(new ClassValueClassResolver(), new MapReferenceResolver());
+		Registration registration = kryo.getRegistration(int.class);
+		assertSame(registration, kryo.getRegistration(Integer.class));
+		assertSame(registration, kryo.getClassResolver().getRegistration(registration.getId()));
+	}
+
+	@Test
+	public void testUnregister () {
+		Kryo kryo = new Kryo(new ClassValueClassResolver(), new MapReferenceResolver());
+		kryo.setRegistrationRequired(true);
+		Registration registration = kryo.register(ArrayList.class, 100);
+		assertSame(registration, kryo.getRegistration(ArrayList.class));
+		assertEquals(new ArrayList(), roundTrip(kryo, new ArrayList()));
+
+		kryo.getClassResolver().unregister(100);
+		assertNull(kryo.getClassResolver().getRegistration(ArrayList.class));
+		try {
+			kryo.writeClassAndObject(new Output(1024), new ArrayList());
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+
+		// The write memo must not keep using the old registration.
+		kryo.register(ArrayList.class, 101);
+		Output output = new Output(1024);
+		kryo.writeClass(output, ArrayList.class);
+		assertEquals(101, kryo.readClass(new Input(output.toBytes())).getId());
+	}
+
+	@Test
+	public void testGarbageCollection () throws Exception {
+		Kryo kryo = new Kryo(new ClassValueClassResolver(), new MapReferenceResolver());
+		kryo.register(ArrayList.class);
+		roundTrip(kryo, new ArrayList());
+		WeakReference<Kryo> reference = new WeakReference(kryo);
+		kryo = null;
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertNull(reference.get());
+	}
+
+	private <T> T roundTrip (Kryo kryo, T object) {
+		Output output = new Output(1024);
+		kryo.writeClassAndObject(output, object);
+		return (T)kryo.readClassAndObject(new Input(output.toBytes()));
+	}
+}
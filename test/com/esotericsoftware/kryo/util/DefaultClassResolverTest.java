@@ -0,0 +1,125 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/** @author Nathan Sweet */
+public class DefaultClassResolverTest {
+	@Test
+	public void testIds () {
+		Kryo kryo = new Kryo();
+		kryo.register(ArrayList.class, 100);
+		kryo.register(HashMap.class, 5000);
+		kryo.register(HashSet.class, Integer.MAX_VALUE - 2);
+		assertSame(ArrayList.class, kryo.getRegistration(100).getType());
+		assertSame(HashMap.class, kryo.getRegistration(5000).getType());
+		assertSame(HashSet.class, kryo.getRegistration(Integer.MAX_VALUE - 2).getType());
+		assertNull(kryo.getRegistration(99));
+		assertNull(kryo.getRegistration(-5));
+
+		Output output = new Output(1024);
+		kryo.writeClass(output, ArrayList.class);
+		kryo.writeClass(output, HashMap.class);
+		kryo.writeClass(output, HashSet.class);
+		kryo.writeClass(output, ArrayList.class);
+		Input input = new Input(output.toBytes());
+		assertSame(ArrayList.class, kryo.readClass(input).getType());
+		assertSame(HashMap.class, kryo.readClass(input).getType());
+		assertSame(HashSet.class, kryo.readClass(input).getType());
+		assertSame(ArrayList.class, kryo.readClass(input).getType());
+
+		kryo.getClassResolver().unregister(100);
+		assertNull(kryo.getRegistration(100));
+		try {
+			kryo.readClass(new Input(output.toBytes()));
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	@Test
+	public void testWriteMemo () {
+		Kryo kryo = new Kryo();
+		kryo.register(ArrayList.class, 100);
+		Output output = new Output(1024);
+		kryo.writeClass(output, ArrayList.class);
+		kryo.writeClass(output, ArrayList.class);
+		kryo.register(ArrayList.class, kryo.getSerializer(ArrayList.class), 101);
+		kryo.writeClass(output, ArrayList.class);
+		Input input = new Input(output.toBytes());
+		assertEquals(100, kryo.readClass(input).getId());
+		assertEquals(100, kryo.readClass(input).getId());
+		assertEquals(101, kryo.readClass(input).getId());
+	}
+
+	@Test
+	public void testSession () {
+		Kryo writer = new Kryo();
+		writer.setRegistrationRequired(false);
+		Kryo reader = new Kryo();
+		reader.setRegistrationRequired(false);
+		DefaultClassResolver writerResolver = (DefaultClassResolver)writer.getClassResolver();
+		DefaultClassResolver readerResolver = (DefaultClassResolver)reader.getClassResolver();
+
+		// Without a session the class name is written for each object graph.
+		Output output = new Output(1024);
+		writer.writeClassAndObject(output, new Named());
+		int size = output.position();
+		writer.writeClassAndObject(output, new Named());
+		assertEquals(size * 2, output.position());
+
+		writerResolver.startSession();
+		readerResolver.startSession();
+		assertTrue(writerResolver.isSession());
+		output = new Output(1024);
+		writer.writeClassAndObject(output, new Named());
+		assertEquals(size, output.position());
+		for (int i = 0; i < 3; i++)
+			writer.writeClassAndObject(output, new Named());
+		assertEquals(size + 3 * 2, output.position()); // Later graphs only write the name ID.
+		Input input = new Input(output.toBytes());
+		for (int i = 0; i < 4; i++)
+			assertTrue(reader.readClassAndObject(input) instanceof Named);
+
+		writerResolver.endSession();
+		readerResolver.endSession();
+		assertFalse(writerResolver.isSession());
+		output = new Output(1024);
+		writer.writeClassAndObject(output, new Named());
+		assertEquals(size, output.position());
+		input = new Input(output.toBytes());
+		assertTrue(reader.readClassAndObject(input) instanceof Named);
+	}
+
+	static public class Named {
+	}
+}
@@ -0,0 +1,90 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/** @author Nathan Sweet */
+public class GenerationalReferenceResolverTest {
+	@Test
+	public void testReferences () {
+		GenerationalReferenceResolver resolver = new GenerationalReferenceResolver(100);
+		Kryo kryo = new Kryo(new DefaultClassResolver(), resolver);
+		kryo.setReferences(true);
+		kryo.register(ArrayList.class);
+		kryo.register(Node.class);
+
+		// Graphs larger than the maximum capacity shrink the tables when reset.
+		for (int size : new int[] {1, 3, 1000, 2, 5000, 1}) {
+			ArrayList list = new ArrayList();
+			for (int i = 0; i < size; i++) {
+				Node node = new Node();
+				node.next = node;
+				list.add(node);
+				list.add(node);
+			}
+			ArrayList copy = roundTrip(kryo, list);
+			assertEquals(size * 2, copy.size());
+			for (int i = 0; i < size; i++) {
+				Node node = (Node)copy.get(i * 2);
+				assertSame(node, copy.get(i * 2 + 1));
+				assertSame(node, node.next);
+				if (i > 0) assertNotSame(node, copy.get(i * 2 - 1));
+			}
+		}
+	}
+
+	@Test
+	public void testGenerationWraps () throws Exception {
+		GenerationalReferenceResolver resolver = new GenerationalReferenceResolver();
+		Object object = new Object();
+		resolver.addWrittenObject(object);
+		Field field = GenerationalReferenceResolver.class.getDeclaredField("generation");
+		field.setAccessible(true);
+		field.setInt(resolver, -1);
+		resolver.reset();
+		assertEquals(1, field.getInt(resolver));
+		// The entry from the old first generation must not be found.
+		assertEquals(-1, resolver.getWrittenId(object));
+		assertEquals(0, resolver.addWrittenObject(object));
+		assertEquals(0, resolver.getWrittenId(object));
+		resolver.reset();
+		assertEquals(-1, resolver.getWrittenId(object));
+	}
+
+	private <T> T roundTrip (Kryo kryo, T object) {
+		Output output = new Output(1024, -1);
+		kryo.writeClassAndObject(output, object);
+		return (T)kryo.readClassAndObject(new Input(output.toBytes()));
+	}
+
+	static public class Node {
+		public Node next;
+	}
+}
@@ -0,0 +1,76 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.Kryo;
+
+import org.junit.Test;
+
+/** @author Nathan Sweet */
+public class GraphContextMapTest {
+	@Test
+	public void testClear () {
+		GraphContextMap map = new GraphContextMap();
+		// The number of keys put for each graph, including more than are remembered and enough to grow the backing arrays.
+		for (int count : new int[] {1, 5, 16, 0, 17, 3, 500, 2, 16}) {
+			for (int i = 0; i < count; i++)
+				map.put(i * 64, i);
+			// Putting an existing key or removing and putting it again doesn't change what is cleared.
+			if (count > 0) {
+				map.put(0, -1);
+				map.remove(0);
+				map.put(0, 0);
+			}
+			assertEquals(count, map.size);
+			for (int i = 0; i < count; i++)
+				assertEquals(i, map.get(i * 64));
+
+			map.clear(2048);
+			assertEquals(0, map.size);
+			for (Object key : map.keyTable)
+				assertNull(key);
+			for (Object value : map.valueTable)
+				assertNull(value);
+			for (int i = 0; i < count; i++)
+				assertNull(map.get(i * 64));
+		}
+		// Clearing after many keys shrinks the backing arrays.
+		for (int i = 0; i < 5000; i++)
+			map.put(i, i);
+		map.clear(10);
+		assertEquals(16, map.keyTable.length);
+	}
+
+	@Test
+	public void testKryo () {
+		Kryo kryo = new Kryo();
+		ObjectMap context = kryo.getGraphContext();
+		assertTrue(context instanceof GraphContextMap);
+		context.put("a", 1);
+		context.put("b", 2);
+		kryo.reset();
+		assertSame(context, kryo.getGraphContext());
+		assertTrue(context.isEmpty());
+		assertNull(context.get("a"));
+		assertNull(context.get("b"));
+	}
+}
@@ -45,6 +45,10 @@ public class PoolTest extends KryoTestCase {
 			protected Kryo create () {
 				return new Kryo();
 			}
+		}}, {new StripedPool<Kryo>(16, 4) {
+			protected Kryo create () {
+				return new Kryo();
+			}
 		}}});
 	}
 
@@ -0,0 +1,194 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.Bind;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer;
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+import org.junit.Test;
+
+/** @author Nathan Sweet */
+public class RegistrationSnapshotTest {
+	@Test
+	public void testRegister () {
+		Kryo kryo1 = newKryo();
+		RegistrationSnapshot snapshot = new RegistrationSnapshot(kryo1);
+
+		Kryo kryo2 = new Kryo();
+		snapshot.register(kryo2);
+		for (Class type : new Class[] {Parent.class, Child.class, Tagged.class, ArrayList.class}) {
+			assertEquals(kryo1.getRegistration(type).getId(), kryo2.getRegistration(type).getId());
+			assertSame(kryo1.getSerializer(type).getClass(), kryo2.getSerializer(type).getClass());
+		}
+		assertEquals(kryo1.getNextRegistrationId(), kryo2.getNextRegistrationId());
+
+		// FieldSerializers are copied for each Kryo, including those bound to fields.
+		FieldSerializer serializer = (FieldSerializer)kryo2.getSerializer(Parent.class);
+		assertNotSame(kryo1.getSerializer(Parent.class), serializer);
+		assertSame(kryo2, serializer.getKryo());
+		CachedField field = serializer.getField("child");
+		assertSame(kryo2, ((FieldSerializer)field.getSerializer()).getKryo());
+		assertSame(Child.class, field.getValueClass());
+		assertSame(kryo2, ((FieldSerializer)kryo2.getSerializer(Tagged.class)).getKryo());
+		// Other serializers are shared.
+		assertSame(kryo1.getSerializer(ArrayList.class), kryo2.getSerializer(ArrayList.class));
+
+		Parent parent = new Parent();
+		parent.child = new Child();
+		parent.child.value = 5;
+		parent.tagged = new Tagged();
+		parent.tagged.text = "abc";
+		parent.list = new ArrayList();
+		parent.list.add(parent.child);
+		assertEquals(parent, roundTrip(kryo1, kryo2, parent));
+		assertEquals(parent, roundTrip(kryo2, kryo1, parent));
+
+		// Another snapshot of a Kryo created from a snapshot has the same registrations.
+		Kryo kryo3 = new Kryo();
+		new RegistrationSnapshot(kryo2).register(kryo3);
+		assertEquals(parent, roundTrip(kryo3, kryo1, parent));
+	}
+
+	@Test
+	public void testImplicitRegistration () {
+		Kryo kryo1 = new Kryo();
+		kryo1.setRegistrationRequired(false);
+		kryo1.register(Parent.class);
+		kryo1.getRegistration(Child.class);
+		RegistrationSnapshot snapshot = new RegistrationSnapshot(kryo1);
+
+		Kryo kryo2 = new Kryo();
+		kryo2.setRegistrationRequired(true);
+		snapshot.register(kryo2);
+		assertEquals(DefaultClassResolver.NAME, kryo2.getRegistration(Child.class).getId());
+		assertSame(kryo2, ((FieldSerializer)kryo2.getSerializer(Child.class)).getKryo());
+	}
+
+	@Test
+	public void testConfiguredSerializer () {
+		Kryo kryo1 = newKryo();
+		FieldSerializer serializer = (FieldSerializer)kryo1.getSerializer(Child.class);
+		serializer.removeField("value");
+		RegistrationSnapshot snapshot = new RegistrationSnapshot(kryo1);
+
+		Kryo kryo2 = new Kryo();
+		snapshot.register(kryo2);
+		assertEquals(0, ((FieldSerializer)kryo2.getSerializer(Child.class)).getFields().length);
+		Child child = new Child();
+		child.value = 5;
+		assertEquals(0, roundTrip(kryo2, kryo1, child).value);
+
+		// Changing the original serializer does not affect the snapshot.
+		serializer.updateFields();
+		Kryo kryo3 = new Kryo();
+		snapshot.register(kryo3);
+		assertEquals(0, ((FieldSerializer)kryo3.getSerializer(Child.class)).getFields().length);
+	}
+
+	@Test
+	public void testElideReferences () {
+		Kryo kryo1 = new Kryo();
+		kryo1.setReferences(true);
+		FieldSerializer serializer = new FieldSerializer(kryo1, Point.class);
+		serializer.getFieldSerializerConfig().setElideReferences(true);
+		serializer.updateFields();
+		kryo1.register(Point.class, serializer);
+		kryo1.register(Point[].class);
+		RegistrationSnapshot snapshot = new RegistrationSnapshot(kryo1);
+
+		Kryo kryo2 = new Kryo();
+		kryo2.setReferences(true);
+		snapshot.register(kryo2);
+		assertTrue(kryo2.getElideReferences());
+		assertFalse(kryo2.getReferenceResolver().useReferences(Point.class));
+		Point point = new Point(1, 2);
+		Point[] points = roundTrip(kryo2, kryo1, new Point[] {point, point});
+		assertEquals(2, points[1].y);
+		assertNotSame(points[0], points[1]);
+	}
+
+	private Kryo newKryo () {
+		Kryo kryo = new Kryo();
+		kryo.register(Parent.class);
+		kryo.register(Child.class);
+		kryo.register(Tagged.class, new TaggedFieldSerializer(kryo, Tagged.class));
+		kryo.register(ArrayList.class);
+		return kryo;
+	}
+
+	private <T> T roundTrip (Kryo writer, Kryo reader, T object) {
+		Output output = new Output(1024);
+		writer.writeObject(output, object);
+		return (T)reader.readObject(new Input(output.toBytes()), object.getClass());
+	}
+
+	static public class Parent {
+		@Bind(serializer = FieldSerializer.class, valueClass = Child.class) public Child child;
+		public Tagged tagged;
+		public ArrayList list;
+
+		public boolean equals (Object obj) {
+			if (!(obj instanceof Parent)) return false;
+			Parent other = (Parent)obj;
+			return Objects.equals(child, other.child) && Objects.equals(tagged, other.tagged) && Objects.equals(list, other.list);
+		}
+	}
+
+	static public class Child {
+		public int value;
+
+		public boolean equals (Object obj) {
+			return obj instanceof Child && ((Child)obj).value == value;
+		}
+	}
+
+	static public final class Point {
+		public final int x, y;
+
+		public Point () {
+			this(0, 0);
+		}
+
+		public Point (int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	static public class Tagged {
+		@Tag(1) public String text;
+		public int untagged;
+
+		public boolean equals (Object obj) {
+			return obj instanceof Tagged && Objects.equals(((Tagged)obj).text, text);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2008-2018, Nathan Sweet
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static org.junit.Assert.*;
+
+import com.esotericsoftware.kryo.Kryo;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/** @author Nathan Sweet */
+public class StripedPoolTest {
+	private final StripedPool<Kryo> pool = new StripedPool<Kryo>(16, 4) {
+		protected Kryo create () {
+			return new Kryo();
+		}
+	};
+
+	@Test
+	public void testStripeCount () {
+		assertEquals(4, pool.getStripeCount());
+		assertEquals(8, new KryoPool(100, 5).getStripeCount());
+		assertEquals(2, new KryoPool(3, 64).getStripeCount());
+		assertEquals(1, new KryoPool(1, 64).getStripeCount());
+	}
+
+	@Test
+	public void testMaximumCapacity () {
+		Kryo[] kryos = new Kryo[20];
+		for (int i = 0; i < kryos.length; i++)
+			kryos[i] = pool.obtain();
+		for (Kryo kryo : kryos)
+			pool.free(kryo);
+		assertEquals(16, pool.getFree());
+		for (int i = 0; i < 16; i++)
+			pool.obtain();
+		assertEquals(0, pool.getFree());
+	}
+
+	@Test
+	public void testThreads () throws Exception {
+		final Set<Kryo> inUse = Collections.newSetFromMap(new ConcurrentHashMap());
+		final AtomicReference<Throwable> error = new AtomicReference();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run () {
+					try {
+						for (int i = 0; i < 2000; i++) {
+							Kryo kryo = pool.obtain();
+							assertTrue("Obtained by two threads.", inUse.add(kryo));
+							inUse.remove(kryo);
+							pool.free(kryo);
+						}
+					} catch (Throwable ex) {
+						error.set(ex);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		if (error.get() != null) throw new AssertionError(error.get());
+		assertTrue(pool.getFree() <= 8);
+	}
+
+	static private class KryoPool extends StripedPool<Kryo> {
+		KryoPool (int maximumCapacity, int stripeCount) {
+			super(maximumCapacity, stripeCount);
+		}
+
+		protected Kryo create () {
+			return new Kryo();
+		}
+	}
+}